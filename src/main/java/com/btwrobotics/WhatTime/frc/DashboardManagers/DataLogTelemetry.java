@@ -0,0 +1,91 @@
+package com.btwrobotics.WhatTime.frc.DashboardManagers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.wpi.first.util.datalog.BooleanLogEntry;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.util.datalog.StringLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+
+/**
+ * Telemetry backend that records every value to the on-robot {@link DataLog} instead of
+ * sending it over the network.
+ * 
+ * <p>Entries are named {@code /table/key} and created the first time they are written.
+ * Log entries are cached per table and key and looked up without capturing lambdas, so
+ * steady-state puts do not allocate. The caches are concurrent, so puts may come from any thread.
+ */
+public final class DataLogTelemetry implements TelemetryBackend {
+    /** The log entries are written to. */
+    private final DataLog log;
+
+    private final Map<String, Map<String, DoubleLogEntry>> doubleEntries = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, StringLogEntry>> stringEntries = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, BooleanLogEntry>> booleanEntries = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a backend that writes to the log managed by {@link DataLogManager}.
+     */
+    public DataLogTelemetry() {
+        this(DataLogManager.getLog());
+    }
+
+    /**
+     * Creates a backend that writes to the given log.
+     * 
+     * @param log the log to write entries to
+     */
+    public DataLogTelemetry(DataLog log) {
+        this.log = log;
+    }
+
+    @Override
+    public void put(String table, String key, double value) {
+        entry(doubleEntries, table, key, DoubleLogEntry::new).update(value);
+    }
+
+    @Override
+    public void put(String table, String key, String value) {
+        entry(stringEntries, table, key, StringLogEntry::new).update(value);
+    }
+
+    @Override
+    public void put(String table, String key, boolean value) {
+        entry(booleanEntries, table, key, BooleanLogEntry::new).update(value);
+    }
+
+    /**
+     * Finds the entry for a table and key, creating it on the first write.
+     */
+    private <E> E entry(Map<String, Map<String, E>> entries, String table, String key, EntryFactory<E> factory) {
+        Map<String, E> tableEntries = entries.get(table);
+        if (tableEntries == null) {
+            Map<String, E> created = new ConcurrentHashMap<>();
+            tableEntries = entries.putIfAbsent(table, created);
+            if (tableEntries == null) {
+                tableEntries = created;
+            }
+        }
+
+        E entry = tableEntries.get(key);
+        if (entry == null) {
+            // Two threads racing here both start the same name, which the log maps to one entry
+            E created = factory.create(log, toName(table, key));
+            entry = tableEntries.putIfAbsent(key, created);
+            if (entry == null) {
+                entry = created;
+            }
+        }
+        return entry;
+    }
+
+    private static String toName(String table, String key) {
+        return "/" + table + "/" + key;
+    }
+
+    private interface EntryFactory<E> {
+        E create(DataLog log, String name);
+    }
+}
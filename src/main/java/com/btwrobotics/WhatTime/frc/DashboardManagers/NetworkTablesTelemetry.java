@@ -0,0 +1,46 @@
+package com.btwrobotics.WhatTime.frc.DashboardManagers;
+
+import edu.wpi.first.networktables.NetworkTableInstance;
+
+/**
+ * Telemetry backend that publishes every value to NetworkTables.
+ * 
+ * <p>Values put to the {@code "SmartDashboard"} table end up exactly where
+ * {@link edu.wpi.first.wpilibj.smartdashboard.SmartDashboard} would put them. This is the
+ * default backend.
+ */
+public final class NetworkTablesTelemetry implements TelemetryBackend {
+    /** The NetworkTables instance values are published to. */
+    private final NetworkTableInstance inst;
+
+    /**
+     * Creates a backend that publishes to the default NetworkTables instance.
+     */
+    public NetworkTablesTelemetry() {
+        this(NetworkTableInstance.getDefault());
+    }
+
+    /**
+     * Creates a backend that publishes to the given NetworkTables instance.
+     * 
+     * @param inst the NetworkTables instance to publish to
+     */
+    public NetworkTablesTelemetry(NetworkTableInstance inst) {
+        this.inst = inst;
+    }
+
+    @Override
+    public void put(String table, String key, double value) {
+        inst.getTable(table).getEntry(key).setDouble(value);
+    }
+
+    @Override
+    public void put(String table, String key, String value) {
+        inst.getTable(table).getEntry(key).setString(value);
+    }
+
+    @Override
+    public void put(String table, String key, boolean value) {
+        inst.getTable(table).getEntry(key).setBoolean(value);
+    }
+}
@@ -14,6 +14,9 @@ import edu.wpi.first.networktables.NetworkTableInstance;
  * <p>The default table name is "CustomDashboard", but methods are provided
  * to publish to any arbitrary table.
  * 
+ * <p>All {@code put} methods are routed through {@link Telemetry}, so they follow the
+ * backend selected there and cost nothing when telemetry is disabled.
+ * 
  * @see edu.wpi.first.networktables.NetworkTable
  * @see edu.wpi.first.networktables.NetworkTableInstance
  */
@@ -57,7 +60,7 @@ public class NetworkTablesUtil {
      * @param value the double value to publish
      */
     public static void put(String key, double value) {
-        inst.getTable(DEFAULT_TABLE).getEntry(key).setDouble(value);
+        Telemetry.put(DEFAULT_TABLE, key, value);
     }
 
     /**
@@ -67,7 +70,7 @@ public class NetworkTablesUtil {
      * @param value the string value to publish
      */
     public static void put(String key, String value) {
-        inst.getTable(DEFAULT_TABLE).getEntry(key).setString(value);
+        Telemetry.put(DEFAULT_TABLE, key, value);
     }
 
     /**
@@ -77,7 +80,7 @@ public class NetworkTablesUtil {
      * @param value the boolean value to publish
      */
     public static void put(String key, boolean value) {
-        inst.getTable(DEFAULT_TABLE).getEntry(key).setBoolean(value);
+        Telemetry.put(DEFAULT_TABLE, key, value);
     }
 
     /**
@@ -94,13 +97,7 @@ public class NetworkTablesUtil {
      * @param value the object to publish
      */
     public static void put(String key, Object value) {
-        if (value instanceof Number) {
-            inst.getTable(DEFAULT_TABLE).getEntry(key).setDouble(((Number) value).doubleValue());
-        } else if (value instanceof Boolean) {
-            inst.getTable(DEFAULT_TABLE).getEntry(key).setBoolean((Boolean) value);
-        } else {
-            inst.getTable(DEFAULT_TABLE).getEntry(key).setString(value.toString());
-        }
+        Telemetry.put(DEFAULT_TABLE, key, value);
     }
     
     /**
@@ -111,7 +108,7 @@ public class NetworkTablesUtil {
      * @param value the double value to publish
      */
     public static void put(String table, String key, double value) {
-        inst.getTable(table).getEntry(key).setDouble(value);
+        Telemetry.put(table, key, value);
     }
 
     /**
@@ -122,7 +119,7 @@ public class NetworkTablesUtil {
      * @param value the string value to publish
      */
     public static void put(String table, String key, String value) {
-        inst.getTable(table).getEntry(key).setString(value);
+        Telemetry.put(table, key, value);
     }
 
     /**
@@ -133,7 +130,7 @@ public class NetworkTablesUtil {
      * @param value the boolean value to publish
      */
     public static void put(String table, String key, boolean value) {
-        inst.getTable(table).getEntry(key).setBoolean(value);
+        Telemetry.put(table, key, value);
     }
 
     /**
@@ -151,12 +148,6 @@ public class NetworkTablesUtil {
      * @param value the object to publish
      */
     public static void put(String table, String key, Object value) {
-        if (value instanceof Number) {
-            inst.getTable(DEFAULT_TABLE).getEntry(key).setDouble(((Number) value).doubleValue());
-        } else if (value instanceof Boolean) {
-            inst.getTable(DEFAULT_TABLE).getEntry(key).setBoolean((Boolean) value);
-        } else {
-            inst.getTable(DEFAULT_TABLE).getEntry(key).setString(value.toString());
-        }
+        Telemetry.put(table, key, value);
     }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.btwrobotics.WhatTime.frc.DashboardManagers;
+
+/**
+ * Telemetry backend that discards every value.
+ * 
+ * <p>When this is the only backend in use, every {@link Telemetry} call site sees a single
+ * receiver type with empty methods, so the JIT inlines the calls and removes them entirely.
+ * Callers that build values only for telemetry can also skip that work by checking
+ * {@link Telemetry#isEnabled()}.
+ */
+public final class NoOpTelemetry implements TelemetryBackend {
+    @Override
+    public void put(String table, String key, double value) {
+    }
+
+    @Override
+    public void put(String table, String key, String value) {
+    }
+
+    @Override
+    public void put(String table, String key, boolean value) {
+    }
+}
@@ -1,7 +1,5 @@
 package com.btwrobotics.WhatTime.frc.DashboardManagers;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
-
 /**
  * Utility class for simplified interaction with Shuffleboard/SmartDashboard.
  * 
@@ -9,9 +7,11 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
  * which is displayed in the Shuffleboard application on the driver station.
  * It supports multiple data types and provides overloaded methods for ease of use.
  * 
- * <p>All methods delegate to {@link SmartDashboard} for the actual data publishing.
+ * <p>All methods publish to the SmartDashboard table through {@link Telemetry}, so they
+ * follow the backend selected there and cost nothing when telemetry is disabled.
  * 
  * @see edu.wpi.first.wpilibj.smartdashboard.SmartDashboard
+ * @see Telemetry
  */
 public class ShuffleboardUtil {
     /**
@@ -21,7 +21,7 @@ public class ShuffleboardUtil {
      * @param value the double value to publish
      */
     public static void put(String key, double value) {
-        SmartDashboard.putNumber(key, value);
+        Telemetry.put(Telemetry.SMART_DASHBOARD_TABLE, key, value);
     }
 
     /**
@@ -31,7 +31,7 @@ public class ShuffleboardUtil {
      * @param value the string value to publish
      */
     public static void put(String key, String value) {
-        SmartDashboard.putString(key, value);
+        Telemetry.put(Telemetry.SMART_DASHBOARD_TABLE, key, value);
     }
 
     /**
@@ -41,7 +41,7 @@ public class ShuffleboardUtil {
      * @param value the boolean value to publish
      */
     public static void put(String key, boolean value) {
-        SmartDashboard.putBoolean(key, value);
+        Telemetry.put(Telemetry.SMART_DASHBOARD_TABLE, key, value);
     }
 
     /**
@@ -49,21 +49,15 @@ public class ShuffleboardUtil {
      * 
      * <p>This method handles type conversion automatically:
      * <ul>
-     *   <li>Numbers are converted to doubles and published via putNumber
-     *   <li>Booleans are published via putBoolean
-     *   <li>All other objects are converted to strings via toString() and published via putString
+     *   <li>Numbers are converted to doubles
+     *   <li>Booleans are published as booleans
+     *   <li>All other objects are converted to strings via toString()
      * </ul>
      * 
      * @param key the entry name/key to display in Shuffleboard
      * @param value the object to publish
      */
     public static void put(String key, Object value) {
-        if (value instanceof Number) {
-            SmartDashboard.putNumber(key, ((Number) value).doubleValue());
-        } else if (value instanceof Boolean) {
-            SmartDashboard.putBoolean(key, (Boolean) value);
-        } else {
-            SmartDashboard.putString(key, value.toString());
-        }
+        Telemetry.put(Telemetry.SMART_DASHBOARD_TABLE, key, value);
     }
 }
\ No newline at end of file
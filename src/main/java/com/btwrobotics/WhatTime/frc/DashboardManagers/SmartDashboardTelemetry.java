@@ -0,0 +1,33 @@
+package com.btwrobotics.WhatTime.frc.DashboardManagers;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Telemetry backend that publishes every value through {@link SmartDashboard}.
+ * 
+ * <p>Values for the {@code "SmartDashboard"} table use their key as-is. Values for any other
+ * table are published as {@code table/key} beneath SmartDashboard so they stay grouped.
+ */
+public final class SmartDashboardTelemetry implements TelemetryBackend {
+    @Override
+    public void put(String table, String key, double value) {
+        SmartDashboard.putNumber(toKey(table, key), value);
+    }
+
+    @Override
+    public void put(String table, String key, String value) {
+        SmartDashboard.putString(toKey(table, key), value);
+    }
+
+    @Override
+    public void put(String table, String key, boolean value) {
+        SmartDashboard.putBoolean(toKey(table, key), value);
+    }
+
+    private static String toKey(String table, String key) {
+        if (Telemetry.SMART_DASHBOARD_TABLE.equals(table)) {
+            return key;
+        }
+        return table + "/" + key;
+    }
+}
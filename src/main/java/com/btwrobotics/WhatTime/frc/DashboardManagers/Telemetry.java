@@ -0,0 +1,157 @@
+package com.btwrobotics.WhatTime.frc.DashboardManagers;
+
+/**
+ * Library-wide entry point for publishing telemetry.
+ * 
+ * <p>Every value published by WhatTime, including through {@link NetworkTablesUtil} and
+ * {@link ShuffleboardUtil}, is routed through the backend selected here. The default backend
+ * is {@link NetworkTablesTelemetry}, which matches the behaviour of the original utilities.
+ * 
+ * <p>Select the backend once in {@code robotInit}, before anything is published. Keeping a
+ * single backend for the life of the program keeps every call site monomorphic; with
+ * {@link NoOpTelemetry} selected for competition builds the calls compile away entirely.
+ * 
+ * <pre>{@code
+ * Telemetry.select(DriverStation.isFMSAttached() ? Telemetry.none() : Telemetry.networkTables());
+ * }</pre>
+ */
+public final class Telemetry {
+    /** The table SmartDashboard publishes to. */
+    public static final String SMART_DASHBOARD_TABLE = "SmartDashboard";
+
+    /** The backend every value is routed through. */
+    private static TelemetryBackend backend = new NetworkTablesTelemetry();
+
+    /** Whether the selected backend publishes anything. */
+    private static boolean enabled = true;
+
+    private Telemetry() {
+    }
+
+    /**
+     * Selects the backend used for all telemetry.
+     * 
+     * @param backend the backend to route values through
+     */
+    public static void select(TelemetryBackend backend) {
+        if (backend == null) {
+            throw new IllegalArgumentException("backend cannot be null.");
+        }
+
+        Telemetry.backend = backend;
+        Telemetry.enabled = !(backend instanceof NoOpTelemetry);
+    }
+
+    /**
+     * Gets the backend currently in use.
+     * 
+     * @return the selected backend
+     */
+    public static TelemetryBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Indicates whether telemetry is being published at all.
+     * 
+     * <p>Use this to skip building values, such as formatted strings, that only exist to be published.
+     * 
+     * @return {@code false} when the no-op backend is selected
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Creates a backend that publishes to NetworkTables.
+     * 
+     * @return a new NetworkTables backend
+     */
+    public static TelemetryBackend networkTables() {
+        return new NetworkTablesTelemetry();
+    }
+
+    /**
+     * Creates a backend that publishes through SmartDashboard.
+     * 
+     * @return a new SmartDashboard backend
+     */
+    public static TelemetryBackend smartDashboard() {
+        return new SmartDashboardTelemetry();
+    }
+
+    /**
+     * Creates a backend that records to the on-robot data log.
+     * 
+     * @return a new DataLog backend
+     */
+    public static TelemetryBackend dataLog() {
+        return new DataLogTelemetry();
+    }
+
+    /**
+     * Creates a backend that discards everything.
+     * 
+     * @return a new no-op backend
+     */
+    public static TelemetryBackend none() {
+        return new NoOpTelemetry();
+    }
+
+    /**
+     * Publishes a numeric value.
+     * 
+     * @param table the name of the table the entry belongs to
+     * @param key the entry name/key within the table
+     * @param value the double value to publish
+     */
+    public static void put(String table, String key, double value) {
+        backend.put(table, key, value);
+    }
+
+    /**
+     * Publishes a string value.
+     * 
+     * @param table the name of the table the entry belongs to
+     * @param key the entry name/key within the table
+     * @param value the string value to publish
+     */
+    public static void put(String table, String key, String value) {
+        backend.put(table, key, value);
+    }
+
+    /**
+     * Publishes a boolean value.
+     * 
+     * @param table the name of the table the entry belongs to
+     * @param key the entry name/key within the table
+     * @param value the boolean value to publish
+     */
+    public static void put(String table, String key, boolean value) {
+        backend.put(table, key, value);
+    }
+
+    /**
+     * Publishes a generic object.
+     * 
+     * <p>Numbers are published as doubles, booleans as booleans and all other objects as their
+     * {@code toString()}. Nothing is converted when telemetry is disabled.
+     * 
+     * @param table the name of the table the entry belongs to
+     * @param key the entry name/key within the table
+     * @param value the object to publish
+     */
+    public static void put(String table, String key, Object value) {
+        if (!enabled) {
+            return;
+        }
+
+        if (value instanceof Number) {
+            backend.put(table, key, ((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            backend.put(table, key, (boolean) (Boolean) value);
+        } else {
+            backend.put(table, key, String.valueOf(value));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.btwrobotics.WhatTime.frc.DashboardManagers;
+
+/**
+ * Destination for values published through {@link Telemetry}.
+ * 
+ * <p>Implementations receive every value with the name of the table it belongs to and the
+ * entry key within that table. Select one at startup with {@link Telemetry#select(TelemetryBackend)}.
+ * 
+ * @see NetworkTablesTelemetry
+ * @see SmartDashboardTelemetry
+ * @see DataLogTelemetry
+ * @see NoOpTelemetry
+ */
+public interface TelemetryBackend {
+    /**
+     * Publishes a numeric value.
+     * 
+     * @param table the name of the table the entry belongs to
+     * @param key the entry name/key within the table
+     * @param value the double value to publish
+     */
+    void put(String table, String key, double value);
+
+    /**
+     * Publishes a string value.
+     * 
+     * @param table the name of the table the entry belongs to
+     * @param key the entry name/key within the table
+     * @param value the string value to publish
+     */
+    void put(String table, String key, String value);
+
+    /**
+     * Publishes a boolean value.
+     * 
+     * @param table the name of the table the entry belongs to
+     * @param key the entry name/key within the table
+     * @param value the boolean value to publish
+     */
+    void put(String table, String key, boolean value);
+}
@@ -2,24 +2,41 @@ package com.btwrobotics.WhatTime.frc.DriverStation;
 
 import java.util.Optional;
 
-import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.DriverStation.Alliance;
 
 public class AllianceManager {
     /**
-     * Gets the current alliance for the robot from DriverStation.
+     * Gets the current alliance for the robot from the default {@link MatchStateSource}.
      * @return the current alliance as {@code Optional<Alliance>}
      */
     public static Optional<Alliance> getCurrentAlliance() {
-        return DriverStation.getAlliance();
+        return getCurrentAlliance(MatchState.getSource());
     }
 
     /**
-     * Gets the opposing alliance for the robot from DriverStation.
+     * Gets the current alliance for the robot from a {@link MatchStateSource}.
+     * @param source the source to read the alliance from
+     * @return the current alliance as {@code Optional<Alliance>}
+     */
+    public static Optional<Alliance> getCurrentAlliance(MatchStateSource source) {
+        return source.getAlliance();
+    }
+
+    /**
+     * Gets the opposing alliance for the robot from the default {@link MatchStateSource}.
      * @return the opposing alliance as {@code Optional<Alliance>}
      */
     public static Optional<Alliance> getOpposingAlliance() {
-        return toggleAlliance(DriverStation.getAlliance());
+        return getOpposingAlliance(MatchState.getSource());
+    }
+
+    /**
+     * Gets the opposing alliance for the robot from a {@link MatchStateSource}.
+     * @param source the source to read the alliance from
+     * @return the opposing alliance as {@code Optional<Alliance>}
+     */
+    public static Optional<Alliance> getOpposingAlliance(MatchStateSource source) {
+        return toggleAlliance(source.getAlliance());
     }
 
     /**
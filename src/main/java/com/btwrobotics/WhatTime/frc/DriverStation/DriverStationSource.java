@@ -0,0 +1,56 @@
+package com.btwrobotics.WhatTime.frc.DriverStation;
+
+import java.util.Optional;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Match state read from the real {@link DriverStation} and FPGA clock.
+ * 
+ * <p>Every call goes to the driver station. The library's default source wraps this in a
+ * {@link MatchSnapshot} so it is read once per loop.
+ */
+public final class DriverStationSource implements MatchStateSource {
+    /** The shared instance; the class holds no state. */
+    public static final DriverStationSource INSTANCE = new DriverStationSource();
+
+    private DriverStationSource() {
+    }
+
+    @Override
+    public double getMatchTime() {
+        return DriverStation.getMatchTime();
+    }
+
+    @Override
+    public double getTimestamp() {
+        return Timer.getFPGATimestamp();
+    }
+
+    @Override
+    public String getGameSpecificMessage() {
+        return DriverStation.getGameSpecificMessage();
+    }
+
+    @Override
+    public Optional<Alliance> getAlliance() {
+        return DriverStation.getAlliance();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return DriverStation.isEnabled();
+    }
+
+    @Override
+    public boolean isAutonomous() {
+        return DriverStation.isAutonomous();
+    }
+
+    @Override
+    public boolean isTeleop() {
+        return DriverStation.isTeleop();
+    }
+}
@@ -0,0 +1,153 @@
+package com.btwrobotics.WhatTime.frc.DriverStation;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Match time remaining with sub-second resolution.
+ *
+ * <p>{@link DriverStation#getMatchTime()} only changes when new data arrives from the driver
+ * station or FMS, which in a real match is once per second. This clock anchors on every change
+ * of that value and interpolates between changes with the FPGA timestamp, so the remaining time
+ * moves smoothly every loop and a threshold is crossed in the same loop on every robot.
+ *
+ * <p>Within a match period the remaining time never increases, and it never runs more than
+ * {@link #MAX_EXTRAPOLATION} seconds ahead of the last value reported by the driver station.
+ * When the match is not running, the raw driver station value is passed through unchanged.
+ *
+ * <p>Match time and timestamps are read from a {@link MatchStateSource}, so the clock runs the
+ * same way against a simulated match as on the robot.
+ */
+public class MatchClock {
+    /** The furthest the clock runs ahead of the driver station, matching its one second resolution. */
+    public static final double MAX_EXTRAPOLATION = 1.0;
+
+    /** How far the reported time has to jump up before it counts as a new match period. */
+    private static final double NEW_PERIOD_TOLERANCE = 0.5;
+
+    private double lastReportedMatchTime = -1.0;
+    private double anchorMatchTime = -1.0;
+    private double anchorTimestamp = 0.0;
+    private double remaining = -1.0;
+
+    private int periodCount = 0;
+    private boolean newPeriod = false;
+    private boolean autonomousPeriod = false;
+
+    private final MatchStateSource source;
+
+    /**
+     * Creates a clock that reads from the library's default {@link MatchStateSource}.
+     */
+    public MatchClock() {
+        this(MatchState.getSource());
+    }
+
+    /**
+     * Creates a clock that reads from the given source.
+     *
+     * @param source the source of match time and timestamps
+     */
+    public MatchClock(MatchStateSource source) {
+        if (source == null) {
+            throw new IllegalArgumentException("source cannot be null.");
+        }
+        this.source = source;
+    }
+
+    /**
+     * Reads the match time and timestamp and updates the remaining time.
+     *
+     * <p>Call once per loop, before reading {@link #getRemaining()}.
+     *
+     * @return the interpolated time remaining in the current match period, in seconds
+     */
+    public double update() {
+        update(source.getMatchTime(), source.getTimestamp());
+
+        // The robot mode only needs reading once, when a period starts
+        if (newPeriod) {
+            autonomousPeriod = source.isAutonomous();
+        }
+        return remaining;
+    }
+
+    /**
+     * Updates the remaining time from an already-read match time and timestamp.
+     *
+     * @param reportedMatchTime the match time reported by the driver station, in seconds
+     * @param timestamp the current timestamp, in seconds
+     * @return the interpolated time remaining in the current match period, in seconds
+     */
+    public double update(double reportedMatchTime, double timestamp) {
+        newPeriod = false;
+
+        if (reportedMatchTime <= 0.0) {
+            lastReportedMatchTime = reportedMatchTime;
+            anchorMatchTime = reportedMatchTime;
+            anchorTimestamp = timestamp;
+            remaining = reportedMatchTime;
+            return remaining;
+        }
+
+        if (reportedMatchTime != lastReportedMatchTime) {
+            newPeriod = lastReportedMatchTime <= 0.0
+                || reportedMatchTime > lastReportedMatchTime + NEW_PERIOD_TOLERANCE;
+
+            lastReportedMatchTime = reportedMatchTime;
+            anchorMatchTime = reportedMatchTime;
+            anchorTimestamp = timestamp;
+
+            if (newPeriod) {
+                remaining = reportedMatchTime;
+                periodCount++;
+            }
+        }
+
+        double interpolated = anchorMatchTime - (timestamp - anchorTimestamp);
+        interpolated = Math.max(interpolated, anchorMatchTime - MAX_EXTRAPOLATION);
+
+        remaining = Math.min(remaining, interpolated);
+        return remaining;
+    }
+
+    /**
+     * Gets the time remaining as of the last {@link #update()}.
+     *
+     * @return the interpolated time remaining in the current match period, in seconds;
+     *         zero or negative when the match is not running
+     */
+    public double getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * Indicates whether a match period is running as of the last {@link #update()}.
+     *
+     * @return {@code true} while there is time remaining
+     */
+    public boolean isRunning() {
+        return remaining > 0.0;
+    }
+
+    /**
+     * Indicates whether the running period is autonomous.
+     *
+     * <p>Read from the source once when each period starts.
+     *
+     * @return {@code true} while an autonomous period is running
+     */
+    public boolean isAutonomous() {
+        return autonomousPeriod && isRunning();
+    }
+
+    /**
+     * Gets the number of match periods that have started since the clock was created.
+     *
+     * <p>Useful for invalidating anything derived from per-match data when a new period begins.
+     *
+     * @return the number of periods started
+     */
+    public int getPeriodCount() {
+        return periodCount;
+    }
+}
@@ -0,0 +1,217 @@
+package com.btwrobotics.WhatTime.frc.DriverStation;
+
+import java.util.function.Consumer;
+
+/**
+ * Replays a full match against a {@link SimulatedMatchSource} as fast as the code under test runs.
+ *
+ * <p>A run steps through autonomous, a disabled gap, and teleop in fixed loop periods, setting
+ * the match time, timestamp and robot mode on the source before every tick and then handing the
+ * tick to a callback. Match time is reported in whole seconds, rounded up, the way the FMS
+ * reports it, while the timestamp advances every tick, so interpolation in {@link MatchClock}
+ * is exercised exactly as on a real field.
+ *
+ * <p>All time is counted in integer microseconds, so runs are exactly repeatable and phase
+ * boundaries land on whole-second ticks without rounding error. A 160 second match at a 20 ms
+ * loop is 8,000 ticks and typically replays in a few milliseconds.
+ */
+public class MatchSimulation {
+    /** The length of autonomous in seconds. */
+    public static final double DEFAULT_AUTO_LENGTH = 20.0;
+
+    /** The length of teleop in seconds. */
+    public static final double DEFAULT_TELEOP_LENGTH = 140.0;
+
+    /** The disabled time between autonomous and teleop in seconds. */
+    public static final double DEFAULT_PERIOD_GAP = 3.0;
+
+    /** The robot loop period in seconds. */
+    public static final double DEFAULT_LOOP_PERIOD = 0.02;
+
+    /** The resolution the driver station reports match time at, in seconds. */
+    public static final double DEFAULT_REPORTED_RESOLUTION = 1.0;
+
+    private static final long MICROS_PER_SECOND = 1_000_000L;
+
+    /** The phases a simulated match steps through. */
+    public enum Phase {
+        AUTONOMOUS,
+        GAP,
+        TELEOP,
+        POST_MATCH
+    }
+
+    private final SimulatedMatchSource source;
+
+    private long autoLengthMicros = toMicros(DEFAULT_AUTO_LENGTH);
+    private long teleopLengthMicros = toMicros(DEFAULT_TELEOP_LENGTH);
+    private long periodGapMicros = toMicros(DEFAULT_PERIOD_GAP);
+    private long loopPeriodMicros = toMicros(DEFAULT_LOOP_PERIOD);
+    private long reportedResolutionMicros = toMicros(DEFAULT_REPORTED_RESOLUTION);
+    private String gameSpecificMessage = "";
+
+    private Phase phase = Phase.AUTONOMOUS;
+    private long timestampMicros = 0L;
+    private long remainingMicros = 0L;
+    private int tick = 0;
+
+    /**
+     * Creates a simulation that drives the given source.
+     *
+     * @param source the source every class under test reads match state from
+     */
+    public MatchSimulation(SimulatedMatchSource source) {
+        if (source == null) {
+            throw new IllegalArgumentException("source cannot be null.");
+        }
+        this.source = source;
+    }
+
+    public MatchSimulation setAutoLength(double seconds) {
+        autoLengthMicros = toPositiveMicros(seconds, "autoLength");
+        return this;
+    }
+
+    public MatchSimulation setTeleopLength(double seconds) {
+        teleopLengthMicros = toPositiveMicros(seconds, "teleopLength");
+        return this;
+    }
+
+    public MatchSimulation setPeriodGap(double seconds) {
+        periodGapMicros = toPositiveMicros(seconds, "periodGap");
+        return this;
+    }
+
+    public MatchSimulation setLoopPeriod(double seconds) {
+        loopPeriodMicros = toPositiveMicros(seconds, "loopPeriod");
+        return this;
+    }
+
+    /**
+     * Sets the resolution match time is reported at.
+     *
+     * @param seconds the reporting resolution, or 0 to report exact match time
+     */
+    public MatchSimulation setReportedResolution(double seconds) {
+        if (!Double.isFinite(seconds) || seconds < 0.0) {
+            throw new IllegalArgumentException("reportedResolution must be >= 0.");
+        }
+        reportedResolutionMicros = toMicros(seconds);
+        return this;
+    }
+
+    /**
+     * Sets the game specific message, which is published when autonomous ends.
+     *
+     * @param gameSpecificMessage the message the FMS sends, such as {@code "R"} or {@code "B"}
+     */
+    public MatchSimulation setGameSpecificMessage(String gameSpecificMessage) {
+        this.gameSpecificMessage = gameSpecificMessage != null ? gameSpecificMessage : "";
+        return this;
+    }
+
+    /**
+     * Runs a full match, calling the handler once per loop after the source has been updated.
+     *
+     * <p>The handler is where the code under test is updated and its outputs checked.
+     *
+     * @param onTick called every simulated loop with this simulation
+     */
+    public void run(Consumer<MatchSimulation> onTick) {
+        tick = 0;
+        source.setGameSpecificMessage("");
+
+        runPhase(Phase.AUTONOMOUS, autoLengthMicros, onTick);
+
+        source.setGameSpecificMessage(gameSpecificMessage);
+        runPhase(Phase.GAP, periodGapMicros, onTick);
+
+        runPhase(Phase.TELEOP, teleopLengthMicros, onTick);
+
+        runPhase(Phase.POST_MATCH, loopPeriodMicros, onTick);
+    }
+
+    /**
+     * Gets the phase of the current tick.
+     *
+     * @return the match phase
+     */
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Gets the exact time remaining in the current period, independent of the reported resolution.
+     *
+     * @return the time remaining in seconds, or 0 outside autonomous and teleop
+     */
+    public double getTrueRemaining() {
+        return (double) remainingMicros / MICROS_PER_SECOND;
+    }
+
+    /**
+     * Gets the simulated timestamp of the current tick.
+     *
+     * @return the timestamp in seconds
+     */
+    public double getTimestamp() {
+        return (double) timestampMicros / MICROS_PER_SECOND;
+    }
+
+    /**
+     * Gets the number of ticks run so far, counting the current one.
+     *
+     * @return the tick count
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Gets the source being driven.
+     *
+     * @return the simulated source
+     */
+    public SimulatedMatchSource getSource() {
+        return source;
+    }
+
+    private void runPhase(Phase phase, long lengthMicros, Consumer<MatchSimulation> onTick) {
+        this.phase = phase;
+        boolean timed = phase == Phase.AUTONOMOUS || phase == Phase.TELEOP;
+
+        source.setMode(timed, phase == Phase.AUTONOMOUS, phase == Phase.TELEOP);
+
+        for (long elapsed = 0L; elapsed < lengthMicros; elapsed += loopPeriodMicros) {
+            remainingMicros = timed ? lengthMicros - elapsed : 0L;
+
+            source.setMatchTime(timed ? reportedMatchTime(remainingMicros) : 0.0);
+            source.setTimestamp(getTimestamp());
+
+            tick++;
+            onTick.accept(this);
+
+            timestampMicros += loopPeriodMicros;
+        }
+    }
+
+    private double reportedMatchTime(long remainingMicros) {
+        if (reportedResolutionMicros == 0L) {
+            return (double) remainingMicros / MICROS_PER_SECOND;
+        }
+
+        long steps = (remainingMicros + reportedResolutionMicros - 1) / reportedResolutionMicros;
+        return (double) (steps * reportedResolutionMicros) / MICROS_PER_SECOND;
+    }
+
+    private static long toPositiveMicros(double seconds, String name) {
+        if (!Double.isFinite(seconds) || seconds <= 0.0) {
+            throw new IllegalArgumentException(name + " must be > 0.");
+        }
+        return toMicros(seconds);
+    }
+
+    private static long toMicros(double seconds) {
+        return Math.round(seconds * MICROS_PER_SECOND);
+    }
+}
@@ -0,0 +1,178 @@
+package com.btwrobotics.WhatTime.frc.DriverStation;
+
+import java.util.Optional;
+
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+
+/**
+ * A copy of the match state taken once per loop and shared by everything that reads it.
+ * 
+ * <p>{@link #refresh()} reads every value from the wrapped source in one go; every getter
+ * afterwards returns the copy, so any number of classes can check the alliance, match time or
+ * robot mode in the same loop for the cost of one read each. The primitive and enum accessors
+ * such as {@link #getAllianceValue()} and {@link #getGameSpecificChar()} never allocate, and
+ * {@link #getAlliance()} returns shared {@code Optional} instances.
+ * 
+ * <p>The library's default source is a snapshot of the {@link DriverStationSource}, refreshed
+ * by {@link MatchTimeManager} every loop. Robots without a MatchTimeManager can call
+ * {@link MatchState#refresh()} at the start of {@code robotPeriodic}. Until the first refresh
+ * a snapshot reads straight through to its source, so nothing sees empty data.
+ *
+ * <p>A refresh in the same loop as the last one, when the source's timestamp has moved less than
+ * {@value #SAME_LOOP_WINDOW} seconds, is skipped, so a {@code MatchTimeManager} and a
+ * {@code MotorManager} can both refresh the default source without reading it twice or changing
+ * the copy partway through a loop. Simulated sources must advance their timestamp by at least that
+ * much every tick, as {@link MatchSimulation} does at any loop period of 5 ms or more.
+ */
+public class MatchSnapshot implements MatchStateSource {
+    private static final Optional<Alliance> RED = Optional.of(Alliance.Red);
+    private static final Optional<Alliance> BLUE = Optional.of(Alliance.Blue);
+
+    /** Refreshes closer together than this, in seconds, are taken to be in the same loop. */
+    public static final double SAME_LOOP_WINDOW = 0.005;
+
+    private final MatchStateSource source;
+
+    private boolean refreshed = false;
+
+    private double matchTime = -1.0;
+    private double timestamp = 0.0;
+    private String gameSpecificMessage = "";
+    private char gameSpecificChar = '\0';
+    private Alliance alliance = null;
+    private boolean enabled = false;
+    private boolean autonomous = false;
+    private boolean teleop = false;
+
+    /**
+     * Creates a snapshot of the given source.
+     * 
+     * @param source the source to copy from on every refresh
+     */
+    public MatchSnapshot(MatchStateSource source) {
+        if (source == null) {
+            throw new IllegalArgumentException("source cannot be null.");
+        }
+        this.source = source;
+    }
+
+    /**
+     * Copies the current match state from the wrapped source, unless it was already copied this loop.
+     */
+    @Override
+    public void refresh() {
+        source.refresh();
+
+        double now = source.getTimestamp();
+        if (refreshed && Math.abs(now - timestamp) < SAME_LOOP_WINDOW) {
+            return;
+        }
+
+        matchTime = source.getMatchTime();
+        timestamp = now;
+        enabled = source.isEnabled();
+        autonomous = source.isAutonomous();
+        teleop = source.isTeleop();
+
+        Optional<Alliance> currentAlliance = source.getAlliance();
+        alliance = currentAlliance.isPresent() ? currentAlliance.get() : null;
+
+        // Keep the previous string when the content has not changed
+        String message = source.getGameSpecificMessage();
+        if (message == null) {
+            message = "";
+        }
+        if (!message.equals(gameSpecificMessage)) {
+            gameSpecificMessage = message;
+            gameSpecificChar = message.isEmpty() ? '\0' : message.charAt(0);
+        }
+
+        refreshed = true;
+    }
+
+    @Override
+    public double getMatchTime() {
+        return refreshed ? matchTime : source.getMatchTime();
+    }
+
+    @Override
+    public double getTimestamp() {
+        return refreshed ? timestamp : source.getTimestamp();
+    }
+
+    @Override
+    public String getGameSpecificMessage() {
+        return refreshed ? gameSpecificMessage : source.getGameSpecificMessage();
+    }
+
+    @Override
+    public Optional<Alliance> getAlliance() {
+        Alliance current = getAllianceValue();
+        if (current == Alliance.Red) {
+            return RED;
+        }
+        if (current == Alliance.Blue) {
+            return BLUE;
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return refreshed ? enabled : source.isEnabled();
+    }
+
+    @Override
+    public boolean isAutonomous() {
+        return refreshed ? autonomous : source.isAutonomous();
+    }
+
+    @Override
+    public boolean isTeleop() {
+        return refreshed ? teleop : source.isTeleop();
+    }
+
+    /**
+     * Gets the robot's alliance without wrapping it in an {@code Optional}.
+     * 
+     * @return the alliance, or {@code null} if it is not known yet
+     */
+    public Alliance getAllianceValue() {
+        if (!refreshed) {
+            Optional<Alliance> current = source.getAlliance();
+            return current.isPresent() ? current.get() : null;
+        }
+        return alliance;
+    }
+
+    /**
+     * Indicates whether the robot's alliance is known.
+     * 
+     * @return {@code true} once the alliance has been reported
+     */
+    public boolean hasAlliance() {
+        return getAllianceValue() != null;
+    }
+
+    /**
+     * Gets the first character of the game specific message.
+     * 
+     * @return the first character, or {@code '\0'} if no message has been sent
+     */
+    public char getGameSpecificChar() {
+        if (!refreshed) {
+            String message = source.getGameSpecificMessage();
+            return message == null || message.isEmpty() ? '\0' : message.charAt(0);
+        }
+        return gameSpecificChar;
+    }
+
+    /**
+     * Indicates whether the snapshot has been refreshed at least once.
+     * 
+     * @return {@code true} once getters return the copied values
+     */
+    public boolean isRefreshed() {
+        return refreshed;
+    }
+}
@@ -0,0 +1,49 @@
+package com.btwrobotics.WhatTime.frc.DriverStation;
+
+/**
+ * Holds the {@link MatchStateSource} used by default throughout the library.
+ * 
+ * <p>Classes that read match state take a source in their constructor and fall back to the one
+ * held here. By default it is a {@link MatchSnapshot} of the {@link DriverStationSource}, so the
+ * driver station is read once per loop no matter how many classes ask. Replace it before
+ * constructing anything to run the whole library against a simulated match.
+ */
+public final class MatchState {
+    /** The source used when none is given explicitly. */
+    private static MatchStateSource source = new MatchSnapshot(DriverStationSource.INSTANCE);
+
+    private MatchState() {
+    }
+
+    /**
+     * Gets the default match state source.
+     * 
+     * @return the source used when none is given explicitly
+     */
+    public static MatchStateSource getSource() {
+        return source;
+    }
+
+    /**
+     * Refreshes the default match state source.
+     * 
+     * <p>{@link MatchTimeManager} does this every loop. Without one, call this once at the start
+     * of {@code robotPeriodic}. The default {@link MatchSnapshot} skips a refresh in a loop it
+     * was already refreshed in, so calling it from more than one place costs nothing extra.
+     */
+    public static void refresh() {
+        source.refresh();
+    }
+
+    /**
+     * Replaces the default match state source.
+     * 
+     * @param source the source to use when none is given explicitly
+     */
+    public static void setSource(MatchStateSource source) {
+        if (source == null) {
+            throw new IllegalArgumentException("source cannot be null.");
+        }
+        MatchState.source = source;
+    }
+}
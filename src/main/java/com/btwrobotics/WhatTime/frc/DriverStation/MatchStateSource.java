@@ -0,0 +1,76 @@
+package com.btwrobotics.WhatTime.frc.DriverStation;
+
+import java.util.Optional;
+
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+
+/**
+ * Source of time and match state for the library.
+ * 
+ * <p>Everything in WhatTime that needs the match time, the clock, the alliance or the game
+ * specific message reads it through this interface instead of calling {@code DriverStation}
+ * directly. On the robot this is {@link DriverStationSource}; tests and simulations can supply
+ * a {@link SimulatedMatchSource} to replay a match deterministically and far faster than real time.
+ * 
+ * @see MatchState#setSource(MatchStateSource)
+ * @see MatchSnapshot
+ */
+public interface MatchStateSource {
+    /**
+     * Called once per loop before anything reads this source.
+     * 
+     * <p>Sources that cache their values, such as {@link MatchSnapshot}, read them here.
+     * The default does nothing.
+     */
+    default void refresh() {
+    }
+
+    /**
+     * Gets the time remaining in the current match period as reported by the driver station.
+     * 
+     * @return the match time in seconds, or a value of zero or less when no period is running
+     */
+    double getMatchTime();
+
+    /**
+     * Gets a monotonic timestamp used to measure time between loops.
+     * 
+     * @return the current timestamp in seconds
+     */
+    double getTimestamp();
+
+    /**
+     * Gets the game specific message sent by the FMS.
+     * 
+     * @return the game specific message, or an empty string if none has been sent
+     */
+    String getGameSpecificMessage();
+
+    /**
+     * Gets the robot's alliance.
+     * 
+     * @return the alliance, or {@code Optional.empty()} if it is not known yet
+     */
+    Optional<Alliance> getAlliance();
+
+    /**
+     * Indicates whether the robot is enabled.
+     * 
+     * @return {@code true} when enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * Indicates whether the robot is in the autonomous period.
+     * 
+     * @return {@code true} during autonomous
+     */
+    boolean isAutonomous();
+
+    /**
+     * Indicates whether the robot is in the teleoperated period.
+     * 
+     * @return {@code true} during teleop
+     */
+    boolean isTeleop();
+}
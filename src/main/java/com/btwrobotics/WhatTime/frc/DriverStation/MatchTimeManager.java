@@ -1,17 +1,95 @@
 package com.btwrobotics.WhatTime.frc.DriverStation;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
 
-import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj2.command.Command;
-import edu.wpi.first.wpilibj2.command.Commands;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import edu.wpi.first.wpilibj2.command.button.Trigger;
 
+/**
+ * Runs actions at set times remaining in the match.
+ *
+ * <p>All scheduled events live on one timeline sorted from the latest time remaining to the
+ * earliest. Each loop the match time is read once and a cursor advances past every event that
+ * has come due, so the per-loop cost does not depend on how many events are scheduled or have
+ * already fired.
+ *
+ * <p>Match time comes from a {@link MatchClock}, which interpolates between driver station
+ * updates, so events fire in the loop that crosses their time rather than up to a second later.
+ *
+ * <p>An event fires in the first loop where the match time is greater than zero and at or below
+ * its time remaining. The timeline re-arms itself whenever the match time jumps back up, which
+ * happens at the start of each match period, and can be re-armed manually with {@link #rearm()}.
+ */
 public class MatchTimeManager extends SubsystemBase {
-    public List<String> pendingTriggerDescriptions = new ArrayList<>();
-    public List<String> completedTriggerDescriptions = new ArrayList<>();
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** How far the match time has to jump up before it counts as a new match period. */
+    private static final double REARM_TOLERANCE = 0.5;
+
+    private double[] eventTimes = new double[INITIAL_CAPACITY];
+    private Runnable[] eventActions = new Runnable[INITIAL_CAPACITY];
+    private String[] eventDescriptions = new String[INITIAL_CAPACITY];
+    private int eventCount = 0;
+
+    /** Index of the next event to fire; everything before it has fired this period. */
+    private int cursor = 0;
+
+    private double lastMatchTime = -1.0;
+
+    private final MatchStateSource source;
+    private final MatchClock matchClock;
+
+    /**
+     * Creates a manager that reads from the library's default {@link MatchStateSource}.
+     */
+    public MatchTimeManager() {
+        this(MatchState.getSource());
+    }
+
+    /**
+     * Creates a manager that reads from the given source.
+     *
+     * @param source the source of match time and timestamps
+     */
+    public MatchTimeManager(MatchStateSource source) {
+        this.source = source;
+        this.matchClock = new MatchClock(source);
+    }
+
+    /** Descriptions of the events that have not fired yet, in firing order. */
+    public final List<String> pendingTriggerDescriptions = new AbstractList<>() {
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return eventDescriptions[cursor + index];
+        }
+
+        @Override
+        public int size() {
+            return eventCount - cursor;
+        }
+    };
+
+    /** Descriptions of the events that have fired this period, in firing order. */
+    public final List<String> completedTriggerDescriptions = new AbstractList<>() {
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return eventDescriptions[index];
+        }
+
+        @Override
+        public int size() {
+            return cursor;
+        }
+    };
 
     /**
      *  Schedules a trigger to run with a certain time (in seconds) remaining in the match
@@ -20,18 +98,7 @@ public class MatchTimeManager extends SubsystemBase {
      * @param triggerName an optional description of the trigger for reference in a List
      */
     public void scheduleEventAtTime(double timeRemaining, Command eventCommand, String triggerName) {
-        String triggerDescription = "Trigger: " + timeRemaining + "s - " + triggerName;
-
-        new Trigger(() -> DriverStation.getMatchTime() <= timeRemaining && DriverStation.getMatchTime() > 0)
-            .onTrue(
-                eventCommand
-                .andThen(Commands.runOnce(
-                    () -> {
-                        pendingTriggerDescriptions.remove(triggerDescription);
-                        completedTriggerDescriptions.add(triggerDescription);
-                    }
-                ))
-            );
+        scheduleEventAtTime(timeRemaining, () -> CommandScheduler.getInstance().schedule(eventCommand), triggerName);
     }
 
     /**
@@ -40,17 +107,128 @@ public class MatchTimeManager extends SubsystemBase {
      * @param eventCommand a WPILib Command that will run at the time of the event
      */
     public void scheduleEventAtTime(double timeRemaining, Command eventCommand) {
-        String triggerDescription = "Trigger: " + timeRemaining + "s - ";
-
-        new Trigger(() -> DriverStation.getMatchTime() <= timeRemaining && DriverStation.getMatchTime() > 0)
-            .onTrue(
-                eventCommand
-                .andThen(Commands.runOnce(
-                    () -> {
-                        pendingTriggerDescriptions.remove(triggerDescription);
-                        completedTriggerDescriptions.add(triggerDescription);
-                    }
-                ))
-            );
+        scheduleEventAtTime(timeRemaining, eventCommand, "");
+    }
+
+    /**
+     *  Schedules an action to run with a certain time (in seconds) remaining in the match.
+     *  The action runs directly in the loop that reaches its time, without going through the
+     *  command scheduler.
+     * @param timeRemaining the time remaining in the match in seconds
+     * @param action the action to run at the time of the event
+     * @param triggerName an optional description of the trigger for reference in a List
+     */
+    public void scheduleEventAtTime(double timeRemaining, Runnable action, String triggerName) {
+        if (!Double.isFinite(timeRemaining)) {
+            throw new IllegalArgumentException("timeRemaining must be finite.");
+        }
+        if (action == null) {
+            throw new IllegalArgumentException("action cannot be null.");
+        }
+
+        ensureCapacity(eventCount + 1);
+
+        // Keep events with equal times in the order they were scheduled
+        int index = 0;
+        while (index < eventCount && eventTimes[index] >= timeRemaining) {
+            index++;
+        }
+        // An event scheduled for a time that has already passed fires on the next loop
+        index = Math.max(index, cursor);
+
+        int moved = eventCount - index;
+        System.arraycopy(eventTimes, index, eventTimes, index + 1, moved);
+        System.arraycopy(eventActions, index, eventActions, index + 1, moved);
+        System.arraycopy(eventDescriptions, index, eventDescriptions, index + 1, moved);
+
+        eventTimes[index] = timeRemaining;
+        eventActions[index] = action;
+        eventDescriptions[index] = "Trigger: " + timeRemaining + "s - " + (triggerName != null ? triggerName : "");
+        eventCount++;
+    }
+
+    /**
+     * Marks every scheduled event as pending again so the timeline can run for another match period.
+     */
+    public void rearm() {
+        cursor = 0;
+
+        // Events scheduled mid-period may have been placed out of order; restore the ordering
+        for (int i = 1; i < eventCount; i++) {
+            double time = eventTimes[i];
+            Runnable action = eventActions[i];
+            String description = eventDescriptions[i];
+
+            int j = i - 1;
+            while (j >= 0 && eventTimes[j] < time) {
+                eventTimes[j + 1] = eventTimes[j];
+                eventActions[j + 1] = eventActions[j];
+                eventDescriptions[j + 1] = eventDescriptions[j];
+                j--;
+            }
+            eventTimes[j + 1] = time;
+            eventActions[j + 1] = action;
+            eventDescriptions[j + 1] = description;
+        }
+    }
+
+    /**
+     * Refreshes the match state, reads the match time and fires every event that has come due.
+     *
+     * <p>Called automatically once per loop by the command scheduler.
+     */
+    public void update() {
+        source.refresh();
+        double matchTime = matchClock.update();
+
+        if (matchTime > lastMatchTime + REARM_TOLERANCE) {
+            rearm();
+        }
+        lastMatchTime = matchTime;
+
+        if (matchTime <= 0) {
+            return;
+        }
+
+        while (cursor < eventCount && eventTimes[cursor] >= matchTime) {
+            // Advance first so an action that schedules another event sees a consistent timeline
+            Runnable action = eventActions[cursor];
+            cursor++;
+            action.run();
+        }
+    }
+
+    /**
+     * Gets the interpolated match clock driving this timeline.
+     *
+     * @return the match clock, updated once per loop by {@link #update()}
+     */
+    public MatchClock getMatchClock() {
+        return matchClock;
+    }
+
+    /**
+     * Gets the number of events on the timeline.
+     *
+     * @return the number of scheduled events
+     */
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    @Override
+    public void periodic() {
+        update();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= eventTimes.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(capacity, eventTimes.length * 2);
+        eventTimes = Arrays.copyOf(eventTimes, newCapacity);
+        eventActions = Arrays.copyOf(eventActions, newCapacity);
+        eventDescriptions = Arrays.copyOf(eventDescriptions, newCapacity);
     }
 }
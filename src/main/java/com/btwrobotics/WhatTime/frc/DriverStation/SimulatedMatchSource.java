@@ -0,0 +1,91 @@
+package com.btwrobotics.WhatTime.frc.DriverStation;
+
+import java.util.Optional;
+
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+
+/**
+ * Match state that is set directly by the caller.
+ * 
+ * <p>Nothing changes unless it is set, so a test or simulation controls exactly what every
+ * class in the library sees on each tick. {@link MatchSimulation} drives one of these through
+ * a full match.
+ */
+public class SimulatedMatchSource implements MatchStateSource {
+    private double matchTime = -1.0;
+    private double timestamp = 0.0;
+    private String gameSpecificMessage = "";
+    private Optional<Alliance> alliance = Optional.empty();
+    private boolean enabled = false;
+    private boolean autonomous = false;
+    private boolean teleop = false;
+
+    @Override
+    public double getMatchTime() {
+        return matchTime;
+    }
+
+    @Override
+    public double getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String getGameSpecificMessage() {
+        return gameSpecificMessage;
+    }
+
+    @Override
+    public Optional<Alliance> getAlliance() {
+        return alliance;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean isAutonomous() {
+        return autonomous;
+    }
+
+    @Override
+    public boolean isTeleop() {
+        return teleop;
+    }
+
+    public SimulatedMatchSource setMatchTime(double matchTime) {
+        this.matchTime = matchTime;
+        return this;
+    }
+
+    public SimulatedMatchSource setTimestamp(double timestamp) {
+        this.timestamp = timestamp;
+        return this;
+    }
+
+    public SimulatedMatchSource setGameSpecificMessage(String gameSpecificMessage) {
+        this.gameSpecificMessage = gameSpecificMessage != null ? gameSpecificMessage : "";
+        return this;
+    }
+
+    public SimulatedMatchSource setAlliance(Alliance alliance) {
+        this.alliance = Optional.ofNullable(alliance);
+        return this;
+    }
+
+    /**
+     * Sets the robot mode.
+     * 
+     * @param enabled whether the robot is enabled
+     * @param autonomous whether the robot is in autonomous
+     * @param teleop whether the robot is in teleop
+     */
+    public SimulatedMatchSource setMode(boolean enabled, boolean autonomous, boolean teleop) {
+        this.enabled = enabled;
+        this.autonomous = autonomous;
+        this.teleop = teleop;
+        return this;
+    }
+}
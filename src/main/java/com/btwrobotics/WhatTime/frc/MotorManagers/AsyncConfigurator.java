@@ -0,0 +1,170 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.hardware.TalonFX;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+
+/**
+ * Applies configuration to many TalonFXs at once.
+ *
+ * <p>Phoenix configuration calls block until the device acknowledges them, so configuring
+ * devices one after another takes the sum of every round trip. Here each device is configured
+ * on its own worker thread, so devices on different buses, and different devices on the same
+ * bus, are configured concurrently and the whole batch takes about as long as the slowest device.
+ *
+ * <p>A failed apply is retried up to {@link #MAX_ATTEMPTS} times and then reported to the driver
+ * station. The returned future completes once every device has finished, with {@code true} if
+ * every device was configured. Motors that are not on a TalonFX have nothing to configure; they
+ * are skipped and count as configured.
+ *
+ * <pre>
+ * CompletableFuture&lt;Boolean&gt; configured = AsyncConfigurator.apply(motors,
+ *     talon -&gt; talon.setNeutralMode(NeutralModeValue.Brake));
+ * // In robotInit, or as the first step of autonomous:
+ * Command waitForConfig = AsyncConfigurator.waitFor(configured);
+ * </pre>
+ */
+public final class AsyncConfigurator {
+    /** How many times an apply is tried before it is reported as failed. */
+    public static final int MAX_ATTEMPTS = 3;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private static final ThreadFactory THREAD_FACTORY = runnable -> {
+        Thread thread = new Thread(runnable, "WhatTime-Config-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    };
+
+    /** Idle workers exit after a minute, so nothing is left running once startup is done. */
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(THREAD_FACTORY);
+
+    private AsyncConfigurator() {
+    }
+
+    /**
+     * Applies a configuration to every motor concurrently.
+     *
+     * @param motors the motors to configure
+     * @param apply the blocking configuration call to run on each motor's TalonFX
+     * @return a future that completes with {@code true} once every motor is configured,
+     *         or {@code false} if any failed after retrying
+     */
+    public static CompletableFuture<Boolean> apply(List<Motor> motors, Function<TalonFX, StatusCode> apply) {
+        if (motors == null || apply == null) {
+            throw new IllegalArgumentException("motors and apply cannot be null.");
+        }
+
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Boolean>[] futures = new CompletableFuture[motors.size()];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = apply(motors.get(i), apply);
+        }
+
+        return allSucceeded(futures);
+    }
+
+    /**
+     * Commits every motor's pending device configuration concurrently.
+     *
+     * @param motors the motors to commit
+     * @return a future that completes with {@code true} once every motor is configured,
+     *         or {@code false} if any failed after retrying
+     * @see Motor#commitAsync()
+     */
+    public static CompletableFuture<Boolean> commitAll(List<Motor> motors) {
+        if (motors == null) {
+            throw new IllegalArgumentException("motors cannot be null.");
+        }
+
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Boolean>[] futures = new CompletableFuture[motors.size()];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = motors.get(i).commitAsync();
+        }
+        return allSucceeded(futures);
+    }
+
+    /**
+     * Applies a configuration to one motor on a worker thread.
+     *
+     * @param motor the motor to configure
+     * @param apply the blocking configuration call to run on the motor's TalonFX
+     * @return a future that completes with {@code true} once the motor is configured,
+     *         or {@code false} if it failed after retrying
+     */
+    public static CompletableFuture<Boolean> apply(Motor motor, Function<TalonFX, StatusCode> apply) {
+        if (motor == null || apply == null) {
+            throw new IllegalArgumentException("motor and apply cannot be null.");
+        }
+
+        TalonFX talon = motor.getTalonFX();
+        if (talon == null) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        String name = motor.getCanbus() + "." + motor.getIO().getDeviceId();
+        return CompletableFuture.supplyAsync(() -> applyWithRetry(talon, name, apply), EXECUTOR);
+    }
+
+    /**
+     * Creates a command that finishes once a configuration future completes.
+     *
+     * <p>The command runs while disabled, so it can be scheduled from {@code robotInit}.
+     *
+     * @param future the configuration to wait for
+     * @return a command that waits for the future
+     */
+    public static Command waitFor(CompletableFuture<?> future) {
+        if (future == null) {
+            throw new IllegalArgumentException("future cannot be null.");
+        }
+        return Commands.waitUntil(future::isDone).ignoringDisable(true);
+    }
+
+    /**
+     * Combines per-motor futures into one that completes with whether every motor succeeded.
+     */
+    static CompletableFuture<Boolean> allSucceeded(CompletableFuture<Boolean>[] futures) {
+        return CompletableFuture.allOf(futures).thenApply(ignored -> {
+            boolean allConfigured = true;
+            for (CompletableFuture<Boolean> future : futures) {
+                allConfigured &= future.join();
+            }
+            return allConfigured;
+        });
+    }
+
+    private static boolean applyWithRetry(TalonFX talon, String name, Function<TalonFX, StatusCode> apply) {
+        StatusCode status = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            try {
+                status = apply.apply(talon);
+            } catch (RuntimeException e) {
+                DriverStation.reportError(
+                    "Configuring TalonFX " + name + " threw " + e + ".", false);
+                return false;
+            }
+
+            if (status == null || status.isOK()) {
+                return true;
+            }
+        }
+
+        DriverStation.reportWarning(
+            "Configuring TalonFX " + name + " failed after " + MAX_ATTEMPTS
+                + " attempts: " + status.getName() + ".", false);
+        return false;
+    }
+}
@@ -0,0 +1,479 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.btwrobotics.WhatTime.frc.DashboardManagers.Telemetry;
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.CANBus;
+import com.ctre.phoenix6.Timestamp;
+
+/**
+ * Measures the health of the CAN buses a set of {@link Motor}s are on.
+ *
+ * <p>Every loop, each motor's position signal timestamp is read from the values already cached
+ * by whoever refreshed it, which is cheap and sends nothing on the bus. Two things are measured:
+ * <ul>
+ *   <li>the signal's age: how old the data the control loop is using is;
+ *   <li>its jitter: how far the frames' own timestamps stray from the signal's update period.
+ * </ul>
+ * Ages are kept in a window per bus so latency percentiles can be reported.
+ *
+ * <p>A loop only sees the latest frame, so when frames arrive faster than the loop, or one is
+ * lost, the gap between the frames it sees spans several periods. Jitter is therefore measured
+ * from the frame timestamps against the period the device applies to the signal: each gap is
+ * rounded to a whole number of periods and only the remainder counts. Jitter beyond half a period
+ * cannot be told apart from a skipped frame. A signal whose period is unknown only measures gaps
+ * no longer than one and a half of its smoothed period, and discards the rest.
+ *
+ * <p>Every few loops, each bus's status is read with {@code CANBus.getStatus()} and everything is
+ * published through {@link Telemetry} under {@value #TELEMETRY_TABLE}:
+ * <ul>
+ *   <li>per bus: utilization, TX and RX error counts, bus-off and TX-full counts, and signal age
+ *       percentiles;
+ *   <li>per device: signal age, frame period and jitter.
+ * </ul>
+ *
+ * <p>Timing the signals each loop keeps only primitive state and allocates nothing. Reading each
+ * bus's status every few loops does allocate a small status object per bus.
+ *
+ * <pre>
+ * CanBusMonitor can = new CanBusMonitor(List.of(elevator, intake, shooter));
+ * // In robotPeriodic, after signals are refreshed
+ * can.update();
+ * </pre>
+ *
+ * @see MotorManager#enableCanTelemetry()
+ */
+public class CanBusMonitor {
+    /** The table CAN telemetry is published to. */
+    public static final String TELEMETRY_TABLE = "CAN";
+
+    private static final int DEFAULT_SAMPLE_PERIOD_LOOPS = 50;
+    private static final int DEFAULT_LATENCY_WINDOW = 256;
+
+    /** Smoothing applied to frame periods and jitter, from 0 (frozen) to 1 (none). */
+    private static final double PERIOD_SMOOTHING = 0.1;
+
+    private int samplePeriodLoops = DEFAULT_SAMPLE_PERIOD_LOOPS;
+    private int latencyWindow = DEFAULT_LATENCY_WINDOW;
+    private int loopsUntilSample = 0;
+
+    // Per bus
+    private CANBus[] buses = new CANBus[0];
+    private String[] busNames = new String[0];
+    private String[][] busKeys = new String[0][];
+    private double[][] ages = new double[0][];
+    private int[] ageCounts = new int[0];
+    private int[] ageIndexes = new int[0];
+    private double[] sortedAges = new double[0];
+    private double[] utilization = new double[0];
+    private int[] txErrors = new int[0];
+    private int[] rxErrors = new int[0];
+    private int[] busOffCounts = new int[0];
+    private int[] txFullCounts = new int[0];
+    private String[] statuses = new String[0];
+    private double[] medianAges = new double[0];
+    private double[] p95Ages = new double[0];
+    private double[] p99Ages = new double[0];
+    private double[] maxAges = new double[0];
+
+    // Per device
+    private BaseStatusSignal[] signals = new BaseStatusSignal[0];
+    private int[] deviceBuses = new int[0];
+    private String[] deviceNames = new String[0];
+    private String[][] deviceKeys = new String[0][];
+    private double[] lastFrameTimes = new double[0];
+    /** The period each device applies to its signal, or {@code NaN} if it is unknown. */
+    private double[] expectedPeriods = new double[0];
+    private double[] signalAges = new double[0];
+    private double[] framePeriods = new double[0];
+    private double[] jitters = new double[0];
+
+    /**
+     * Monitors the buses the given motors are on.
+     *
+     * <p>Motors that are not on a TalonFX have no signals to time and are skipped.
+     *
+     * @param motors the motors to monitor
+     */
+    public CanBusMonitor(List<Motor> motors) {
+        if (motors == null) {
+            throw new IllegalArgumentException("motors cannot be null.");
+        }
+        track(motors);
+    }
+
+    CanBusMonitor() {
+    }
+
+    /**
+     * Sets how many loops pass between reading bus status and publishing.
+     *
+     * @param samplePeriodLoops the number of loops per sample, at least 1
+     * @return this monitor
+     */
+    public CanBusMonitor setSamplePeriodLoops(int samplePeriodLoops) {
+        if (samplePeriodLoops < 1) {
+            throw new IllegalArgumentException("samplePeriodLoops must be >= 1.");
+        }
+        this.samplePeriodLoops = samplePeriodLoops;
+        return this;
+    }
+
+    /**
+     * Sets how many of the latest signal ages per bus the percentiles are taken over.
+     *
+     * @param samples the window size, at least 1
+     * @return this monitor
+     */
+    public CanBusMonitor setLatencyWindow(int samples) {
+        if (samples < 1) {
+            throw new IllegalArgumentException("samples must be >= 1.");
+        }
+        this.latencyWindow = samples;
+        resizeAgeWindows();
+        return this;
+    }
+
+    /**
+     * Times every device's signal, and reads bus status and publishes if a sample is due.
+     *
+     * <p>Call once per loop, after the motors' signals are refreshed.
+     */
+    public void update() {
+        for (int device = 0; device < signals.length; device++) {
+            sampleDevice(device);
+        }
+
+        if (--loopsUntilSample > 0) {
+            return;
+        }
+        loopsUntilSample = samplePeriodLoops;
+
+        for (int bus = 0; bus < buses.length; bus++) {
+            sampleBus(bus);
+        }
+        if (Telemetry.isEnabled()) {
+            publishTelemetry();
+        }
+    }
+
+    public int getBusCount() {
+        return buses.length;
+    }
+
+    public String getBusName(int bus) {
+        return busNames[bus];
+    }
+
+    /**
+     * Gets a bus's utilization at the last sample.
+     *
+     * @param bus the bus index
+     * @return the utilization, from 0.0 to 1.0
+     */
+    public double getUtilization(int bus) {
+        return utilization[bus];
+    }
+
+    /**
+     * Gets a bus's transmit error counter at the last sample.
+     *
+     * @param bus the bus index
+     * @return the TX error count
+     */
+    public int getTxErrors(int bus) {
+        return txErrors[bus];
+    }
+
+    /**
+     * Gets a bus's receive error counter at the last sample.
+     *
+     * @param bus the bus index
+     * @return the RX error count
+     */
+    public int getRxErrors(int bus) {
+        return rxErrors[bus];
+    }
+
+    public int getBusOffCount(int bus) {
+        return busOffCounts[bus];
+    }
+
+    public int getTxFullCount(int bus) {
+        return txFullCounts[bus];
+    }
+
+    /**
+     * Gets the median signal age on a bus over the latency window, as of the last sample.
+     *
+     * @param bus the bus index
+     * @return the age in seconds, or {@code NaN} before the first sample
+     */
+    public double getMedianSignalAge(int bus) {
+        return medianAges[bus];
+    }
+
+    public double getP95SignalAge(int bus) {
+        return p95Ages[bus];
+    }
+
+    public double getP99SignalAge(int bus) {
+        return p99Ages[bus];
+    }
+
+    public double getMaxSignalAge(int bus) {
+        return maxAges[bus];
+    }
+
+    public int getDeviceCount() {
+        return signals.length;
+    }
+
+    /**
+     * Gets a device's name, as {@code <bus>.<id>}.
+     *
+     * @param device the device index
+     * @return the device name
+     */
+    public String getDeviceName(int device) {
+        return deviceNames[device];
+    }
+
+    /**
+     * Gets how old a device's cached signal was at the last loop.
+     *
+     * @param device the device index
+     * @return the age in seconds, or {@code NaN} if no valid frame has arrived
+     */
+    public double getSignalAge(int device) {
+        return signalAges[device];
+    }
+
+    /**
+     * Gets the smoothed time between frames of a device's signal, per frame.
+     *
+     * @param device the device index
+     * @return the frame period in seconds, or {@code NaN} until two frames have arrived
+     */
+    public double getFramePeriod(int device) {
+        return framePeriods[device];
+    }
+
+    /**
+     * Gets the smoothed deviation of a device's frame timestamps from its update period.
+     *
+     * @param device the device index
+     * @return the jitter in seconds
+     */
+    public double getJitter(int device) {
+        return jitters[device];
+    }
+
+    /**
+     * Rebuilds the bus and device tables for a new set of motors, keeping the settings.
+     */
+    void track(List<Motor> motors) {
+        Map<String, Integer> busIndexes = new LinkedHashMap<>();
+        List<BaseStatusSignal> deviceSignals = new ArrayList<>();
+        List<Integer> deviceBusList = new ArrayList<>();
+        List<String> deviceNameList = new ArrayList<>();
+
+        for (Motor motor : motors) {
+            BaseStatusSignal signal = motor.getPositionSignal();
+            if (signal == null) {
+                continue;
+            }
+            Integer bus = busIndexes.computeIfAbsent(motor.getCanbus(), name -> busIndexes.size());
+            deviceSignals.add(signal);
+            deviceBusList.add(bus);
+            deviceNameList.add(motor.getCanbus() + "." + motor.getIO().getDeviceId());
+        }
+
+        int busCount = busIndexes.size();
+        busNames = busIndexes.keySet().toArray(new String[0]);
+        buses = new CANBus[busCount];
+        busKeys = new String[busCount][];
+        for (int bus = 0; bus < busCount; bus++) {
+            buses[bus] = new CANBus(busNames[bus]);
+            busKeys[bus] = keys(busNames[bus], "Utilization", "TxErrors", "RxErrors", "BusOffCount",
+                "TxFullCount", "Status", "SignalAgeP50", "SignalAgeP95", "SignalAgeP99", "SignalAgeMax");
+        }
+        utilization = new double[busCount];
+        txErrors = new int[busCount];
+        rxErrors = new int[busCount];
+        busOffCounts = new int[busCount];
+        txFullCounts = new int[busCount];
+        statuses = new String[busCount];
+        medianAges = filled(busCount, Double.NaN);
+        p95Ages = filled(busCount, Double.NaN);
+        p99Ages = filled(busCount, Double.NaN);
+        maxAges = filled(busCount, Double.NaN);
+        ages = new double[busCount][];
+        ageCounts = new int[busCount];
+        ageIndexes = new int[busCount];
+        resizeAgeWindows();
+
+        int deviceCount = deviceSignals.size();
+        signals = deviceSignals.toArray(new BaseStatusSignal[0]);
+        deviceBuses = new int[deviceCount];
+        deviceNames = deviceNameList.toArray(new String[0]);
+        deviceKeys = new String[deviceCount][];
+        for (int device = 0; device < deviceCount; device++) {
+            deviceBuses[device] = deviceBusList.get(device);
+            deviceKeys[device] = keys(deviceNames[device], "SignalAge", "FramePeriod", "Jitter");
+        }
+        lastFrameTimes = filled(deviceCount, Double.NaN);
+        expectedPeriods = new double[deviceCount];
+        for (int device = 0; device < deviceCount; device++) {
+            expectedPeriods[device] = expectedPeriod(signals[device]);
+        }
+        signalAges = filled(deviceCount, Double.NaN);
+        framePeriods = filled(deviceCount, Double.NaN);
+        jitters = new double[deviceCount];
+
+        loopsUntilSample = 0;
+    }
+
+    private void sampleDevice(int device) {
+        Timestamp timestamp = signals[device].getTimestamp();
+        if (timestamp == null || !timestamp.isValid()) {
+            return;
+        }
+
+        double age = timestamp.getLatency();
+        signalAges[device] = age;
+
+        int bus = deviceBuses[device];
+        double[] window = ages[bus];
+        window[ageIndexes[bus]] = age;
+        ageIndexes[bus] = (ageIndexes[bus] + 1) % window.length;
+        if (ageCounts[bus] < window.length) {
+            ageCounts[bus]++;
+        }
+
+        double frameTime = timestamp.getTime();
+        double lastFrameTime = lastFrameTimes[device];
+        if (frameTime == lastFrameTime) {
+            return;
+        }
+        lastFrameTimes[device] = frameTime;
+        if (Double.isNaN(lastFrameTime)) {
+            return;
+        }
+
+        double gap = frameTime - lastFrameTime;
+        double period = framePeriods[device];
+        double expected = expectedPeriods[device];
+        double deviation;
+        if (!Double.isNaN(expected)) {
+            // The gap spans however many frames arrived since the last loop; only the remainder is jitter
+            long frames = Math.max(1L, Math.round(gap / expected));
+            gap /= frames;
+            deviation = frames * Math.abs(gap - expected);
+        } else if (Double.isNaN(period) || gap <= period * 1.5) {
+            deviation = Double.isNaN(period) ? 0.0 : Math.abs(gap - period);
+        } else {
+            // Frames were skipped or lost, so the gap says nothing about jitter
+            return;
+        }
+
+        if (Double.isNaN(period)) {
+            framePeriods[device] = gap;
+            return;
+        }
+        jitters[device] += PERIOD_SMOOTHING * (deviation - jitters[device]);
+        framePeriods[device] = period + PERIOD_SMOOTHING * (gap - period);
+    }
+
+    private void sampleBus(int bus) {
+        // The update frequency can be changed at runtime, so it is re-read with the bus status
+        for (int device = 0; device < signals.length; device++) {
+            if (deviceBuses[device] == bus) {
+                expectedPeriods[device] = expectedPeriod(signals[device]);
+            }
+        }
+
+        CANBus.CANBusStatus status = buses[bus].getStatus();
+        utilization[bus] = status.BusUtilization;
+        txErrors[bus] = status.TEC;
+        rxErrors[bus] = status.REC;
+        busOffCounts[bus] = status.BusOffCount;
+        txFullCounts[bus] = status.TxFullCount;
+        statuses[bus] = String.valueOf(status.Status);
+
+        int count = ageCounts[bus];
+        if (count == 0) {
+            return;
+        }
+        System.arraycopy(ages[bus], 0, sortedAges, 0, count);
+        Arrays.sort(sortedAges, 0, count);
+        medianAges[bus] = percentile(count, 0.50);
+        p95Ages[bus] = percentile(count, 0.95);
+        p99Ages[bus] = percentile(count, 0.99);
+        maxAges[bus] = sortedAges[count - 1];
+    }
+
+    private void publishTelemetry() {
+        for (int bus = 0; bus < buses.length; bus++) {
+            String[] keys = busKeys[bus];
+            Telemetry.put(TELEMETRY_TABLE, keys[0], utilization[bus]);
+            Telemetry.put(TELEMETRY_TABLE, keys[1], txErrors[bus]);
+            Telemetry.put(TELEMETRY_TABLE, keys[2], rxErrors[bus]);
+            Telemetry.put(TELEMETRY_TABLE, keys[3], busOffCounts[bus]);
+            Telemetry.put(TELEMETRY_TABLE, keys[4], txFullCounts[bus]);
+            Telemetry.put(TELEMETRY_TABLE, keys[5], statuses[bus]);
+            Telemetry.put(TELEMETRY_TABLE, keys[6], medianAges[bus]);
+            Telemetry.put(TELEMETRY_TABLE, keys[7], p95Ages[bus]);
+            Telemetry.put(TELEMETRY_TABLE, keys[8], p99Ages[bus]);
+            Telemetry.put(TELEMETRY_TABLE, keys[9], maxAges[bus]);
+        }
+        for (int device = 0; device < signals.length; device++) {
+            String[] keys = deviceKeys[device];
+            Telemetry.put(TELEMETRY_TABLE, keys[0], signalAges[device]);
+            Telemetry.put(TELEMETRY_TABLE, keys[1], framePeriods[device]);
+            Telemetry.put(TELEMETRY_TABLE, keys[2], jitters[device]);
+        }
+    }
+
+    /**
+     * Picks a percentile from the first {@code count} sorted ages, by nearest rank.
+     */
+    private double percentile(int count, double fraction) {
+        int rank = (int) Math.ceil(fraction * count) - 1;
+        return sortedAges[Math.max(0, Math.min(count - 1, rank))];
+    }
+
+    private void resizeAgeWindows() {
+        for (int bus = 0; bus < ages.length; bus++) {
+            ages[bus] = new double[latencyWindow];
+            ageCounts[bus] = 0;
+            ageIndexes[bus] = 0;
+        }
+        sortedAges = new double[latencyWindow];
+    }
+
+    // Keys are built once so publishing never concatenates strings
+    private static String[] keys(String prefix, String... names) {
+        String[] keys = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            keys[i] = prefix + "/" + names[i];
+        }
+        return keys;
+    }
+
+    private static double expectedPeriod(BaseStatusSignal signal) {
+        double frequency = signal.getAppliedUpdateFrequency();
+        return frequency > 0.0 ? 1.0 / frequency : Double.NaN;
+    }
+
+    private static double[] filled(int length, double value) {
+        double[] array = new double[length];
+        Arrays.fill(array, value);
+        return array;
+    }
+}
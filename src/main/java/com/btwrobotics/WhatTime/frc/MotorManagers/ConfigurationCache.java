@@ -0,0 +1,258 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.configs.CustomParamsConfigs;
+import com.ctre.phoenix6.configs.TalonFXConfigurator;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+
+/**
+ * Remembers which configuration each TalonFX was last given, so restarts can skip re-applying it.
+ *
+ * <p>When a {@link Motor} commits its configuration, it fingerprints the configuration together
+ * with the device's firmware version. If the fingerprint matches the one recorded the last time
+ * that device was configured, the apply is skipped; otherwise the configuration is applied and
+ * the new fingerprint recorded. Fingerprints are kept in a small properties file in the roboRIO's
+ * operating directory, so they survive reboots and brownouts but not a roboRIO reimage.
+ *
+ * <p>A fingerprint on the roboRIO says nothing about which physical device is on the bus, so each
+ * configured device is also given a marker: 32 bits of the fingerprint, stored in its
+ * {@code CustomParam0} and {@code CustomParam1}. Before an apply is skipped, the marker is read
+ * back from the device. A spare swapped in with the same id, or a device factory reset in
+ * Tuner, does not carry the marker and is configured again. While the cache is on, those two
+ * custom parameters belong to the library.
+ *
+ * <p>Any configuration change made outside a commit, such as switching neutral mode at runtime,
+ * forgets that device's fingerprint so the next boot applies the full configuration again.
+ *
+ * <p>The cache is off by default; turn it on with {@link #setEnabled(boolean)} before the
+ * first motor is committed.
+ */
+public final class ConfigurationCache {
+    /** The file fingerprints are stored in, relative to the operating directory. */
+    public static final String DEFAULT_FILE_NAME = "whattime-config-cache.properties";
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** Writes run one at a time, in order, so the newest snapshot always lands last. */
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "WhatTime-ConfigCache");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static boolean enabled = false;
+    private static Path path;
+    private static Properties fingerprints;
+
+    private ConfigurationCache() {
+    }
+
+    /**
+     * Turns the cache on or off.
+     *
+     * @param enabled whether commits should skip configurations the device already has
+     */
+    public static synchronized void setEnabled(boolean enabled) {
+        ConfigurationCache.enabled = enabled;
+    }
+
+    public static synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets the file fingerprints are stored in, and forgets anything loaded from the previous one.
+     *
+     * @param path the properties file to use
+     */
+    public static synchronized void setPath(Path path) {
+        if (path == null) {
+            throw new IllegalArgumentException("path cannot be null.");
+        }
+        ConfigurationCache.path = path;
+        fingerprints = null;
+    }
+
+    /**
+     * Checks whether a device was last given a configuration with this fingerprint.
+     *
+     * @param key the device, as returned by {@link #key(String, int)}
+     * @param fingerprint the fingerprint of the configuration about to be applied
+     * @return {@code true} if the apply can be skipped
+     */
+    public static synchronized boolean matches(String key, String fingerprint) {
+        return fingerprint != null && fingerprint.equals(load().getProperty(key));
+    }
+
+    /**
+     * Checks that a device carries the marker for a fingerprint, reading it back from the device.
+     *
+     * @param configurator the device's configurator
+     * @param fingerprint the fingerprint recorded for the device
+     * @param timeoutSeconds how long to wait for the device to answer
+     * @return {@code true} if the device answered with the marker
+     */
+    static boolean deviceHasMarker(TalonFXConfigurator configurator, String fingerprint, double timeoutSeconds) {
+        CustomParamsConfigs customParams = new CustomParamsConfigs();
+        StatusCode status = configurator.refresh(customParams, timeoutSeconds);
+        if (status == null || !status.isOK()) {
+            return false;
+        }
+        long marker = markerOf(fingerprint);
+        return customParams.CustomParam0 == markerParam(marker, 0)
+            && customParams.CustomParam1 == markerParam(marker, 1);
+    }
+
+    /**
+     * Writes the marker for a fingerprint to a device that was just configured.
+     *
+     * @param configurator the device's configurator
+     * @param fingerprint the fingerprint of the configuration that was applied
+     * @return the status of the write
+     */
+    static StatusCode writeMarker(TalonFXConfigurator configurator, String fingerprint) {
+        long marker = markerOf(fingerprint);
+        CustomParamsConfigs customParams = new CustomParamsConfigs();
+        customParams.CustomParam0 = markerParam(marker, 0);
+        customParams.CustomParam1 = markerParam(marker, 1);
+        return configurator.apply(customParams);
+    }
+
+    /**
+     * Records that a device has been given a configuration.
+     *
+     * @param key the device, as returned by {@link #key(String, int)}
+     * @param fingerprint the fingerprint of the configuration that was applied
+     */
+    public static synchronized void record(String key, String fingerprint) {
+        if (fingerprint == null || fingerprint.equals(load().setProperty(key, fingerprint))) {
+            return;
+        }
+        save();
+    }
+
+    /**
+     * Forgets a device's fingerprint, so its full configuration is applied next time.
+     *
+     * @param key the device, as returned by {@link #key(String, int)}
+     */
+    public static synchronized void invalidate(String key) {
+        if (fingerprints == null && !enabled) {
+            return;
+        }
+        if (load().remove(key) != null) {
+            save();
+        }
+    }
+
+    /**
+     * Forgets every fingerprint.
+     */
+    public static synchronized void clear() {
+        load().clear();
+        save();
+    }
+
+    /**
+     * Gets the key a device's fingerprint is stored under.
+     *
+     * @param canbus the name of the bus the device is on
+     * @param deviceId the device's CAN id
+     * @return the cache key
+     */
+    public static String key(String canbus, int deviceId) {
+        return canbus + "." + deviceId;
+    }
+
+    /**
+     * Fingerprints a serialized configuration and firmware version.
+     *
+     * @param serializedConfiguration the configuration as serialized by Phoenix
+     * @param firmwareVersion the device's firmware version
+     * @return a 64-bit FNV-1a hash, in hex
+     */
+    public static String fingerprint(String serializedConfiguration, int firmwareVersion) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < serializedConfiguration.length(); i++) {
+            hash = (hash ^ serializedConfiguration.charAt(i)) * FNV_PRIME;
+        }
+        for (int shift = 0; shift < Integer.SIZE; shift += Byte.SIZE) {
+            hash = (hash ^ ((firmwareVersion >>> shift) & 0xff)) * FNV_PRIME;
+        }
+        return Long.toHexString(hash);
+    }
+
+    private static long markerOf(String fingerprint) {
+        return Long.parseUnsignedLong(fingerprint, 16);
+    }
+
+    /**
+     * Takes 16 bits of the marker; custom parameters hold values from -32768 to 32767.
+     */
+    private static int markerParam(long marker, int index) {
+        return (short) (marker >>> (index * Short.SIZE));
+    }
+
+    private static Properties load() {
+        if (fingerprints != null) {
+            return fingerprints;
+        }
+
+        fingerprints = new Properties();
+        Path file = resolvePath();
+        if (Files.exists(file)) {
+            try (InputStream input = Files.newInputStream(file)) {
+                fingerprints.load(input);
+            } catch (IOException | IllegalArgumentException e) {
+                // A damaged cache only costs a full configuration
+                fingerprints.clear();
+                DriverStation.reportWarning("Could not read configuration cache " + file + ": " + e, false);
+            }
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Writes the fingerprints on the writer thread, so callers on the robot loop never wait on the disk.
+     */
+    private static void save() {
+        Path file = resolvePath();
+        Properties snapshot = new Properties();
+        snapshot.putAll(fingerprints);
+        WRITER.execute(() -> write(snapshot, file));
+    }
+
+    private static void write(Properties snapshot, Path file) {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+        // Write then move, so a brownout mid-write cannot leave a half-written cache
+        try {
+            try (OutputStream output = Files.newOutputStream(temporary)) {
+                snapshot.store(output, "WhatTime TalonFX configuration fingerprints");
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            DriverStation.reportWarning("Could not write configuration cache " + file + ": " + e, false);
+        }
+    }
+
+    private static Path resolvePath() {
+        if (path == null) {
+            path = Filesystem.getOperatingDirectory().toPath().resolve(DEFAULT_FILE_NAME);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,132 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+/**
+ * An in-memory {@link MotorIO} for running {@link Motor} logic without hardware.
+ *
+ * <p>The fake remembers the last output and serves whatever position it is given. Calling
+ * {@link #step(double)} moves it as an idealized motor would, at a speed proportional to its
+ * output, so closed-loop behaviour can be exercised for as many ticks as needed.
+ *
+ * <pre>
+ * FakeMotorIO io = new FakeMotorIO(1).setFreeSpeed(5.0);
+ * double[] time = {0.0};
+ * Motor motor = new Motor(io, false, false)
+ *     .setClock(() -&gt; time[0])
+ *     .setWarningSink(System.out::println);
+ * motor.toggleEnabled(true);
+ * motor.goTo(0.5);
+ * for (int i = 0; i &lt; 1000; i++) {
+ *     time[0] += 0.02;
+ *     motor.update();
+ *     io.step(0.02);
+ * }
+ * </pre>
+ */
+public class FakeMotorIO implements MotorIO {
+    /** The bus name fakes report. */
+    public static final String CANBUS = "fake";
+
+    private static final double DEFAULT_FREE_SPEED = 1.0;
+
+    private final int deviceId;
+    private double freeSpeed = DEFAULT_FREE_SPEED;
+
+    private double output = 0.0;
+    private double position = 0.0;
+    private boolean coasting = false;
+    private long outputCount = 0;
+    private long positionReads = 0;
+
+    /**
+     * Creates a fake device at position 0.
+     *
+     * @param deviceId the id the fake reports
+     */
+    public FakeMotorIO(int deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    /**
+     * Sets how fast {@link #step(double)} moves the fake at full output.
+     *
+     * @param rotationsPerSecond the speed at an output of 1.0
+     * @return this fake
+     */
+    public FakeMotorIO setFreeSpeed(double rotationsPerSecond) {
+        if (!Double.isFinite(rotationsPerSecond)) {
+            throw new IllegalArgumentException("rotationsPerSecond must be finite.");
+        }
+        this.freeSpeed = rotationsPerSecond;
+        return this;
+    }
+
+    /**
+     * Moves the fake by its output for a length of time. A coasting fake does not move.
+     *
+     * @param seconds how long to move for
+     */
+    public void step(double seconds) {
+        if (!coasting) {
+            position += output * freeSpeed * seconds;
+        }
+    }
+
+    @Override
+    public void setOutput(double output) {
+        this.output = output;
+        this.coasting = false;
+        outputCount++;
+    }
+
+    @Override
+    public double getPosition(boolean refresh) {
+        positionReads++;
+        return position;
+    }
+
+    @Override
+    public void coast() {
+        output = 0.0;
+        coasting = true;
+    }
+
+    @Override
+    public int getDeviceId() {
+        return deviceId;
+    }
+
+    @Override
+    public String getCanbus() {
+        return CANBUS;
+    }
+
+    public void setPosition(double position) {
+        this.position = position;
+    }
+
+    public double getOutput() {
+        return output;
+    }
+
+    public boolean isCoasting() {
+        return coasting;
+    }
+
+    /**
+     * Gets how many outputs have been sent.
+     *
+     * @return the number of {@link #setOutput(double)} calls
+     */
+    public long getOutputCount() {
+        return outputCount;
+    }
+
+    /**
+     * Gets how many times the position has been read.
+     *
+     * @return the number of {@link #getPosition(boolean)} calls
+     */
+    public long getPositionReads() {
+        return positionReads;
+    }
+}
@@ -0,0 +1,590 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.FunctionalCommand;
+
+/**
+ * Moves several motors to their targets together, so they all arrive at the same moment.
+ *
+ * <p>Each axis is given a maximum velocity and acceleration. For a move, every axis gets a
+ * trapezoidal profile from where it is to its target, and the faster axes are slowed down so
+ * their profiles take exactly as long as the slowest one. The profiles are sampled into
+ * {@link MotorTrajectory}s once, when the move starts, and followed by the motors from there.
+ *
+ * <p>Interlocks keep axes out of each other's way: "the arm must be above 0.4 before the
+ * elevator goes below 0.2". When a move is planned, an axis that would break an interlock is
+ * held back until the other axis is clear, with a margin of a few loops, and a table of where each
+ * constrained axis plans to be in the restricted region is built. Every loop, that table is
+ * checked against the measured positions, and an axis about to enter a restricted region before
+ * its guard actually got clear is paused until it has. The guard, and every other axis, keeps
+ * moving. Checking the table allocates nothing.
+ *
+ * <pre>
+ * MotionCoordinator coordinator = new MotionCoordinator()
+ *     .addAxis(elevator, 2.0, 6.0)
+ *     .addAxis(arm, 1.5, 4.0)
+ *     .addInterlock(arm, Bound.ABOVE, 0.4, elevator, Bound.BELOW, 0.2);
+ * Command stow = coordinator.moveTo(0.0, 0.5);
+ * </pre>
+ */
+public class MotionCoordinator {
+    /** Which side of a limit a position must be on. */
+    public enum Bound {
+        /** At or above the limit. */
+        ABOVE,
+        /** At or below the limit. */
+        BELOW;
+
+        boolean test(double position, double limit) {
+            return this == ABOVE ? position >= limit : position <= limit;
+        }
+    }
+
+    /** The spacing of the sampled trajectories, in seconds. */
+    public static final double DEFAULT_STEP = 0.02;
+
+    /**
+     * How many loops ahead the interlock table is checked. Planning leaves one step more than
+     * this between the guard getting clear and the constrained axis entering, so a move that
+     * tracks its plan is never paused.
+     */
+    private static final int LOOKAHEAD_STEPS = 2;
+
+    /** How close to the end an interior sample may fall before it is dropped, in seconds. */
+    private static final double END_TOLERANCE = 1e-9;
+
+    /** How many times a plan is adjusted to satisfy interlocks before it is used as is. */
+    private static final int MAX_PLAN_ITERATIONS = 8;
+
+    private final List<Motor> motors = new ArrayList<>();
+    private final List<double[]> limits = new ArrayList<>();
+    private final List<Interlock> interlocks = new ArrayList<>();
+
+    private final double step;
+
+    private Plan plan;
+    private boolean paused = false;
+
+    /**
+     * Creates a coordinator that samples trajectories every {@link #DEFAULT_STEP} seconds.
+     */
+    public MotionCoordinator() {
+        this(DEFAULT_STEP);
+    }
+
+    /**
+     * Creates a coordinator.
+     *
+     * @param step the spacing of the sampled trajectories, in seconds
+     */
+    public MotionCoordinator(double step) {
+        if (!(step > 0.0) || !Double.isFinite(step)) {
+            throw new IllegalArgumentException("step must be > 0.");
+        }
+        this.step = step;
+    }
+
+    /**
+     * Adds a motor to coordinate. Targets are passed to {@link #moveTo(double...)} in the order
+     * axes are added.
+     *
+     * @param motor the motor
+     * @param maxVelocity the axis's top speed, in position units per second
+     * @param maxAcceleration the axis's acceleration, in position units per second squared
+     * @return this coordinator
+     */
+    public MotionCoordinator addAxis(Motor motor, double maxVelocity, double maxAcceleration) {
+        if (motor == null) {
+            throw new IllegalArgumentException("motor cannot be null.");
+        }
+        if (motors.contains(motor)) {
+            throw new IllegalArgumentException("motor is already an axis.");
+        }
+        validatePositive(maxVelocity, "maxVelocity");
+        validatePositive(maxAcceleration, "maxAcceleration");
+
+        motors.add(motor);
+        limits.add(new double[] {maxVelocity, maxAcceleration});
+        return this;
+    }
+
+    /**
+     * Requires one axis to be clear before another may enter a restricted region.
+     *
+     * @param guard the axis that must get clear first
+     * @param guardBound which side of its limit the guard must be on
+     * @param guardLimit the guard's limit
+     * @param constrained the axis that must wait
+     * @param restrictedBound which side of its limit is restricted for the constrained axis
+     * @param restrictedLimit the constrained axis's limit
+     * @return this coordinator
+     */
+    public MotionCoordinator addInterlock(Motor guard, Bound guardBound, double guardLimit,
+            Motor constrained, Bound restrictedBound, double restrictedLimit) {
+        int guardAxis = motors.indexOf(guard);
+        int constrainedAxis = motors.indexOf(constrained);
+        if (guardAxis < 0 || constrainedAxis < 0) {
+            throw new IllegalArgumentException("guard and constrained must be added as axes first.");
+        }
+        if (guardAxis == constrainedAxis) {
+            throw new IllegalArgumentException("guard and constrained must be different axes.");
+        }
+        if (guardBound == null || restrictedBound == null) {
+            throw new IllegalArgumentException("guardBound and restrictedBound cannot be null.");
+        }
+
+        interlocks.add(new Interlock(guardAxis, guardBound, guardLimit, constrainedAxis, restrictedBound, restrictedLimit));
+        return this;
+    }
+
+    /**
+     * Creates a command that moves every axis to its target, arriving together.
+     *
+     * <p>The move is planned from the axes' positions when the command starts. The command does
+     * not require the motors, which keep following through their own updates; it ends once every
+     * axis has arrived.
+     *
+     * @param targets one target per axis, in the order the axes were added
+     * @return the move command
+     */
+    public Command moveTo(double... targets) {
+        if (targets == null || targets.length != motors.size()) {
+            throw new IllegalArgumentException("targets must have one value per axis.");
+        }
+        double[] copy = targets.clone();
+
+        return new FunctionalCommand(
+            () -> start(copy),
+            this::checkInterlocks,
+            interrupted -> {
+                if (interrupted) {
+                    cancel();
+                }
+            },
+            this::isFinished
+        );
+    }
+
+    /**
+     * Plans a move from the axes' current positions and starts the motors following it.
+     *
+     * @param targets one target per axis, in the order the axes were added
+     */
+    public void start(double... targets) {
+        if (targets == null || targets.length != motors.size()) {
+            throw new IllegalArgumentException("targets must have one value per axis.");
+        }
+
+        cancel();
+
+        double[] starts = new double[motors.size()];
+        for (int axis = 0; axis < starts.length; axis++) {
+            starts[axis] = motors.get(axis).getCurrentValue();
+        }
+
+        plan = plan(starts, targets);
+        for (int axis = 0; axis < motors.size(); axis++) {
+            plan.followers[axis] = motors.get(axis).follow(plan.trajectories[axis]);
+            plan.followers[axis].setPaused(paused);
+        }
+    }
+
+    /**
+     * Pauses each axis that is about to enter a restricted region before its guard is clear,
+     * and resumes it once the guard is.
+     *
+     * <p>Called every loop by the command from {@link #moveTo(double...)}.
+     */
+    public void checkInterlocks() {
+        Plan plan = this.plan;
+        if (plan == null) {
+            return;
+        }
+
+        boolean[] blockedAxes = plan.blockedAxes;
+        for (int axis = 0; axis < blockedAxes.length; axis++) {
+            blockedAxes[axis] = false;
+        }
+
+        boolean blocked = false;
+        for (int i = 0; i < interlocks.size(); i++) {
+            Interlock interlock = interlocks.get(i);
+            if (blockedAxes[interlock.constrainedAxis]) {
+                continue;
+            }
+
+            // Each axis has its own clock, which stops while that axis is paused
+            double time = plan.followers[interlock.constrainedAxis].getTime();
+            int next = (int) Math.ceil(time / step) + LOOKAHEAD_STEPS;
+            boolean[] restricted = plan.restricted[i];
+            if (!restricted[Math.min(next, restricted.length - 1)]) {
+                continue;
+            }
+
+            double constrained = motors.get(interlock.constrainedAxis).getCurrentValue();
+            double guard = motors.get(interlock.guardAxis).getCurrentValue();
+            if (!interlock.restrictedBound.test(constrained, interlock.restrictedLimit)
+                    && !interlock.guardBound.test(guard, interlock.guardLimit)) {
+                blockedAxes[interlock.constrainedAxis] = true;
+                blocked = true;
+            }
+        }
+
+        plan.blocked = blocked;
+        for (int axis = 0; axis < plan.followers.length; axis++) {
+            plan.followers[axis].setPaused(paused || blockedAxes[axis]);
+        }
+    }
+
+    /**
+     * Pauses or resumes the move; paused axes hold their current setpoints.
+     *
+     * @param paused whether the move should pause
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+        Plan plan = this.plan;
+        if (plan != null) {
+            for (int axis = 0; axis < plan.followers.length; axis++) {
+                plan.followers[axis].setPaused(paused || plan.blockedAxes[axis]);
+            }
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Indicates whether an interlock is holding the move.
+     *
+     * @return {@code true} while an axis is paused waiting for another to get clear
+     */
+    public boolean isBlocked() {
+        Plan plan = this.plan;
+        return plan != null && plan.blocked;
+    }
+
+    /**
+     * Indicates whether every axis has arrived.
+     *
+     * @return {@code true} once the move is done, or if no move was started
+     */
+    public boolean isFinished() {
+        Plan plan = this.plan;
+        if (plan == null) {
+            return true;
+        }
+        for (int axis = 0; axis < plan.followers.length; axis++) {
+            TrajectoryFollower follower = plan.followers[axis];
+            // A motor that was disabled, or given another target, is no longer part of the move
+            if (motors.get(axis).getFollower() == follower && !follower.isFinished() && !follower.isCancelled()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets how long the current move takes, not counting pauses.
+     *
+     * @return the duration in seconds, or 0 if no move was started
+     */
+    public double getDuration() {
+        Plan plan = this.plan;
+        return plan == null ? 0.0 : plan.duration;
+    }
+
+    /**
+     * Stops the current move; the axes hold wherever they were told to be.
+     */
+    public void cancel() {
+        Plan plan = this.plan;
+        if (plan == null) {
+            return;
+        }
+        for (TrajectoryFollower follower : plan.followers) {
+            if (follower != null) {
+                follower.cancel();
+            }
+        }
+        this.plan = null;
+    }
+
+    public List<Motor> getMotors() {
+        return List.copyOf(motors);
+    }
+
+    private Plan plan(double[] starts, double[] targets) {
+        int axes = motors.size();
+        Profile[] profiles = new Profile[axes];
+        for (int axis = 0; axis < axes; axis++) {
+            double[] axisLimits = limits.get(axis);
+            profiles[axis] = new Profile(starts[axis], targets[axis], axisLimits[0], axisLimits[1]);
+        }
+
+        double end = 0.0;
+        for (int iteration = 0; iteration < MAX_PLAN_ITERATIONS; iteration++) {
+            end = stretchToCommonEnd(profiles);
+
+            boolean adjusted = false;
+            for (Interlock interlock : interlocks) {
+                Profile guard = profiles[interlock.guardAxis];
+                Profile constrained = profiles[interlock.constrainedAxis];
+
+                double entry = firstTimeIn(constrained, interlock.restrictedBound, interlock.restrictedLimit, end);
+                if (Double.isNaN(entry)) {
+                    continue;
+                }
+                double clear = clearTime(guard, interlock.guardBound, interlock.guardLimit, end);
+                if (Double.isNaN(clear)) {
+                    throw new IllegalArgumentException("An interlock cannot be satisfied by these targets.");
+                }
+                // Hold the constrained axis back until the guard is clear, with more margin than
+                // checkInterlocks looks ahead; stretching to a new end can move the guard, so the
+                // margin is checked again on every iteration
+                double margin = (LOOKAHEAD_STEPS + 1) * step;
+                if (entry < clear + margin) {
+                    constrained.delay += clear + margin - entry;
+                    adjusted = true;
+                }
+            }
+
+            if (!adjusted) {
+                break;
+            }
+        }
+
+        int points = pointCount(end);
+        Plan plan = new Plan(axes, interlocks.size(), end);
+        for (int axis = 0; axis < axes; axis++) {
+            plan.trajectories[axis] = sample(profiles[axis], points, end);
+        }
+
+        for (int i = 0; i < interlocks.size(); i++) {
+            Interlock interlock = interlocks.get(i);
+            Profile constrained = profiles[interlock.constrainedAxis];
+            boolean[] restricted = new boolean[points];
+            for (int point = 0; point < points; point++) {
+                double position = constrained.position(timeAt(point, points, end));
+                // Only entering matters; an axis that starts inside has nothing to wait for
+                restricted[point] = interlock.restrictedBound.test(position, interlock.restrictedLimit)
+                    && !interlock.restrictedBound.test(constrained.start, interlock.restrictedLimit);
+            }
+            plan.restricted[i] = restricted;
+        }
+
+        return plan;
+    }
+
+    /**
+     * Slows every profile so they all finish together, after the slowest.
+     *
+     * @return the common end time
+     */
+    private static double stretchToCommonEnd(Profile[] profiles) {
+        double end = 0.0;
+        for (Profile profile : profiles) {
+            end = Math.max(end, profile.delay + profile.minimumDuration);
+        }
+        for (Profile profile : profiles) {
+            profile.duration = end - profile.delay;
+        }
+        return end;
+    }
+
+    /**
+     * Finds when an axis first enters a region, unless it starts there.
+     *
+     * @return the time, or {@code NaN} if it never enters
+     */
+    private double firstTimeIn(Profile profile, Bound bound, double limit, double end) {
+        if (bound.test(profile.start, limit)) {
+            return Double.NaN;
+        }
+        int points = pointCount(end);
+        for (int point = 0; point < points; point++) {
+            double time = timeAt(point, points, end);
+            if (bound.test(profile.position(time), limit)) {
+                return time;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Finds when an axis gets clear and stays clear until the end of the move.
+     *
+     * @return the time, or {@code NaN} if it does not end clear
+     */
+    private double clearTime(Profile profile, Bound bound, double limit, double end) {
+        int points = pointCount(end);
+        double clear = Double.NaN;
+        for (int point = points - 1; point >= 0; point--) {
+            double time = timeAt(point, points, end);
+            if (!bound.test(profile.position(time), limit)) {
+                break;
+            }
+            clear = time;
+        }
+        return clear;
+    }
+
+    private MotorTrajectory sample(Profile profile, int points, double end) {
+        double[] times = new double[points];
+        double[] positions = new double[points];
+        double[] velocities = new double[points];
+        double[] accelerations = new double[points];
+        for (int point = 0; point < points; point++) {
+            double time = timeAt(point, points, end);
+            times[point] = time;
+            positions[point] = profile.position(time);
+            velocities[point] = profile.velocity(time);
+            accelerations[point] = profile.acceleration(time);
+        }
+        return new MotorTrajectory(times, positions, velocities, accelerations);
+    }
+
+    /**
+     * Counts the samples from 0 to a move's end: one every step, then the end itself. A step that
+     * lands on the end, give or take rounding, is dropped so the times stay strictly increasing.
+     */
+    private int pointCount(double end) {
+        return Math.max(0, (int) Math.ceil((end - END_TOLERANCE) / step)) + 1;
+    }
+
+    private double timeAt(int point, int points, double end) {
+        return point == points - 1 ? end : point * step;
+    }
+
+    private static void validatePositive(double value, String name) {
+        if (!(value > 0.0) || !Double.isFinite(value)) {
+            throw new IllegalArgumentException(name + " must be > 0.");
+        }
+    }
+
+    /**
+     * A trapezoidal move from a start to a target, optionally delayed and stretched in time.
+     */
+    private static final class Profile {
+        private final double start;
+        private final double direction;
+        private final double distance;
+        private final double acceleration;
+        private final double peakVelocity;
+        private final double accelerationTime;
+        private final double minimumDuration;
+
+        private double delay = 0.0;
+        private double duration;
+
+        private Profile(double start, double target, double maxVelocity, double maxAcceleration) {
+            this.start = start;
+            this.direction = Math.signum(target - start);
+            this.distance = Math.abs(target - start);
+            this.acceleration = maxAcceleration;
+            // Short moves never reach top speed and make a triangle instead
+            this.peakVelocity = Math.min(maxVelocity, Math.sqrt(distance * maxAcceleration));
+            this.accelerationTime = peakVelocity / maxAcceleration;
+            this.minimumDuration = distance == 0.0 ? 0.0 : distance / peakVelocity + accelerationTime;
+            this.duration = minimumDuration;
+        }
+
+        /** How much slower than its fastest this profile runs. */
+        private double rate() {
+            return duration > 0.0 ? minimumDuration / duration : 0.0;
+        }
+
+        /** Converts a move time to the time along the unstretched profile. */
+        private double profileTime(double time) {
+            return Math.max(0.0, Math.min(minimumDuration, (time - delay) * rate()));
+        }
+
+        private double position(double time) {
+            if (minimumDuration == 0.0) {
+                return start;
+            }
+            double t = profileTime(time);
+            double cruiseEnd = minimumDuration - accelerationTime;
+            double travelled;
+            if (t < accelerationTime) {
+                travelled = 0.5 * acceleration * t * t;
+            } else if (t < cruiseEnd) {
+                travelled = 0.5 * acceleration * accelerationTime * accelerationTime + peakVelocity * (t - accelerationTime);
+            } else {
+                double remaining = minimumDuration - t;
+                travelled = distance - 0.5 * acceleration * remaining * remaining;
+            }
+            return start + direction * travelled;
+        }
+
+        private double velocity(double time) {
+            if (minimumDuration == 0.0 || time <= delay) {
+                return 0.0;
+            }
+            double t = profileTime(time);
+            double velocity;
+            if (t < accelerationTime) {
+                velocity = acceleration * t;
+            } else if (t < minimumDuration - accelerationTime) {
+                velocity = peakVelocity;
+            } else {
+                velocity = acceleration * (minimumDuration - t);
+            }
+            return direction * velocity * rate();
+        }
+
+        private double acceleration(double time) {
+            if (minimumDuration == 0.0 || time <= delay) {
+                return 0.0;
+            }
+            double t = profileTime(time);
+            double rate = rate();
+            if (t < accelerationTime) {
+                return direction * acceleration * rate * rate;
+            } else if (t < minimumDuration - accelerationTime) {
+                return 0.0;
+            }
+            return -direction * acceleration * rate * rate;
+        }
+    }
+
+    private static final class Interlock {
+        private final int guardAxis;
+        private final Bound guardBound;
+        private final double guardLimit;
+        private final int constrainedAxis;
+        private final Bound restrictedBound;
+        private final double restrictedLimit;
+
+        private Interlock(int guardAxis, Bound guardBound, double guardLimit,
+                int constrainedAxis, Bound restrictedBound, double restrictedLimit) {
+            this.guardAxis = guardAxis;
+            this.guardBound = guardBound;
+            this.guardLimit = guardLimit;
+            this.constrainedAxis = constrainedAxis;
+            this.restrictedBound = restrictedBound;
+            this.restrictedLimit = restrictedLimit;
+        }
+    }
+
+    private static final class Plan {
+        private final MotorTrajectory[] trajectories;
+        private final TrajectoryFollower[] followers;
+        private final boolean[][] restricted;
+        private final boolean[] blockedAxes;
+        private final double duration;
+        private boolean blocked = false;
+
+        private Plan(int axes, int interlockCount, double duration) {
+            this.trajectories = new MotorTrajectory[axes];
+            this.followers = new TrajectoryFollower[axes];
+            this.restricted = new boolean[interlockCount][];
+            this.blockedAxes = new boolean[axes];
+            this.duration = duration;
+        }
+    }
+}
@@ -1,54 +1,178 @@
 package com.btwrobotics.WhatTime.frc.MotorManagers;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.function.DoubleSupplier;
 
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.configs.CurrentLimitsConfigs;
+import com.ctre.phoenix6.configs.MotorOutputConfigs;
+import com.ctre.phoenix6.configs.Slot0Configs;
+import com.ctre.phoenix6.configs.Slot1Configs;
+import com.ctre.phoenix6.configs.Slot2Configs;
+import com.ctre.phoenix6.configs.SoftwareLimitSwitchConfigs;
+import com.ctre.phoenix6.configs.TalonFXConfiguration;
+import com.ctre.phoenix6.configs.TalonFXConfigurator;
+import com.ctre.phoenix6.configs.TorqueCurrentConfigs;
+import com.ctre.phoenix6.configs.VoltageConfigs;
+import com.ctre.phoenix6.controls.VelocityTorqueCurrentFOC;
+import com.ctre.phoenix6.controls.VelocityVoltage;
 import com.ctre.phoenix6.hardware.TalonFX;
+import com.ctre.phoenix6.signals.InvertedValue;
 import com.ctre.phoenix6.signals.NeutralModeValue;
 
+import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.Commands;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import edu.wpi.first.wpilibj2.command.Subsystem;
 
 /**
  * TalonFX wrapper with optional free-drive mode and position control.
+ *
+ * <p>Settings that live on the device, such as neutral mode, device inversion, current limits
+ * and soft limits, are collected into one {@link TalonFXConfiguration} and sent by an explicit
+ * {@link #commit()} during initialization. Only the settings changed through this class are
+ * sent; anything else on the device, such as settings made in Tuner, is left alone.
+ *
+ * <p>Every tick's device calls go through a {@link MotorIO}, so the same motor logic runs on a
+ * {@link FakeMotorIO} off the robot. A motor created with
+ * {@link #Motor(MotorIO, boolean, boolean)} can also be kept off the command scheduler and given
+ * its own clock and warning sink, so it runs without the HAL at all. This is why Motor is a
+ * plain {@link Subsystem} rather than a {@code SubsystemBase}: it has no name of its own, no
+ * children and is not {@code Sendable}.
  */
-public class Motor extends SubsystemBase {
+public class Motor implements Subsystem {
+    /** The TalonFX gain slot {@link #runAtVelocity(double)} runs with. */
+    public static final int VELOCITY_SLOT = 0;
+
     private static final boolean DEFAULT_INVERTED = false;
-    private static final double DEFAULT_MIN_VALUE = -1.0;
-    private static final double DEFAULT_MAX_VALUE = 1.0;
-    private static final double DEFAULT_MIN_SPEED = 0.0;
-    private static final double DEFAULT_MOTOR_SPEED = 1.0;
-    private static final boolean DEFAULT_FREE = true;
-    private static final double DEFAULT_HOLD_SPEED = 0.0;
-    private static final double DEFAULT_THRESHOLD = 0.025;
-    private static final double DEFAULT_PG = 0.1;
-    private static final int DEFAULT_ACCELERATION_STEPS = 50;
+    private static final double DEFAULT_TRAJECTORY_KV = 0.0;
+    private static final double DEFAULT_TRAJECTORY_KA = 0.0;
     private static final DoubleSupplier DEFAULT_POSITION_DOUBLE_SUPPLIER = null;
-
+    private static final double VERIFY_TIMEOUT_SECONDS = 0.1;
+    private static final String DEFAULT_CANBUS = "rio";
+    private static final double DEFAULT_AT_SPEED_TOLERANCE = 2.0;
+    private static final double DEFAULT_AT_SPEED_DEBOUNCE = 0.1;
+    /** The voltage a full output scale corresponds to when derating velocity control. */
+    private static final double NOMINAL_VOLTAGE = 12.0;
+    /**
+     * Velocity derating moves in steps of this much scale. Much coarser than the power budget's
+     * recovery per loop, so recovering from a brownout sends a handful of limits, not one per loop.
+     */
+    private static final double VELOCITY_DERATE_STEP = 0.25;
+    /** The least time between raising velocity derating limits; lowering them is never delayed. */
+    private static final double VELOCITY_DERATE_RAISE_INTERVAL = 0.5;
+    private static final DoubleSupplier DEFAULT_CLOCK = Timer::getFPGATimestamp;
+    private static final Consumer<String> DEFAULT_WARNING_SINK = message -> DriverStation.reportWarning(message, false);
+
+    // Device settings changed through the library and not yet committed, one bit per setting
+    private static final int INVERTED_FIELD = 1;
+    private static final int NEUTRAL_MODE_FIELD = 1 << 1;
+    private static final int STATOR_LIMIT_FIELD = 1 << 2;
+    private static final int SUPPLY_LIMIT_FIELD = 1 << 3;
+    private static final int SOFT_LIMITS_FIELD = 1 << 4;
+    private static final int SLOT0_KP_FIELD = 1 << 5;
+    private static final int SLOT0_KD_FIELD = 1 << 6;
+    private static final int SLOT0_KS_FIELD = 1 << 7;
+    private static final int SLOT0_KV_FIELD = 1 << 8;
+    private static final int SLOT0_KA_FIELD = 1 << 9;
+    private static final int SLOT1_KP_FIELD = 1 << 10;
+    private static final int SLOT1_KD_FIELD = 1 << 11;
+    private static final int SLOT2_KP_FIELD = 1 << 12;
+    private static final int SLOT2_KD_FIELD = 1 << 13;
+    /** Set by {@link #configure(Consumer)}, which can change anything, so the whole configuration is sent. */
+    private static final int ALL_FIELDS = 1 << 30;
+
+    private static final int MOTOR_OUTPUT_FIELDS = INVERTED_FIELD | NEUTRAL_MODE_FIELD;
+    private static final int CURRENT_LIMIT_FIELDS = STATOR_LIMIT_FIELD | SUPPLY_LIMIT_FIELD;
+    private static final int SLOT0_FIELDS = SLOT0_KP_FIELD | SLOT0_KD_FIELD | SLOT0_KS_FIELD
+        | SLOT0_KV_FIELD | SLOT0_KA_FIELD;
+    private static final int SLOT1_FIELDS = SLOT1_KP_FIELD | SLOT1_KD_FIELD;
+    private static final int SLOT2_FIELDS = SLOT2_KP_FIELD | SLOT2_KD_FIELD;
+
+    private final MotorIO io;
+    /** The TalonFX behind {@link #io}, or {@code null} for devices that are not one. */
     private final TalonFX motor;
+    private final String canbus;
+    private final StatusSignal<Angle> positionSignal;
+    private final StatusSignal<AngularVelocity> velocitySignal;
+    private BaseStatusSignal[] statusSignals;
+    private volatile boolean signalsRefreshedExternally;
+    /** The status signals the external refresh was built from. */
+    private BaseStatusSignal[] externallyRefreshedSignals;
 
     private boolean inverted;
-    private double minValue;
-    private double maxValue;
-    private double minSpeed;
-    private double motorSpeed;
-    private Double motorUpSpeed;
-    private Double motorDownSpeed;
-    private boolean free;
-    private double holdSpeed;
-    private double threshold;
-    private double pG;
     private DoubleSupplier positionSupplier;
 
-    private double targetValue;
-    private boolean hasTarget;
-    private boolean isHolding;
-    private boolean isEnabled;
-    private boolean isGoTo;
-    private double currentSpeed;
-
-    private int accelerationSteps;
+    private final MotorControlLoop controlLoop = new MotorControlLoop();
+    private MotorRecorder recorder;
+
+    private TrajectoryFollower follower;
+    private int followerSlot;
+    private double trajectoryKV = DEFAULT_TRAJECTORY_KV;
+    private double trajectoryKA = DEFAULT_TRAJECTORY_KA;
+
+    private MotorTuning tuning;
+
+    private MotorHealthMonitor healthMonitor;
+    private double healthScale = 1.0;
+
+    private PowerBudget.Priority powerPriority;
+    private double budgetScale = 1.0;
+
+    private boolean coasting;
+    /** Whether the motor registers with the command scheduler when it is not managed. */
+    private final boolean scheduled;
+    private MotorManager manager;
+
+    private DoubleSupplier clock = DEFAULT_CLOCK;
+    private Consumer<String> warningSink = DEFAULT_WARNING_SINK;
+
+    private VelocityVoltage velocityVoltageRequest;
+    private VelocityTorqueCurrentFOC velocityTorqueRequest;
+    private boolean velocityTorqueCurrent;
+    /** Whether slot 0 was given velocity gains, or position gains, which share its kP. */
+    private boolean velocityGainsSet;
+    private boolean slot0PositionGainsSet;
+    private boolean velocityMode;
+    private double velocityTarget;
+    private double velocityFeedForward;
+    private double atSpeedTolerance = DEFAULT_AT_SPEED_TOLERANCE;
+    private double atSpeedDebounce = DEFAULT_AT_SPEED_DEBOUNCE;
+    /** When the velocity last came within tolerance, or {@code NaN} if it is outside it. */
+    private double atSpeedSince = Double.NaN;
+    private boolean atSpeed;
+    /** The output scale the device's peak limits were last set for; 1.0 when they are the defaults. */
+    private double velocityDerate = 1.0;
+    /** Whether {@link #velocityDerate} was applied to the torque current limits rather than the voltage ones. */
+    private boolean velocityDerateTorqueCurrent;
+    /** When a derating limit was last sent, by the motor's clock. */
+    private double velocityDerateTime = Double.NEGATIVE_INFINITY;
+    /** Whether the peaks have been put back to the configuration since velocity control was first used. */
+    private boolean velocityPeaksRestored;
+    /** The duty cycle the device applies, read under velocity control; fetched the first time it is used. */
+    private StatusSignal<Double> dutyCycleSignal;
+    private VoltageConfigs velocityVoltageLimits;
+    private TorqueCurrentConfigs velocityTorqueLimits;
+
+    private final TalonFXConfiguration configuration = new TalonFXConfiguration();
+    /** The settings waiting for the next commit, as a mask of the {@code _FIELD} bits. */
+    private int pendingFields;
+    private boolean configurationCommitted;
+    /** Whether the neutral mode in {@link #configuration} has been sent to the device. */
+    private boolean neutralModeApplied;
+
+    private String lastWarning;
 
     /**
      * Creates a Motor object wrapping a TalonFX motor.
@@ -66,7 +190,7 @@ public class Motor extends SubsystemBase {
      * @param inverted whether the motor should be inverted by default
      */
     public Motor(int deviceId, boolean inverted) {
-        this(new TalonFX(deviceId), inverted);
+        this(new TalonFXIO(new TalonFX(deviceId), DEFAULT_CANBUS), inverted);
     }
 
     /**
@@ -87,35 +211,70 @@ public class Motor extends SubsystemBase {
      * @param inverted whether the motor should be inverted by default
      */
     public Motor(int deviceId, String canbus, boolean inverted) {
-        this(new TalonFX(deviceId, canbus), inverted);
+        this(new TalonFXIO(new TalonFX(deviceId, canbus), canbus), inverted);
     }
 
-    private Motor(TalonFX motor, boolean inverted) {
-        this.motor = motor;
-        this.inverted = inverted;
+    /**
+     * Creates a Motor object on any device I/O, such as a {@link FakeMotorIO} for running
+     * without hardware.
+     * 
+     * <p>Device configuration, health monitoring and the power budget need a TalonFX; on other
+     * devices configuration is only recorded, and the others cannot be enabled.
+     * 
+     * @param io the device I/O
+     */
+    public Motor(MotorIO io) {
+        this(io, DEFAULT_INVERTED);
+    }
 
-        this.minValue = DEFAULT_MIN_VALUE;
-        this.maxValue = DEFAULT_MAX_VALUE;
-        this.minSpeed = DEFAULT_MIN_SPEED;
-        this.motorSpeed = DEFAULT_MOTOR_SPEED;
-        this.motorUpSpeed = null;
-        this.motorDownSpeed = null;
-        this.free = DEFAULT_FREE;
-        this.holdSpeed = DEFAULT_HOLD_SPEED;
-        this.threshold = DEFAULT_THRESHOLD;
-        this.pG = DEFAULT_PG;
-        this.positionSupplier = DEFAULT_POSITION_DOUBLE_SUPPLIER;
+    /**
+     * Creates a Motor object on any device I/O.
+     * 
+     * @param io the device I/O
+     * @param inverted whether the motor should be inverted by default
+     */
+    public Motor(MotorIO io, boolean inverted) {
+        this(io, inverted, true);
+    }
+
+    /**
+     * Creates a Motor object on any device I/O, optionally kept off the command scheduler.
+     * 
+     * <p>A motor kept off the scheduler has no periodic or default command; it is updated by
+     * calling {@link #update()}, directly or through a {@link MotorManager}. With
+     * {@link #setClock(DoubleSupplier)} and {@link #setWarningSink(Consumer)} as well, it never
+     * touches the HAL.
+     * 
+     * @param io the device I/O
+     * @param inverted whether the motor should be inverted by default
+     * @param scheduled whether to register with the command scheduler and update from a default command
+     */
+    public Motor(MotorIO io, boolean inverted, boolean scheduled) {
+        if (io == null) {
+            throw new IllegalArgumentException("io cannot be null.");
+        }
 
-        this.targetValue = 0.0;
-        this.hasTarget = false;
-        this.isHolding = false;
-        this.isEnabled = false;
-        this.isGoTo = false;
-        this.currentSpeed = 0.0;
+        this.io = io;
+        this.motor = io instanceof TalonFXIO ? ((TalonFXIO) io).getTalonFX() : null;
+        this.canbus = io.getCanbus() == null || io.getCanbus().isEmpty() ? DEFAULT_CANBUS : io.getCanbus();
+        this.positionSignal = io instanceof TalonFXIO ? ((TalonFXIO) io).getPositionSignal() : null;
+        this.velocitySignal = motor != null ? motor.getVelocity(false) : null;
+        this.statusSignals = positionSignal != null
+            ? new BaseStatusSignal[] { positionSignal, velocitySignal }
+            : new BaseStatusSignal[0];
+        this.inverted = inverted;
+        this.positionSupplier = DEFAULT_POSITION_DOUBLE_SUPPLIER;
 
-        this.accelerationSteps = DEFAULT_ACCELERATION_STEPS;
+        // Nothing is sent until a setter changes it and commit() is called, so settings made in
+        // Tuner or on the TalonFX directly are kept
+        this.pendingFields = 0;
+        this.configurationCommitted = false;
 
-        setDefaultCommand(Commands.run(this::defaultCommand, this));
+        this.scheduled = scheduled;
+        if (scheduled) {
+            register();
+            setDefaultCommand(Commands.run(this::defaultCommand, this));
+        }
     }
 
     /**
@@ -126,7 +285,56 @@ public class Motor extends SubsystemBase {
      * @return A Motor object that wraps the input TalonFX object
      */
     public static Motor of(TalonFX motor, boolean inverted) {
-        return new Motor(motor, inverted);
+        return new Motor(new TalonFXIO(motor, DEFAULT_CANBUS), inverted);
+    }
+
+    /**
+     * Creates a motor from an existing TalonFX object on a named CAN bus.
+     * 
+     * @param motor the TalonFX motor
+     * @param canbus the name of the canbus the motor is on
+     * @param inverted whether the motor should be inverted by default
+     * @return A Motor object that wraps the input TalonFX object
+     */
+    public static Motor of(TalonFX motor, String canbus, boolean inverted) {
+        return new Motor(new TalonFXIO(motor, canbus), inverted);
+    }
+
+    /**
+     * Sets the clock the motor times trajectories, recordings and at-speed debouncing with.
+     * 
+     * @param clock the current time in seconds; the FPGA timestamp by default
+     * @return this motor
+     */
+    public Motor setClock(DoubleSupplier clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("clock cannot be null.");
+        }
+        this.clock = clock;
+        return this;
+    }
+
+    /**
+     * Sets where the motor's warnings go.
+     * 
+     * @param warningSink receives each warning once; the Driver Station by default
+     * @return this motor
+     */
+    public Motor setWarningSink(Consumer<String> warningSink) {
+        if (warningSink == null) {
+            throw new IllegalArgumentException("warningSink cannot be null.");
+        }
+        this.warningSink = warningSink;
+        return this;
+    }
+
+    /**
+     * Gets the current time from the motor's clock.
+     *
+     * @return the time in seconds
+     */
+    double now() {
+        return clock.getAsDouble();
     }
 
     public Motor setInverted(boolean inverted) {
@@ -134,42 +342,211 @@ public class Motor extends SubsystemBase {
         return this;
     }
 
+    /**
+     * Sets which direction the TalonFX itself treats as positive.
+     *
+     * <p>Unlike {@link #setInverted(boolean)}, which flips the output on the roboRIO, this
+     * inverts the device, so its position and velocity signals flip as well. Applied with
+     * the next {@link #commit()}.
+     *
+     * @param deviceInverted whether clockwise rotation is positive
+     */
+    public Motor setDeviceInverted(boolean deviceInverted) {
+        configuration.MotorOutput.Inverted = deviceInverted
+            ? InvertedValue.Clockwise_Positive
+            : InvertedValue.CounterClockwise_Positive;
+        pendingFields |= INVERTED_FIELD;
+        return this;
+    }
+
+    /**
+     * Sets the stator current limit. Applied with the next {@link #commit()}.
+     *
+     * @param amps the limit in amps, or {@code null} to disable it
+     */
+    public Motor setStatorCurrentLimit(Double amps) {
+        if (amps != null) {
+            validateFinite(amps, "statorCurrentLimit");
+            validateNonNegative(amps, "statorCurrentLimit");
+            configuration.CurrentLimits.StatorCurrentLimit = amps;
+        }
+        configuration.CurrentLimits.StatorCurrentLimitEnable = amps != null;
+        pendingFields |= STATOR_LIMIT_FIELD;
+        return this;
+    }
+
+    /**
+     * Sets the supply current limit. Applied with the next {@link #commit()}.
+     *
+     * @param amps the limit in amps, or {@code null} to disable it
+     */
+    public Motor setSupplyCurrentLimit(Double amps) {
+        if (amps != null) {
+            validateFinite(amps, "supplyCurrentLimit");
+            validateNonNegative(amps, "supplyCurrentLimit");
+            configuration.CurrentLimits.SupplyCurrentLimit = amps;
+        }
+        configuration.CurrentLimits.SupplyCurrentLimitEnable = amps != null;
+        pendingFields |= SUPPLY_LIMIT_FIELD;
+        return this;
+    }
+
+    /**
+     * Sets soft limits the TalonFX enforces on its own position. Applied with the next {@link #commit()}.
+     *
+     * @param reverseLimit the lowest position the device will drive towards, in rotations
+     * @param forwardLimit the highest position the device will drive towards, in rotations
+     */
+    public Motor setSoftLimits(double reverseLimit, double forwardLimit) {
+        validateFinite(reverseLimit, "reverseLimit");
+        validateFinite(forwardLimit, "forwardLimit");
+        if (forwardLimit <= reverseLimit) {
+            throw new IllegalArgumentException("forwardLimit must be greater than reverseLimit.");
+        }
+
+        configuration.SoftwareLimitSwitch.ReverseSoftLimitThreshold = reverseLimit;
+        configuration.SoftwareLimitSwitch.ReverseSoftLimitEnable = true;
+        configuration.SoftwareLimitSwitch.ForwardSoftLimitThreshold = forwardLimit;
+        configuration.SoftwareLimitSwitch.ForwardSoftLimitEnable = true;
+        pendingFields |= SOFT_LIMITS_FIELD;
+        return this;
+    }
+
+    public Motor disableSoftLimits() {
+        configuration.SoftwareLimitSwitch.ReverseSoftLimitEnable = false;
+        configuration.SoftwareLimitSwitch.ForwardSoftLimitEnable = false;
+        pendingFields |= SOFT_LIMITS_FIELD;
+        return this;
+    }
+
+    /**
+     * Edits any part of the device configuration. Applied with the next {@link #commit()}.
+     *
+     * <p>Use it for settings without their own setter, such as sensor ratios. Since the editor
+     * can change anything, the next commit sends the whole configuration, replacing everything
+     * set in Tuner or on the TalonFX directly. The setters on this class only send what they set.
+     *
+     * @param editor changes the configuration in place
+     */
+    public Motor configure(Consumer<TalonFXConfiguration> editor) {
+        editor.accept(configuration);
+        pendingFields |= ALL_FIELDS;
+        return this;
+    }
+
+    /**
+     * Gets the device configuration this motor will apply.
+     *
+     * @return the configuration; edit it with {@link #configure(Consumer)} so the change is committed
+     */
+    public TalonFXConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Sends every pending device setting to the TalonFX, blocking until it is acknowledged.
+     *
+     * <p>Only settings changed through this class are sent. Each config group they belong to is
+     * read back from the device and sent with just those settings changed, so everything else on
+     * the TalonFX is left as it was. Does nothing if nothing has changed since the last commit.
+     *
+     * <p>Settings are never committed implicitly; call this once during robot initialization,
+     * after configuring the motor.
+     *
+     * @return the status of the apply, or {@link StatusCode#OK} if there was nothing to send
+     */
+    public StatusCode commit() {
+        int fields = pendingFields;
+        if (fields == 0) {
+            return StatusCode.OK;
+        }
+
+        pendingFields = 0;
+        configurationCommitted = true;
+        if (motor == null) {
+            // Nothing to configure on a device that is not a TalonFX
+            return StatusCode.OK;
+        }
+        StatusCode status = applyConfiguration(motor, fields);
+        if (status != null && !status.isOK()) {
+            pendingFields |= fields;
+            warn("Configuration apply failed: " + status.getName() + ".");
+        } else if ((fields & (NEUTRAL_MODE_FIELD | ALL_FIELDS)) != 0) {
+            neutralModeApplied = true;
+        }
+        return status;
+    }
+
+    /**
+     * Sends every pending device setting to the TalonFX on a worker thread, without blocking.
+     *
+     * <p>The configuration should not be changed until the returned future completes.
+     *
+     * @return a future that completes with whether the configuration was applied
+     * @see AsyncConfigurator
+     */
+    public CompletableFuture<Boolean> commitAsync() {
+        int fields = pendingFields;
+        if (fields == 0) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        pendingFields = 0;
+        configurationCommitted = true;
+        if (motor == null) {
+            return CompletableFuture.completedFuture(true);
+        }
+        if ((fields & (NEUTRAL_MODE_FIELD | ALL_FIELDS)) != 0) {
+            neutralModeApplied = true;
+        }
+        return AsyncConfigurator.apply(this, talon -> applyConfiguration(talon, fields));
+    }
+
+    /**
+     * Indicates whether there are device settings that have not been committed.
+     *
+     * @return {@code true} if the next {@link #commit()} will send a configuration
+     */
+    public boolean hasPendingConfiguration() {
+        return pendingFields != 0;
+    }
+
     public Motor setMinValue(double minValue) {
-        validateRange(minValue, this.maxValue);
-        this.minValue = minValue;
+        validateRange(minValue, controlLoop.getMaxValue());
+        controlLoop.setMinValue(minValue);
         return this;
     }
 
     public Motor setMaxValue(double maxValue) {
-        validateRange(this.minValue, maxValue);
-        this.maxValue = maxValue;
+        validateRange(controlLoop.getMinValue(), maxValue);
+        controlLoop.setMaxValue(maxValue);
         return this;
     }
 
     public Motor setRange(double minValue, double maxValue) {
         validateRange(minValue, maxValue);
-        this.minValue = minValue;
-        this.maxValue = maxValue;
+        controlLoop.setMinValue(minValue);
+        controlLoop.setMaxValue(maxValue);
         return this;
     }
 
     public Motor setMinSpeed(double minSpeed) {
         validateFinite(minSpeed, "minSpeed");
         validateNonNegative(minSpeed, "minSpeed");
-        if (minSpeed > this.motorSpeed) {
+        if (minSpeed > controlLoop.getMotorSpeed()) {
             throw new IllegalArgumentException("minSpeed cannot exceed motorSpeed.");
         }
-        this.minSpeed = minSpeed;
+        controlLoop.setMinSpeed(minSpeed);
         return this;
     }
 
     public Motor setMotorSpeed(double motorSpeed) {
         validateFinite(motorSpeed, "motorSpeed");
         validateNonNegative(motorSpeed, "motorSpeed");
-        if (this.minSpeed > motorSpeed) {
+        if (controlLoop.getMinSpeed() > motorSpeed) {
             throw new IllegalArgumentException("minSpeed cannot exceed motorSpeed.");
         }
-        this.motorSpeed = motorSpeed;
+        controlLoop.setMotorSpeed(motorSpeed);
         return this;
     }
 
@@ -183,11 +560,11 @@ public class Motor extends SubsystemBase {
         if (motorUpSpeed != null) {
             validateFinite(motorUpSpeed, "motorUpSpeed");
             validateNonNegative(motorUpSpeed, "motorUpSpeed");
-            if (this.minSpeed > motorUpSpeed) {
+            if (controlLoop.getMinSpeed() > motorUpSpeed) {
                 throw new IllegalArgumentException("minSpeed cannot exceed motorUpSpeed.");
             }
         }
-        this.motorUpSpeed = motorUpSpeed;
+        controlLoop.setMotorUpSpeed(motorUpSpeed != null ? motorUpSpeed : Double.NaN);
         return this;
     }
 
@@ -201,17 +578,17 @@ public class Motor extends SubsystemBase {
         if (motorDownSpeed != null) {
             validateFinite(motorDownSpeed, "motorDownSpeed");
             validateNonNegative(motorDownSpeed, "motorDownSpeed");
-            if (this.minSpeed > motorDownSpeed) {
+            if (controlLoop.getMinSpeed() > motorDownSpeed) {
                 throw new IllegalArgumentException("minSpeed cannot exceed motorDownSpeed.");
             }
         }
-        this.motorDownSpeed = motorDownSpeed;
+        controlLoop.setMotorDownSpeed(motorDownSpeed != null ? motorDownSpeed : Double.NaN);
         return this;
     }
 
     public Motor setAccelerationSteps(int accelerationSteps) {
         validateNonNegative(accelerationSteps, "accelerationSteps");
-        this.accelerationSteps = accelerationSteps;
+        controlLoop.setAccelerationSteps(accelerationSteps);
         return this;
     }
 
@@ -221,26 +598,26 @@ public class Motor extends SubsystemBase {
      * @param free whether the motor should move freely
      */
     public Motor setFree(boolean free) {
-        this.free = free;
+        controlLoop.setFree(free);
         return this;
     }
 
     public Motor setHoldSpeed(double holdSpeed) {
         validateFinite(holdSpeed, "holdSpeed");
-        this.holdSpeed = holdSpeed;
+        controlLoop.setHoldSpeed(holdSpeed);
         return this;
     }
 
     public Motor setThreshold(double threshold) {
         validateFinite(threshold, "threshold");
         validateNonNegative(threshold, "threshold");
-        this.threshold = threshold;
+        controlLoop.setThreshold(threshold);
         return this;
     }
 
     public Motor setPG(double pG) {
         validateFinite(pG, "pG");
-        this.pG = pG;
+        controlLoop.setPG(pG);
         return this;
     }
 
@@ -249,228 +626,914 @@ public class Motor extends SubsystemBase {
         return this;
     }
 
-    public boolean toggleEnabled() {
-        isEnabled = !isEnabled;
-        return isEnabled;
+    /**
+     * Indicates whether the position comes from a supplier rather than the motor's own encoder.
+     *
+     * @return {@code true} if a position supplier is set
+     */
+    public boolean hasPositionSupplier() {
+        return positionSupplier != null;
     }
 
-    public boolean toggleEnabled(Boolean enabled) {
-        if (enabled == null) {
-            return toggleEnabled();
+    /**
+     * Sets the feedforward gains used while following a {@link MotorTrajectory}.
+     * 
+     * <p>The output is {@code kV * velocity + kA * acceleration + pG * error}, so with both gains
+     * at 0, the default, trajectories are followed on position feedback alone.
+     * 
+     * @param kV the output per unit of velocity
+     * @param kA the output per unit of acceleration
+     */
+    public Motor setTrajectoryGains(double kV, double kA) {
+        validateFinite(kV, "kV");
+        validateFinite(kA, "kA");
+        this.trajectoryKV = kV;
+        this.trajectoryKA = kA;
+        return this;
+    }
+
+    /**
+     * Sets the slot 0 gains the TalonFX runs {@link #runAtVelocity(double)} with. Applied with the
+     * next {@link #commit()}.
+     *
+     * <p>Slot 0 cannot also hold position gains, since both would set its kP; give those
+     * {@link #setPositionGains(int, double, double)} another slot.
+     *
+     * <p>Gains are in volts, or amps with {@link #setVelocityTorqueCurrent(boolean)}. {@code kV}
+     * carries the flywheel most of the way on its own; {@code kP} corrects what is left, such as
+     * the drop when a game piece loads it.
+     *
+     * @param kP the output per rotation per second of error
+     * @param kS the output to overcome friction
+     * @param kV the output per rotation per second of target
+     * @param kA the output per rotation per second squared of target acceleration
+     */
+    public Motor setVelocityGains(double kP, double kS, double kV, double kA) {
+        validateFinite(kP, "kP");
+        validateFinite(kS, "kS");
+        validateFinite(kV, "kV");
+        validateFinite(kA, "kA");
+        if (slot0PositionGainsSet) {
+            throw new IllegalStateException("Slot 0 already holds position gains; move them to another slot.");
         }
+        velocityGainsSet = true;
+        configuration.Slot0.kP = kP;
+        configuration.Slot0.kS = kS;
+        configuration.Slot0.kV = kV;
+        configuration.Slot0.kA = kA;
+        pendingFields |= SLOT0_KP_FIELD | SLOT0_KS_FIELD | SLOT0_KV_FIELD | SLOT0_KA_FIELD;
+        return this;
+    }
 
-        isEnabled = enabled;
-        return isEnabled;
+    /**
+     * Sets the slot 0 gains a device-side position hold runs with. Applied with the next {@link #commit()}.
+     *
+     * @param kP the proportional gain, in volts per rotation of error
+     * @param kD the derivative gain, in volts per rotation per second of error
+     */
+    public Motor setPositionGains(double kP, double kD) {
+        return setPositionGains(0, kP, kD);
     }
 
-    public boolean isEnabled() {
-        return isEnabled;
+    /**
+     * Sets the gains a device-side position hold runs with in the given slot. Applied with the
+     * next {@link #commit()}.
+     *
+     * <p>Slot {@value #VELOCITY_SLOT} is rejected once it holds
+     * {@linkplain #setVelocityGains(double, double, double, double) velocity gains}.
+     *
+     * @param slot the slot, from 0 to 2
+     * @param kP the proportional gain, in volts per rotation of error
+     * @param kD the derivative gain, in volts per rotation per second of error
+     */
+    public Motor setPositionGains(int slot, double kP, double kD) {
+        validateFinite(kP, "kP");
+        validateFinite(kD, "kD");
+        switch (slot) {
+            case 0:
+                if (velocityGainsSet) {
+                    throw new IllegalStateException("Slot 0 already holds velocity gains; use slot 1 or 2.");
+                }
+                slot0PositionGainsSet = true;
+                configuration.Slot0.kP = kP;
+                configuration.Slot0.kD = kD;
+                pendingFields |= SLOT0_KP_FIELD | SLOT0_KD_FIELD;
+                break;
+            case 1:
+                configuration.Slot1.kP = kP;
+                configuration.Slot1.kD = kD;
+                pendingFields |= SLOT1_FIELDS;
+                break;
+            case 2:
+                configuration.Slot2.kP = kP;
+                configuration.Slot2.kD = kD;
+                pendingFields |= SLOT2_FIELDS;
+                break;
+            default:
+                throw new IllegalArgumentException("slot must be between 0 and 2.");
+        }
+        return this;
     }
 
     /**
-     * Drive the motor with free rotation at the set motor speed.
+     * Sets whether velocity control uses {@code VelocityTorqueCurrentFOC} instead of {@code VelocityVoltage}.
+     *
+     * <p>Torque control needs Phoenix Pro, and is not affected by battery voltage at all.
+     *
+     * @param torqueCurrent whether to control torque current
      */
-    public void drive() {
-        drive(motorSpeed);
+    public Motor setVelocityTorqueCurrent(boolean torqueCurrent) {
+        this.velocityTorqueCurrent = torqueCurrent;
+        return this;
     }
 
     /**
-     * Drive the motor with free rotation at the set motor speed.
-     * 
-     * @param reverse whether the direction of the motor should be reversed
+     * Sets how close to its target velocity the motor must be to count as at speed.
+     *
+     * @param rotationsPerSecond the tolerance
      */
-    public void drive(boolean reverse) {
-        drive(reverse ? -motorSpeed: motorSpeed);
+    public Motor setAtSpeedTolerance(double rotationsPerSecond) {
+        validateFinite(rotationsPerSecond, "atSpeedTolerance");
+        validateNonNegative(rotationsPerSecond, "atSpeedTolerance");
+        this.atSpeedTolerance = rotationsPerSecond;
+        return this;
     }
 
     /**
-     * Runs the motor with free rotation at a set speed.
+     * Sets how long the motor must stay within tolerance before it counts as at speed.
+     *
+     * @param seconds the debounce time
+     */
+    public Motor setAtSpeedDebounce(double seconds) {
+        validateFinite(seconds, "atSpeedDebounce");
+        validateNonNegative(seconds, "atSpeedDebounce");
+        this.atSpeedDebounce = seconds;
+        return this;
+    }
+
+    /**
+     * Publishes this motor's parameters to NetworkTables so they can be tuned live.
      * 
-     * @param speed the speed to run the motor at as a double ranging from -1.0 to 1.0
+     * <p>Changes are applied at the start of the next {@link #update()}.
+     * 
+     * @param tableName the NetworkTables table to publish the parameters under
+     * @return the tuning binding; close it to stop listening for changes
+     * @see MotorTuning
      */
-    public void drive(double speed) {
-        if (!free) {
-            throw new IllegalStateException(".drive() is disabled; use .goTo() when not using free rotation.");
-        }
-        if (!isEnabled) {
-            warn("Motor is disabled.");
-            return;
+    public MotorTuning enableTuning(String tableName) {
+        if (tuning != null) {
+            tuning.close();
         }
+        return new MotorTuning(tableName, this);
+    }
 
-        if (speed != 0.0 && Math.abs(speed) < minSpeed) {
-            warn("Speed too slow (" + Math.abs(speed) + " < " + minSpeed + "), running at minimum speed.");
-            speed = Math.copySign(minSpeed, speed);
+    void setTuning(MotorTuning tuning) {
+        this.tuning = tuning;
+    }
+
+    MotorTuning getTuning() {
+        return tuning;
+    }
+
+    /**
+     * Starts watching this motor for stalls and overheating.
+     * 
+     * <p>The monitor samples every few loops from {@link #update()} and scales this motor's
+     * output down, or disables it, when it is in trouble.
+     * 
+     * @return the health monitor, for adjusting its limits
+     * @see MotorHealthMonitor
+     */
+    public MotorHealthMonitor enableHealthMonitor() {
+        requireTalonFX("Health monitoring");
+        if (healthMonitor == null) {
+            healthMonitor = new MotorHealthMonitor(this);
+            addStatusSignals(healthMonitor.getStatusSignals());
         }
+        return healthMonitor;
+    }
 
-        targetValue = speed;
-        hasTarget = true;
-        isHolding = false;
-        isGoTo = false;
+    /**
+     * Starts logging every input to this motor's control loop, for replaying with {@link MotorReplay}.
+     * 
+     * <p>The log is written to {@code motor-<canbus>-<id>.wtml} in the roboRIO's operating directory,
+     * replacing any log from a previous run.
+     * 
+     * @return the recorder; close it to finish the log
+     * @see MotorRecorder
+     */
+    public MotorRecorder enableRecording() {
+        return enableRecording(Filesystem.getOperatingDirectory().toPath()
+            .resolve("motor-" + canbus + "-" + io.getDeviceId() + ".wtml"));
     }
 
-    public void goTo(double target) {
-        if (!isEnabled) {
-            warn("Motor is disabled.");
-            return;
+    /**
+     * Starts logging every input to this motor's control loop, for replaying with {@link MotorReplay}.
+     * 
+     * @param file the log file to write, replacing any existing file
+     * @return the recorder; close it to finish the log
+     * @throws IllegalStateException if the log cannot be created
+     * @see MotorRecorder
+     */
+    public MotorRecorder enableRecording(Path file) {
+        if (file == null) {
+            throw new IllegalArgumentException("file cannot be null.");
+        }
+        if (recorder != null) {
+            recorder.close();
         }
 
-        targetValue = free ? wrapValue(target) : clamp(target, minValue, maxValue);
-        hasTarget = true;
-        isHolding = false;
-        isGoTo = true;
+        try {
+            recorder = new MotorRecorder(controlLoop, file, canbus + "." + io.getDeviceId());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create motor log " + file + ".", e);
+        }
+        return recorder;
     }
 
-    /** 
-     * Sets the current target position.
-     * The motor will move to and hold within the threshold of this position.
+    /**
+     * Gets the recorder, if recording has been enabled.
      * 
-     * @param target the target position for the motor as a double
+     * @return the recorder, or {@code null}
      */
-    public void setTarget(double target) {
-        goTo(target);
+    public MotorRecorder getRecorder() {
+        return recorder;
     }
 
     /**
-     * Sets the neutral mode of the motor
+     * Gets the health monitor, if one has been enabled.
      * 
-    *  @param neutralModeValue the neutral mode to apply (BRAKE or COAST)
-     * @see NeutralModeValue#Brake
-     * @see NeutralModeValue#Coast
+     * @return the health monitor, or {@code null}
      */
-    public void setNeutralMode(NeutralModeValue neutralModeValue) {
-        motor.setNeutralMode(neutralModeValue);
+    public MotorHealthMonitor getHealthMonitor() {
+        return healthMonitor;
     }
 
-    public Command brakelessReset(double durationSeconds) {
-        if (durationSeconds < 0.0) {
-            throw new IllegalArgumentException("duration must be >= 0.");
-        }
+    void setHealthScale(double healthScale) {
+        this.healthScale = healthScale;
+    }
 
-        return Commands.sequence(
-            Commands.runOnce(() -> setNeutralMode(NeutralModeValue.Coast), this),
-            Commands.waitSeconds(durationSeconds),
-            Commands.runOnce(() -> setNeutralMode(NeutralModeValue.Brake), this)
-        );
+    /**
+     * Puts this motor under the {@link PowerBudget}, which scales its output down when the
+     * battery cannot supply every motor at once.
+     * 
+     * @param priority how this motor is served relative to others, or {@code null} to take it
+     *                 out of the budget
+     * @return this motor
+     */
+    public Motor setPowerPriority(PowerBudget.Priority priority) {
+        if (priority != null) {
+            requireTalonFX("The power budget");
+        }
+        PowerBudget.register(this, priority);
+        this.powerPriority = priority;
+        return this;
     }
 
-    public double update() {
-        double speed = 0.0;
+    /**
+     * Gets this motor's priority in the {@link PowerBudget}.
+     * 
+     * @return the priority, or {@code null} if the motor is not budgeted
+     */
+    public PowerBudget.Priority getPowerPriority() {
+        return powerPriority;
+    }
 
-        if (!isEnabled || !hasTarget) {
-            return applySpeed(0.0);
-        }
+    void setBudgetScale(double budgetScale) {
+        this.budgetScale = budgetScale;
+    }
 
-        if (free && !isGoTo) {
-            speed = clamp(targetValue, -1.0, 1.0);
-            if (speed != 0.0 && Math.abs(speed) < minSpeed) {
-                speed = Math.copySign(minSpeed, speed);
-            }
-            return applySpeed(speed);
-        }
+    /**
+     * Gets the factor every output is multiplied by before it is sent to the motor.
+     * 
+     * <p>This combines the {@link MotorHealthMonitor} and {@link PowerBudget} scales. Under
+     * {@link #runAtVelocity(double)} it lowers the device's peak output instead.
+     * 
+     * @return the output scale, from 0.0 to 1.0
+     */
+    public double getOutputScale() {
+        return healthScale * budgetScale;
+    }
 
-        double currentValue = getCurrentValue();
-        double error = Math.abs(positionError(currentValue, targetValue));
+    public boolean toggleEnabled() {
+        return toggleEnabled(!controlLoop.isEnabled());
+    }
 
-        if (error <= threshold) {
-            isHolding = true;
-        } else if (error > threshold * 2.0) {
-            isHolding = false;
+    public boolean toggleEnabled(Boolean enabled) {
+        if (enabled == null) {
+            return toggleEnabled();
         }
 
-        if (isHolding) {
-            speed = holdSpeed;
-        } else {
-            speed = calculateSpeedWithAcceleration(currentValue);
+        if (enabled && !controlLoop.isEnabled() && healthMonitor != null && healthMonitor.isTripped()) {
+            healthMonitor.reset();
         }
 
-        if (!free) {
-            if (currentValue >= maxValue && speed > 0.0) {
-                speed = 0.0;
-            }
-            if (currentValue <= minValue && speed < 0.0) {
-                speed = 0.0;
-            }
+        if (!enabled) {
+            stopFollowing();
+            stopVelocity();
         }
 
+        controlLoop.setEnabled(enabled);
+        lastWarning = null;
+        if (enabled && pendingFields != 0) {
+            warn("Device settings were changed but not committed; call commit() during initialization.");
+        }
+        return enabled;
+    }
 
-        return applySpeed(speed);
+    public boolean isEnabled() {
+        return controlLoop.isEnabled();
     }
 
-    private void defaultCommand() {
-        update();
+    /**
+     * Indicates whether a {@link MotorManager} updates this motor.
+     *
+     * @return {@code true} while the motor is off the scheduler and updated by a manager
+     */
+    public boolean isManaged() {
+        return manager != null;
     }
 
-    private double calculateSpeedWithAcceleration(double currentValue) {
-        double distanceDifference = positionError(currentValue, targetValue);
-        double speed = pG * distanceDifference;
+    /**
+     * Moves the motor between the scheduler and a {@link MotorManager}.
+     *
+     * <p>A managed motor is unregistered from the scheduler, which drops its periodic and its
+     * default command; the manager updates it instead, except while a command requires it.
+     * Leaving a manager puts the default command back.
+     */
+    void setManager(MotorManager manager) {
+        boolean managed = manager != null;
+        if (managed == isManaged()) {
+            return;
+        }
+        this.manager = manager;
+
+        if (!scheduled) {
+            return;
+        }
+        if (managed) {
+            CommandScheduler.getInstance().unregisterSubsystem(this);
+        } else {
+            CommandScheduler.getInstance().registerSubsystem(this);
+            setDefaultCommand(Commands.run(this::defaultCommand, this));
+        }
+    }
 
-        double maxSpeed = distanceDifference >= 0.0
-            ? (motorUpSpeed != null ? motorUpSpeed : motorSpeed)
-            : (motorDownSpeed != null ? motorDownSpeed : motorSpeed);
-        speed = clamp(speed, -maxSpeed, maxSpeed);
+    /**
+     * Drive the motor with free rotation at the set motor speed.
+     */
+    public void drive() {
+        drive(controlLoop.getMotorSpeed());
+    }
 
+    /**
+     * Drive the motor with free rotation at the set motor speed.
+     * 
+     * @param reverse whether the direction of the motor should be reversed
+     */
+    public void drive(boolean reverse) {
+        double motorSpeed = controlLoop.getMotorSpeed();
+        drive(reverse ? -motorSpeed : motorSpeed);
+    }
+
+    /**
+     * Runs the motor with free rotation at a set speed.
+     * 
+     * @param speed the speed to run the motor at as a double ranging from -1.0 to 1.0
+     */
+    public void drive(double speed) {
+        if (!controlLoop.isFree()) {
+            throw new IllegalStateException(".drive() is disabled; use .goTo() when not using free rotation.");
+        }
+        if (!controlLoop.isEnabled()) {
+            warn("Motor is disabled.");
+            return;
+        }
+
+        double minSpeed = controlLoop.getMinSpeed();
         if (speed != 0.0 && Math.abs(speed) < minSpeed) {
+            warn("Speed too slow (" + Math.abs(speed) + " < " + minSpeed + "), running at minimum speed.");
             speed = Math.copySign(minSpeed, speed);
         }
 
-        return speed;
+        controlLoop.drive(speed);
+        stopFollowing();
+        stopVelocity();
+    }
+
+    public void goTo(double target) {
+        if (!controlLoop.isEnabled()) {
+            warn("Motor is disabled.");
+            return;
+        }
+
+        controlLoop.goTo(target);
+        stopFollowing();
+        stopVelocity();
+    }
+
+    /**
+     * Follows a precomputed trajectory, sampling it every loop instead of waiting for each
+     * {@code goTo} to settle.
+     * 
+     * <p>Once the trajectory ends the motor holds its final position, as after {@link #goTo(double)}.
+     * Calling {@code goTo} or {@code drive} stops following.
+     * 
+     * @param trajectory the trajectory to follow
+     * @return the follower, for checking progress
+     * @see #setTrajectoryGains(double, double)
+     */
+    public TrajectoryFollower follow(MotorTrajectory trajectory) {
+        TrajectoryFollower follower = new TrajectoryFollower(trajectory);
+        follow(follower);
+        return follower;
+    }
+
+    /**
+     * Follows a trajectory alongside other motors sharing the same follower.
+     * 
+     * @param follower the shared follower
+     */
+    void follow(TrajectoryFollower follower) {
+        if (!controlLoop.isEnabled()) {
+            warn("Motor is disabled.");
+            return;
+        }
+
+        MotorTrajectory trajectory = follower.getTrajectory();
+        double end = trajectory.getPosition(trajectory.getLength() - 1);
+
+        stopFollowing();
+        this.followerSlot = follower.attach();
+        this.follower = follower;
+        controlLoop.goTo(end);
+        stopVelocity();
     }
 
-    private double applySpeed(double desiredSpeed) {
-        double speed = moveTowardsCurrentSpeed(desiredSpeed);
-        currentSpeed = speed;
+    /**
+     * Leaves the trajectory being followed, so a shared follower no longer waits for this motor.
+     */
+    private void stopFollowing() {
+        TrajectoryFollower follower = this.follower;
+        if (follower != null) {
+            follower.detach(followerSlot);
+            this.follower = null;
+        }
+    }
+
+    /**
+     * Gets the follower of the trajectory being followed.
+     * 
+     * @return the follower, or {@code null} if the motor is not following a trajectory
+     */
+    public TrajectoryFollower getFollower() {
+        return follower;
+    }
+
+    /**
+     * Holds a velocity with the TalonFX's own closed loop.
+     *
+     * <p>The loop runs on the device at 1 kHz with the gains from
+     * {@link #setVelocityGains(double, double, double, double)}, so the velocity holds through
+     * battery sag and load. The device is always asked for the target itself: while
+     * {@link #getOutputScale()} is below 1.0, it is applied by lowering the device's peak output
+     * voltage, or its peak torque current, so a derated motor falls short of the target rather
+     * than being told to aim lower. Calling {@code drive}, {@code goTo} or {@code follow}, or
+     * disabling the motor, stops it and restores the peaks.
+     *
+     * @param rotationsPerSecond the target velocity
+     * @see #isAtSpeed()
+     */
+    public void runAtVelocity(double rotationsPerSecond) {
+        runAtVelocity(rotationsPerSecond, 0.0);
+    }
+
+    /**
+     * Holds a velocity with the TalonFX's own closed loop, adding a feedforward on top of the gains.
+     *
+     * @param rotationsPerSecond the target velocity
+     * @param feedForward extra output in volts, or amps with {@link #setVelocityTorqueCurrent(boolean)}
+     */
+    public void runAtVelocity(double rotationsPerSecond, double feedForward) {
+        requireTalonFX("Velocity control");
+        validateFinite(rotationsPerSecond, "rotationsPerSecond");
+        validateFinite(feedForward, "feedForward");
+        if (!controlLoop.isEnabled()) {
+            warn("Motor is disabled.");
+            return;
+        }
+
+        if (!velocityMode || rotationsPerSecond != velocityTarget) {
+            atSpeedSince = Double.NaN;
+            atSpeed = false;
+        }
+        if (dutyCycleSignal == null) {
+            // Refreshed with the motor's other signals from here on
+            dutyCycleSignal = motor.getDutyCycle(false);
+            addStatusSignals(new BaseStatusSignal[] { dutyCycleSignal });
+        }
+        if (!velocityPeaksRestored) {
+            restorePeakOutput();
+        }
+        velocityTarget = rotationsPerSecond;
+        velocityFeedForward = feedForward;
+        velocityMode = true;
+        stopFollowing();
+        // Ramping starts from rest when the motor next runs on duty cycle
+        controlLoop.setCurrentSpeed(0.0);
+    }
+
+    /**
+     * Indicates whether the motor has held its target velocity, within tolerance, for the debounce time.
+     *
+     * <p>Updated once per loop by {@link #update()}, so reading it costs nothing.
+     *
+     * @return {@code true} while at speed; always {@code false} outside velocity control
+     */
+    public boolean isAtSpeed() {
+        return atSpeed;
+    }
+
+    /**
+     * Creates a command that ends once the motor is at speed.
+     *
+     * <p>The command does not require the motor, so waiting does not interrupt whatever runs it.
+     *
+     * @return the wait command
+     */
+    public Command waitUntilAtSpeed() {
+        return Commands.waitUntil(this::isAtSpeed);
+    }
+
+    public boolean isVelocityControlled() {
+        return velocityMode;
+    }
+
+    /**
+     * Gets the target velocity last given to {@link #runAtVelocity(double)}.
+     *
+     * @return the target in rotations per second, or {@code NaN} outside velocity control
+     */
+    public double getVelocityTarget() {
+        return velocityMode ? velocityTarget : Double.NaN;
+    }
+
+    /** 
+     * Sets the current target position.
+     * The motor will move to and hold within the threshold of this position.
+     * 
+     * @param target the target position for the motor as a double
+     */
+    public void setTarget(double target) {
+        goTo(target);
+    }
+
+    /**
+     * Sets the neutral mode of the motor
+     * 
+     * <p>Before the configuration is first committed the neutral mode is only recorded and
+     * goes out with the {@link #commit()}; afterwards it is applied to the device right away.
+     * 
+    *  @param neutralModeValue the neutral mode to apply (BRAKE or COAST)
+     * @see NeutralModeValue#Brake
+     * @see NeutralModeValue#Coast
+     */
+    public void setNeutralMode(NeutralModeValue neutralModeValue) {
+        configuration.MotorOutput.NeutralMode = neutralModeValue;
+        if (!configurationCommitted) {
+            pendingFields |= NEUTRAL_MODE_FIELD;
+        } else if (motor != null) {
+            ConfigurationCache.invalidate(getCacheKey());
+            motor.setNeutralMode(neutralModeValue);
+            neutralModeApplied = true;
+        }
+    }
+
+    /**
+     * Sets the neutral mode of the motor on a worker thread, without blocking the caller.
+     *
+     * @param neutralModeValue the neutral mode to apply (BRAKE or COAST)
+     * @return a future that completes with whether the neutral mode was applied
+     * @see AsyncConfigurator
+     */
+    public CompletableFuture<Boolean> setNeutralModeAsync(NeutralModeValue neutralModeValue) {
+        configuration.MotorOutput.NeutralMode = neutralModeValue;
+        pendingFields &= ~NEUTRAL_MODE_FIELD;
+        if (motor == null) {
+            return CompletableFuture.completedFuture(true);
+        }
+        ConfigurationCache.invalidate(getCacheKey());
+        neutralModeApplied = true;
+        return AsyncConfigurator.apply(this, talon -> talon.setNeutralMode(neutralModeValue));
+    }
+
+    /**
+     * Sets the neutral mode without blocking the robot loop.
+     *
+     * <p>The change is sent with a zero timeout, which returns immediately, and then read back
+     * and re-sent if needed on a worker thread. Does nothing if the configured neutral mode
+     * already matches.
+     *
+     * @param neutralModeValue the neutral mode to apply (BRAKE or COAST)
+     */
+    public void requestNeutralMode(NeutralModeValue neutralModeValue) {
+        if (configuration.MotorOutput.NeutralMode == neutralModeValue && neutralModeApplied) {
+            return;
+        }
+
+        configuration.MotorOutput.NeutralMode = neutralModeValue;
+        pendingFields &= ~NEUTRAL_MODE_FIELD;
+        if (motor == null) {
+            return;
+        }
+        ConfigurationCache.invalidate(getCacheKey());
+        motor.setNeutralMode(neutralModeValue, 0.0);
+        neutralModeApplied = true;
+        AsyncConfigurator.apply(this, talon -> verifyNeutralMode(talon, neutralModeValue));
+    }
+
+    /**
+     * Lets the motor spin freely, whatever its neutral mode, until coasting is turned off.
+     *
+     * <p>Uses the {@code CoastOut} control request, so nothing is written to the device
+     * configuration. While coasting, {@link #update()} sends no output.
+     *
+     * @param coasting whether the motor should coast
+     */
+    public Motor setCoasting(boolean coasting) {
+        if (coasting == this.coasting) {
+            return this;
+        }
+
+        this.coasting = coasting;
+        controlLoop.setCurrentSpeed(0.0);
+        if (coasting) {
+            io.coast();
+            atSpeedSince = Double.NaN;
+            atSpeed = false;
+        }
+        return this;
+    }
+
+    public boolean isCoasting() {
+        return coasting;
+    }
+
+    /**
+     * Lets the motor coast for a while, then returns it to brake mode.
+     *
+     * <p>Coasting uses a control request rather than a configuration change, and brake mode is
+     * restored with {@link #requestNeutralMode(NeutralModeValue)}, so the command never blocks
+     * the robot loop. Brake mode is restored even if the command is interrupted.
+     *
+     * @param durationSeconds how long to coast for
+     * @return the reset command
+     */
+    public Command brakelessReset(double durationSeconds) {
+        if (durationSeconds < 0.0) {
+            throw new IllegalArgumentException("duration must be >= 0.");
+        }
+
+        return Commands.sequence(
+            Commands.runOnce(() -> setCoasting(true), this),
+            Commands.waitSeconds(durationSeconds)
+        ).finallyDo(() -> {
+            setCoasting(false);
+            requestNeutralMode(NeutralModeValue.Brake);
+        });
+    }
+
+    public double update() {
+        MotorTuning tuning = this.tuning;
+        if (tuning != null) {
+            tuning.applyPending();
+        }
+
+        MotorHealthMonitor healthMonitor = this.healthMonitor;
+        if (healthMonitor != null) {
+            healthMonitor.update(getOutput());
+        }
+
+        // The CoastOut request stays in effect until coasting ends
+        if (coasting) {
+            return 0.0;
+        }
+
+        if (velocityMode && controlLoop.isEnabled()) {
+            runVelocity();
+            return 0.0;
+        }
+
+        TrajectoryFollower follower = this.follower;
+        if (follower != null && controlLoop.isEnabled()) {
+            if (!follower.isFinished() && !follower.isCancelled()) {
+                return followTrajectory(follower);
+            }
+            // Hold wherever the trajectory left off
+            stopFollowing();
+            if (follower.isCancelled()) {
+                controlLoop.goTo(follower.getPosition());
+            }
+        }
+
+        double currentValue = controlLoop.needsPosition() ? getCurrentValue() : Double.NaN;
+        double previousSpeed = controlLoop.getCurrentSpeed();
+        boolean wasHolding = controlLoop.isHolding();
+        double speed = controlLoop.calculate(currentValue);
         set(speed);
+
+        MotorRecorder recorder = this.recorder;
+        if (recorder != null) {
+            recorder.record(clock.getAsDouble(), currentValue, previousSpeed, wasHolding, speed);
+        }
         return speed;
     }
 
-    private double moveTowardsCurrentSpeed(double desiredSpeed) {
-        double maxDelta = getRampStepSize(desiredSpeed);
-        double delta = desiredSpeed - currentSpeed;
+    private void defaultCommand() {
+        update();
+    }
+
+    private void runVelocity() {
+        deratePeakOutput(getOutputScale());
+
+        double target = velocityTarget;
+        double deviceTarget = inverted ? -target : target;
+        double feedForward = inverted ? -velocityFeedForward : velocityFeedForward;
+
+        if (velocityTorqueCurrent) {
+            if (velocityTorqueRequest == null) {
+                velocityTorqueRequest = new VelocityTorqueCurrentFOC(0.0).withSlot(VELOCITY_SLOT);
+            }
+            motor.setControl(velocityTorqueRequest.withVelocity(deviceTarget).withFeedForward(feedForward));
+        } else {
+            if (velocityVoltageRequest == null) {
+                velocityVoltageRequest = new VelocityVoltage(0.0).withSlot(VELOCITY_SLOT);
+            }
+            motor.setControl(velocityVoltageRequest.withVelocity(deviceTarget).withFeedForward(feedForward));
+        }
 
-        if (Math.abs(delta) <= maxDelta) {
-            return desiredSpeed;
+        // Judged against the caller's target, so a derated motor that falls short is not at speed
+        double now = clock.getAsDouble();
+        if (Math.abs(getVelocity() - target) > atSpeedTolerance) {
+            atSpeedSince = Double.NaN;
+        } else if (Double.isNaN(atSpeedSince)) {
+            atSpeedSince = now;
         }
+        atSpeed = !Double.isNaN(atSpeedSince) && now - atSpeedSince >= atSpeedDebounce;
+    }
 
-        return currentSpeed + Math.copySign(maxDelta, delta);
+    private void stopVelocity() {
+        velocityMode = false;
+        atSpeedSince = Double.NaN;
+        atSpeed = false;
+        if (velocityDerate != 1.0) {
+            deratePeakOutput(1.0);
+        }
     }
 
-    private double getRampStepSize(double desiredSpeed) {
-        double referenceSpeed = Math.max(
-            Math.max(motorSpeed, motorUpSpeed != null ? motorUpSpeed : 0.0),
-            motorDownSpeed != null ? motorDownSpeed : 0.0
-        );
+    /**
+     * Limits the device's peak output to a fraction of what it can give, in volts for
+     * {@code VelocityVoltage} or amps of torque current for {@code VelocityTorqueCurrentFOC}.
+     *
+     * <p>Phoenix's velocity requests carry no output limit of their own, so the limit is a
+     * configuration write, sent without waiting for the device to acknowledge it. The scale is
+     * stepped, and a limit is only raised every so often, so few writes are sent. Every field but
+     * the peaks comes from {@link #configure(Consumer)}, and the peaks are scaled from the ones
+     * configured there: voltage from at most the nominal 12 V, torque current from at most the
+     * stator current limit.
+     *
+     * <p>A lowered limit stays on the device, so while derated the {@link ConfigurationCache}
+     * forgets the device, and the next commit after a restart applies everything again.
+     *
+     * @param scale the output scale, from 0.0 to 1.0
+     */
+    private void deratePeakOutput(double scale) {
+        double stepped = scale >= 1.0 ? 1.0 : Math.ceil(scale / VELOCITY_DERATE_STEP) * VELOCITY_DERATE_STEP;
+        if (stepped == velocityDerate && velocityTorqueCurrent == velocityDerateTorqueCurrent) {
+            return;
+        }
+        double now = clock.getAsDouble();
+        if (stepped > velocityDerate && velocityTorqueCurrent == velocityDerateTorqueCurrent
+                && now - velocityDerateTime < VELOCITY_DERATE_RAISE_INTERVAL) {
+            return;
+        }
 
-        referenceSpeed = Math.max(referenceSpeed, Math.abs(desiredSpeed));
-        return referenceSpeed / accelerationSteps;
+        TalonFXConfigurator configurator = motor.getConfigurator();
+        if (velocityTorqueCurrent != velocityDerateTorqueCurrent && velocityDerate != 1.0) {
+            // The other mode's limits were lowered; put them back before limiting this one
+            sendPeakOutput(configurator, velocityDerateTorqueCurrent, 1.0);
+        }
+        if (stepped != 1.0) {
+            ConfigurationCache.invalidate(getCacheKey());
+        }
+        StatusCode status = sendPeakOutput(configurator, velocityTorqueCurrent, stepped);
+        if (!isOK(status)) {
+            warn("Could not derate velocity control: " + status.getName() + ".");
+            return;
+        }
+        velocityDerate = stepped;
+        velocityDerateTorqueCurrent = velocityTorqueCurrent;
+        velocityDerateTime = now;
+    }
+
+    /**
+     * Puts both velocity modes' peaks back to the configuration, in case a previous run of the
+     * robot program left them lowered.
+     */
+    private void restorePeakOutput() {
+        TalonFXConfigurator configurator = motor.getConfigurator();
+        StatusCode voltageStatus = sendPeakOutput(configurator, false, 1.0);
+        StatusCode torqueStatus = sendPeakOutput(configurator, true, 1.0);
+        if (!isOK(voltageStatus) || !isOK(torqueStatus)) {
+            warn("Could not restore velocity control limits.");
+            return;
+        }
+        ConfigurationCache.invalidate(getCacheKey());
+        velocityPeaksRestored = true;
+        velocityDerate = 1.0;
     }
 
-    private double positionError(double currentValue, double targetValue) {
-        if (!free) {
-            return targetValue - currentValue;
+    private StatusCode sendPeakOutput(TalonFXConfigurator configurator, boolean torqueCurrent, double scale) {
+        if (torqueCurrent) {
+            TorqueCurrentConfigs configured = configuration.TorqueCurrent;
+            if (velocityTorqueLimits == null) {
+                velocityTorqueLimits = new TorqueCurrentConfigs();
+            }
+            velocityTorqueLimits.TorqueNeutralDeadband = configured.TorqueNeutralDeadband;
+            velocityTorqueLimits.PeakForwardTorqueCurrent = configured.PeakForwardTorqueCurrent;
+            velocityTorqueLimits.PeakReverseTorqueCurrent = configured.PeakReverseTorqueCurrent;
+            if (scale < 1.0) {
+                double reference = configuration.CurrentLimits.StatorCurrentLimitEnable
+                    ? configuration.CurrentLimits.StatorCurrentLimit
+                    : Double.POSITIVE_INFINITY;
+                velocityTorqueLimits.PeakForwardTorqueCurrent = scale * Math.min(configured.PeakForwardTorqueCurrent, reference);
+                velocityTorqueLimits.PeakReverseTorqueCurrent = scale * Math.max(configured.PeakReverseTorqueCurrent, -reference);
+            }
+            return configurator.apply(velocityTorqueLimits, 0.0);
         }
 
-        double span = maxValue - minValue;
-        double raw = targetValue - currentValue;
-        double shifted = raw + span / 2.0;
-        double wrappedShifted = shifted - span * Math.floor(shifted / span);
-        return wrappedShifted - span / 2.0;
+        VoltageConfigs configured = configuration.Voltage;
+        if (velocityVoltageLimits == null) {
+            velocityVoltageLimits = new VoltageConfigs();
+        }
+        velocityVoltageLimits.SupplyVoltageTimeConstant = configured.SupplyVoltageTimeConstant;
+        velocityVoltageLimits.PeakForwardVoltage = configured.PeakForwardVoltage;
+        velocityVoltageLimits.PeakReverseVoltage = configured.PeakReverseVoltage;
+        if (scale < 1.0) {
+            velocityVoltageLimits.PeakForwardVoltage = scale * Math.min(configured.PeakForwardVoltage, NOMINAL_VOLTAGE);
+            velocityVoltageLimits.PeakReverseVoltage = scale * Math.max(configured.PeakReverseVoltage, -NOMINAL_VOLTAGE);
+        }
+        return configurator.apply(velocityVoltageLimits, 0.0);
     }
 
-    private double wrapValue(double value) {
-        double span = maxValue - minValue;
-        double shifted = value - minValue;
-        return shifted - span * Math.floor(shifted / span) + minValue;
+    private double followTrajectory(TrajectoryFollower follower) {
+        follower.update(clock.getAsDouble());
+
+        double currentValue = getCurrentValue();
+        double error = controlLoop.positionError(currentValue, follower.getPosition());
+        follower.reportSettled(followerSlot, Math.abs(error) <= controlLoop.getThreshold());
+
+        double speed = trajectoryKV * follower.getVelocity()
+            + trajectoryKA * follower.getAcceleration()
+            + controlLoop.getPG() * error;
+
+        double maxSpeed = controlLoop.getMaxSpeed(speed);
+        speed = controlLoop.limit(currentValue, clamp(speed, -maxSpeed, maxSpeed));
+
+        // The trajectory already shapes acceleration, so the ramp is skipped
+        set(speed);
+        return speed;
     }
 
     /**
      * Sets the speed of the motor while respecting the motor's inverted setting.
      * 
+     * <p>The speed sent is multiplied by {@link #getOutputScale()}.
+     * 
      * @param speed the speed of the motor as a double from -1.0 to 1.0
      */
     public void set(double speed) {
-        currentSpeed = speed;
-        double actualSpeed = inverted ? -speed : speed;
-        motor.set(actualSpeed);
+        controlLoop.setCurrentSpeed(speed);
+        double actualSpeed = (inverted ? -speed : speed) * getOutputScale();
+        io.setOutput(actualSpeed);
+    }
+
+    /**
+     * Gets the output last sent, before inversion and the output scale.
+     *
+     * <p>Under {@link #runAtVelocity(double)}, where the device's own loop decides the output,
+     * this is the duty cycle the device applies instead.
+     *
+     * @return the output, from -1.0 to 1.0
+     */
+    public double getOutput() {
+        if (velocityMode) {
+            double dutyCycle = isEverySignalRefreshedExternally()
+                ? dutyCycleSignal.getValueAsDouble()
+                : dutyCycleSignal.refresh().getValueAsDouble();
+            return inverted ? -dutyCycle : dutyCycle;
+        }
+        return controlLoop.getCurrentSpeed();
     }
 
     public double getCurrentValue() {
@@ -480,10 +1543,28 @@ public class Motor extends SubsystemBase {
         return getPosition();
     }
 
+    /**
+     * Gets the name of the CAN bus the motor is on.
+     *
+     * @return the bus name, {@code "rio"} for the roboRIO's own bus
+     */
+    public String getCanbus() {
+        return canbus;
+    }
+
+    /**
+     * Gets the TalonFX this motor drives.
+     *
+     * @return the TalonFX, or {@code null} if the motor was created on another {@link MotorIO}
+     */
     public TalonFX getTalonFX() {
         return motor;
     }
 
+    public MotorIO getIO() {
+        return io;
+    }
+
     public TalonFX getMotor() {
         return motor;
     }
@@ -492,8 +1573,309 @@ public class Motor extends SubsystemBase {
         return inverted;
     }
 
+    public double getMinValue() {
+        return controlLoop.getMinValue();
+    }
+
+    public double getMaxValue() {
+        return controlLoop.getMaxValue();
+    }
+
+    public double getMinSpeed() {
+        return controlLoop.getMinSpeed();
+    }
+
+    public double getMotorSpeed() {
+        return controlLoop.getMotorSpeed();
+    }
+
+    public Double getMotorUpSpeed() {
+        double motorUpSpeed = controlLoop.getMotorUpSpeed();
+        return Double.isNaN(motorUpSpeed) ? null : motorUpSpeed;
+    }
+
+    public Double getMotorDownSpeed() {
+        double motorDownSpeed = controlLoop.getMotorDownSpeed();
+        return Double.isNaN(motorDownSpeed) ? null : motorDownSpeed;
+    }
+
+    public boolean isFree() {
+        return controlLoop.isFree();
+    }
+
+    public double getHoldSpeed() {
+        return controlLoop.getHoldSpeed();
+    }
+
+    public double getThreshold() {
+        return controlLoop.getThreshold();
+    }
+
+    public double getPG() {
+        return controlLoop.getPG();
+    }
+
+    public int getAccelerationSteps() {
+        return controlLoop.getAccelerationSteps();
+    }
+
     public double getPosition() {
-        return motor.getPosition().getValueAsDouble();
+        return io.getPosition(!signalsRefreshedExternally);
+    }
+
+    /**
+     * Gets the motor's velocity, with the software inversion applied.
+     *
+     * @return the velocity in rotations per second, or {@code NaN} if the motor is not on a TalonFX
+     */
+    public double getVelocity() {
+        if (velocitySignal == null) {
+            return Double.NaN;
+        }
+        double velocity = signalsRefreshedExternally
+            ? velocitySignal.getValueAsDouble()
+            : velocitySignal.refresh().getValueAsDouble();
+        return inverted ? -velocity : velocity;
+    }
+
+    /**
+     * Gets the motor's position signal, fetched once when the motor is created.
+     *
+     * <p>Reading it does not refresh it; use {@link #getPosition()} for an up to date value,
+     * or refresh several motors' signals together with {@code BaseStatusSignal.refreshAll}.
+     *
+     * @return the position status signal, or {@code null} if the motor is not on a TalonFX
+     */
+    public StatusSignal<Angle> getPositionSignal() {
+        return positionSignal;
+    }
+
+    /**
+     * Gets every status signal the motor reads, for refreshing them in one batch.
+     *
+     * @return the motor's status signals
+     * @see SignalAcquisition
+     */
+    public BaseStatusSignal[] getStatusSignals() {
+        return statusSignals.clone();
+    }
+
+    /**
+     * Indicates whether something else refreshes this motor's signals once per loop.
+     *
+     * @return {@code true} while the motor reads cached values instead of refreshing its signals
+     */
+    public boolean isSignalsRefreshedExternally() {
+        return signalsRefreshedExternally;
+    }
+
+    /**
+     * Indicates whether the external refresh covers every status signal, including any added
+     * after it was built.
+     *
+     * @return {@code true} if every signal can be read from its cached value
+     */
+    boolean isEverySignalRefreshedExternally() {
+        return signalsRefreshedExternally && externallyRefreshedSignals == statusSignals;
+    }
+
+    void setSignalsRefreshedExternally(boolean signalsRefreshedExternally) {
+        this.externallyRefreshedSignals = signalsRefreshedExternally ? statusSignals : null;
+        this.signalsRefreshedExternally = signalsRefreshedExternally;
+    }
+
+    /**
+     * Adds signals to the ones refreshed with this motor's, and has its manager rebuild its refresh.
+     */
+    private void addStatusSignals(BaseStatusSignal[] signals) {
+        if (statusSignals.length == 0) {
+            return;
+        }
+        BaseStatusSignal[] combined = Arrays.copyOf(statusSignals, statusSignals.length + signals.length);
+        System.arraycopy(signals, 0, combined, statusSignals.length, signals.length);
+        statusSignals = combined;
+
+        MotorManager manager = this.manager;
+        if (manager != null) {
+            manager.invalidateSignals();
+        }
+    }
+
+    /**
+     * Applies the given settings, unless the {@link ConfigurationCache} shows the device already has them.
+     */
+    private StatusCode applyConfiguration(TalonFX talon, int fields) {
+        String key = ConfigurationCache.key(canbus, talon.getDeviceID());
+        String fingerprint = ConfigurationCache.isEnabled() ? fingerprintConfiguration(talon, fields) : null;
+
+        TalonFXConfigurator configurator = talon.getConfigurator();
+        // The recorded fingerprint only counts if this physical device still carries its marker
+        if (ConfigurationCache.matches(key, fingerprint)
+                && ConfigurationCache.deviceHasMarker(configurator, fingerprint, VERIFY_TIMEOUT_SECONDS)) {
+            return StatusCode.OK;
+        }
+
+        StatusCode status = sendConfiguration(configurator, fields);
+        if (fingerprint != null && isOK(status)) {
+            status = ConfigurationCache.writeMarker(configurator, fingerprint);
+        }
+        if (status == null || status.isOK()) {
+            ConfigurationCache.record(key, fingerprint);
+        } else {
+            ConfigurationCache.invalidate(key);
+        }
+        return status;
+    }
+
+    /**
+     * Fingerprints the configuration with the device's firmware version.
+     *
+     * @return the fingerprint, or {@code null} if the device did not report its version
+     */
+    private String fingerprintConfiguration(TalonFX talon, int fields) {
+        StatusSignal<Integer> version = talon.getVersion().waitForUpdate(VERIFY_TIMEOUT_SECONDS);
+        if (!version.getStatus().isOK()) {
+            return null;
+        }
+        return ConfigurationCache.fingerprint(fields + ";" + configuration.serialize(), version.getValue());
+    }
+
+    /**
+     * Sends the given settings. Each group they belong to is read back from the device first and
+     * only those settings are changed, so the rest of the device configuration is kept.
+     */
+    private StatusCode sendConfiguration(TalonFXConfigurator configurator, int fields) {
+        if ((fields & ALL_FIELDS) != 0) {
+            return configurator.apply(configuration);
+        }
+
+        if ((fields & MOTOR_OUTPUT_FIELDS) != 0) {
+            MotorOutputConfigs motorOutput = new MotorOutputConfigs();
+            StatusCode status = configurator.refresh(motorOutput, VERIFY_TIMEOUT_SECONDS);
+            if (!isOK(status)) {
+                return status;
+            }
+            if ((fields & INVERTED_FIELD) != 0) {
+                motorOutput.Inverted = configuration.MotorOutput.Inverted;
+            }
+            if ((fields & NEUTRAL_MODE_FIELD) != 0) {
+                motorOutput.NeutralMode = configuration.MotorOutput.NeutralMode;
+            }
+            status = configurator.apply(motorOutput);
+            if (!isOK(status)) {
+                return status;
+            }
+        }
+
+        if ((fields & CURRENT_LIMIT_FIELDS) != 0) {
+            CurrentLimitsConfigs currentLimits = new CurrentLimitsConfigs();
+            StatusCode status = configurator.refresh(currentLimits, VERIFY_TIMEOUT_SECONDS);
+            if (!isOK(status)) {
+                return status;
+            }
+            if ((fields & STATOR_LIMIT_FIELD) != 0) {
+                currentLimits.StatorCurrentLimit = configuration.CurrentLimits.StatorCurrentLimit;
+                currentLimits.StatorCurrentLimitEnable = configuration.CurrentLimits.StatorCurrentLimitEnable;
+            }
+            if ((fields & SUPPLY_LIMIT_FIELD) != 0) {
+                currentLimits.SupplyCurrentLimit = configuration.CurrentLimits.SupplyCurrentLimit;
+                currentLimits.SupplyCurrentLimitEnable = configuration.CurrentLimits.SupplyCurrentLimitEnable;
+            }
+            status = configurator.apply(currentLimits);
+            if (!isOK(status)) {
+                return status;
+            }
+        }
+
+        if ((fields & SOFT_LIMITS_FIELD) != 0) {
+            // Every soft limit setting is set together, so the group is sent whole
+            SoftwareLimitSwitchConfigs softLimits = configuration.SoftwareLimitSwitch;
+            StatusCode status = configurator.apply(softLimits);
+            if (!isOK(status)) {
+                return status;
+            }
+        }
+
+        if ((fields & SLOT0_FIELDS) != 0) {
+            Slot0Configs slot0 = new Slot0Configs();
+            StatusCode status = configurator.refresh(slot0, VERIFY_TIMEOUT_SECONDS);
+            if (!isOK(status)) {
+                return status;
+            }
+            if ((fields & SLOT0_KP_FIELD) != 0) {
+                slot0.kP = configuration.Slot0.kP;
+            }
+            if ((fields & SLOT0_KD_FIELD) != 0) {
+                slot0.kD = configuration.Slot0.kD;
+            }
+            if ((fields & SLOT0_KS_FIELD) != 0) {
+                slot0.kS = configuration.Slot0.kS;
+            }
+            if ((fields & SLOT0_KV_FIELD) != 0) {
+                slot0.kV = configuration.Slot0.kV;
+            }
+            if ((fields & SLOT0_KA_FIELD) != 0) {
+                slot0.kA = configuration.Slot0.kA;
+            }
+            status = configurator.apply(slot0);
+            if (!isOK(status)) {
+                return status;
+            }
+        }
+
+        // Slots 1 and 2 only ever carry position gains, so both are always sent together
+        if ((fields & SLOT1_FIELDS) != 0) {
+            Slot1Configs slot1 = new Slot1Configs();
+            StatusCode status = configurator.refresh(slot1, VERIFY_TIMEOUT_SECONDS);
+            if (!isOK(status)) {
+                return status;
+            }
+            slot1.kP = configuration.Slot1.kP;
+            slot1.kD = configuration.Slot1.kD;
+            status = configurator.apply(slot1);
+            if (!isOK(status)) {
+                return status;
+            }
+        }
+
+        if ((fields & SLOT2_FIELDS) != 0) {
+            Slot2Configs slot2 = new Slot2Configs();
+            StatusCode status = configurator.refresh(slot2, VERIFY_TIMEOUT_SECONDS);
+            if (!isOK(status)) {
+                return status;
+            }
+            slot2.kP = configuration.Slot2.kP;
+            slot2.kD = configuration.Slot2.kD;
+            status = configurator.apply(slot2);
+            if (!isOK(status)) {
+                return status;
+            }
+        }
+
+        return StatusCode.OK;
+    }
+
+    private static boolean isOK(StatusCode status) {
+        return status == null || status.isOK();
+    }
+
+    private String getCacheKey() {
+        return ConfigurationCache.key(canbus, io.getDeviceId());
+    }
+
+    private static StatusCode verifyNeutralMode(TalonFX talon, NeutralModeValue neutralModeValue) {
+        MotorOutputConfigs motorOutput = new MotorOutputConfigs();
+        StatusCode status = talon.getConfigurator().refresh(motorOutput, VERIFY_TIMEOUT_SECONDS);
+        if (status != null && status.isOK() && motorOutput.NeutralMode == neutralModeValue) {
+            return status;
+        }
+        return talon.setNeutralMode(neutralModeValue, VERIFY_TIMEOUT_SECONDS);
+    }
+
+    private void requireTalonFX(String feature) {
+        if (motor == null) {
+            throw new IllegalStateException(feature + " needs a TalonFX.");
+        }
     }
 
     private static void validateRange(double minValue, double maxValue) {
@@ -520,7 +1902,12 @@ public class Motor extends SubsystemBase {
         return Math.max(min, Math.min(max, value));
     }
 
-    private static void warn(String message) {
-        DriverStation.reportWarning(message, false);
+    private void warn(String message) {
+        // Report each warning once rather than every loop it is raised
+        if (message.equals(lastWarning)) {
+            return;
+        }
+        lastWarning = message;
+        warningSink.accept(message);
     }
 }
@@ -0,0 +1,401 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+/**
+ * The control law behind {@link Motor#update()}, free of any hardware or HAL dependency.
+ *
+ * <p>The loop holds a motor's motion settings, its current command (a free-drive speed or a
+ * position target), whether it is enabled, and the little state the law carries between ticks:
+ * the last output, for ramping, and whether it is holding at its target. Given a position
+ * reading, {@link #calculate(double)} returns the next output.
+ *
+ * <p>Because nothing here touches a device, the same code runs on the robot inside {@link Motor}
+ * and on a desktop JVM inside {@link MotorReplay}, so recorded matches can be replayed through it
+ * and compared output for output.
+ *
+ * <p>Setters here do not validate; {@link Motor}'s setters do before passing values on.
+ */
+public class MotorControlLoop {
+    static final double DEFAULT_MIN_VALUE = -1.0;
+    static final double DEFAULT_MAX_VALUE = 1.0;
+    static final double DEFAULT_MIN_SPEED = 0.0;
+    static final double DEFAULT_MOTOR_SPEED = 1.0;
+    static final boolean DEFAULT_FREE = true;
+    static final double DEFAULT_HOLD_SPEED = 0.0;
+    static final double DEFAULT_THRESHOLD = 0.025;
+    static final double DEFAULT_PG = 0.1;
+    static final int DEFAULT_ACCELERATION_STEPS = 50;
+
+    private double minValue = DEFAULT_MIN_VALUE;
+    private double maxValue = DEFAULT_MAX_VALUE;
+    private double minSpeed = DEFAULT_MIN_SPEED;
+    private double motorSpeed = DEFAULT_MOTOR_SPEED;
+    /** {@code NaN} when unset, so the loop never unboxes. */
+    private double motorUpSpeed = Double.NaN;
+    private double motorDownSpeed = Double.NaN;
+    private boolean free = DEFAULT_FREE;
+    private double holdSpeed = DEFAULT_HOLD_SPEED;
+    private double threshold = DEFAULT_THRESHOLD;
+    private double pG = DEFAULT_PG;
+    private int accelerationSteps = DEFAULT_ACCELERATION_STEPS;
+
+    /** Bumped by every settings change, so recorders know when to log the settings again. */
+    private int settingsVersion = 0;
+
+    private double targetValue = 0.0;
+    private boolean hasTarget = false;
+    private boolean isGoTo = false;
+    private boolean enabled = false;
+
+    private boolean isHolding = false;
+    private double currentSpeed = 0.0;
+
+    /**
+     * Calculates the next output.
+     *
+     * @param currentValue the position reading; only used when {@link #needsPosition()} is {@code true}
+     * @return the output to send, from -1.0 to 1.0
+     */
+    public double calculate(double currentValue) {
+        if (!enabled || !hasTarget) {
+            return ramp(0.0);
+        }
+
+        double speed;
+        if (free && !isGoTo) {
+            speed = clamp(targetValue, -1.0, 1.0);
+            if (speed != 0.0 && Math.abs(speed) < minSpeed) {
+                speed = Math.copySign(minSpeed, speed);
+            }
+            return ramp(speed);
+        }
+
+        double error = Math.abs(positionError(currentValue, targetValue));
+
+        if (error <= threshold) {
+            isHolding = true;
+        } else if (error > threshold * 2.0) {
+            isHolding = false;
+        }
+
+        if (isHolding) {
+            speed = holdSpeed;
+        } else {
+            speed = calculateSpeedWithAcceleration(currentValue);
+        }
+
+        return ramp(limit(currentValue, speed));
+    }
+
+    /**
+     * Indicates whether the next {@link #calculate(double)} reads the position, so callers can
+     * skip reading it when it is not needed.
+     *
+     * @return {@code true} if the loop is enabled and moving to a position target
+     */
+    public boolean needsPosition() {
+        return enabled && hasTarget && (!free || isGoTo);
+    }
+
+    /**
+     * Stops an output from driving past the range of a motor that is not free.
+     *
+     * @param currentValue the position reading
+     * @param speed the output
+     * @return the output, or 0 if it would drive further past a limit
+     */
+    public double limit(double currentValue, double speed) {
+        if (!free) {
+            if (currentValue >= maxValue && speed > 0.0) {
+                return 0.0;
+            }
+            if (currentValue <= minValue && speed < 0.0) {
+                return 0.0;
+            }
+        }
+        return speed;
+    }
+
+    /**
+     * Gets the speed cap for moving in a direction.
+     *
+     * @param direction the direction of travel; positive is up
+     * @return the up or down speed if set, otherwise the motor speed
+     */
+    public double getMaxSpeed(double direction) {
+        double speed = direction >= 0.0 ? motorUpSpeed : motorDownSpeed;
+        return Double.isNaN(speed) ? motorSpeed : speed;
+    }
+
+    /**
+     * Gets the signed distance from a position to a target, taking the short way around for free motors.
+     *
+     * @param currentValue the position
+     * @param targetValue the target
+     * @return the distance to travel
+     */
+    public double positionError(double currentValue, double targetValue) {
+        if (!free) {
+            return targetValue - currentValue;
+        }
+
+        double span = maxValue - minValue;
+        double raw = targetValue - currentValue;
+        double shifted = raw + span / 2.0;
+        double wrappedShifted = shifted - span * Math.floor(shifted / span);
+        return wrappedShifted - span / 2.0;
+    }
+
+    /**
+     * Brings a target into range: wrapped for free motors, clamped otherwise.
+     *
+     * @param target the requested target
+     * @return the target the loop will use
+     */
+    public double normalizeTarget(double target) {
+        if (!free) {
+            return clamp(target, minValue, maxValue);
+        }
+        double span = maxValue - minValue;
+        double shifted = target - minValue;
+        return shifted - span * Math.floor(shifted / span) + minValue;
+    }
+
+    /**
+     * Runs freely at a speed.
+     *
+     * @param speed the speed, from -1.0 to 1.0
+     */
+    public void drive(double speed) {
+        targetValue = speed;
+        hasTarget = true;
+        isHolding = false;
+        isGoTo = false;
+    }
+
+    /**
+     * Moves to and holds a position.
+     *
+     * @param target the target position; it is normalized with {@link #normalizeTarget(double)}
+     */
+    public void goTo(double target) {
+        targetValue = normalizeTarget(target);
+        hasTarget = true;
+        isHolding = false;
+        isGoTo = true;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Puts the loop back into a recorded state, so a replay can pick up at any tick.
+     *
+     * @param targetValue the target, already normalized
+     * @param hasTarget whether a command had been given
+     * @param isGoTo whether the command is a position target rather than a free-drive speed
+     * @param enabled whether the loop is enabled
+     * @param isHolding whether the loop is holding at its target
+     * @param currentSpeed the output last sent
+     */
+    public void restoreState(double targetValue, boolean hasTarget, boolean isGoTo, boolean enabled,
+            boolean isHolding, double currentSpeed) {
+        this.targetValue = targetValue;
+        this.hasTarget = hasTarget;
+        this.isGoTo = isGoTo;
+        this.enabled = enabled;
+        this.isHolding = isHolding;
+        this.currentSpeed = currentSpeed;
+    }
+
+    /**
+     * Records an output sent outside the loop, so the next ramp starts from it.
+     *
+     * @param currentSpeed the output last sent
+     */
+    public void setCurrentSpeed(double currentSpeed) {
+        this.currentSpeed = currentSpeed;
+    }
+
+    public void setMinValue(double minValue) {
+        this.minValue = minValue;
+        settingsVersion++;
+    }
+
+    public void setMaxValue(double maxValue) {
+        this.maxValue = maxValue;
+        settingsVersion++;
+    }
+
+    public void setMinSpeed(double minSpeed) {
+        this.minSpeed = minSpeed;
+        settingsVersion++;
+    }
+
+    public void setMotorSpeed(double motorSpeed) {
+        this.motorSpeed = motorSpeed;
+        settingsVersion++;
+    }
+
+    /**
+     * Sets the upward speed cap.
+     *
+     * @param motorUpSpeed the cap, or {@code NaN} to use the motor speed
+     */
+    public void setMotorUpSpeed(double motorUpSpeed) {
+        this.motorUpSpeed = motorUpSpeed;
+        settingsVersion++;
+    }
+
+    /**
+     * Sets the downward speed cap.
+     *
+     * @param motorDownSpeed the cap, or {@code NaN} to use the motor speed
+     */
+    public void setMotorDownSpeed(double motorDownSpeed) {
+        this.motorDownSpeed = motorDownSpeed;
+        settingsVersion++;
+    }
+
+    public void setFree(boolean free) {
+        this.free = free;
+        settingsVersion++;
+    }
+
+    public void setHoldSpeed(double holdSpeed) {
+        this.holdSpeed = holdSpeed;
+        settingsVersion++;
+    }
+
+    public void setThreshold(double threshold) {
+        this.threshold = threshold;
+        settingsVersion++;
+    }
+
+    public void setPG(double pG) {
+        this.pG = pG;
+        settingsVersion++;
+    }
+
+    public void setAccelerationSteps(int accelerationSteps) {
+        this.accelerationSteps = accelerationSteps;
+        settingsVersion++;
+    }
+
+    public double getMinValue() {
+        return minValue;
+    }
+
+    public double getMaxValue() {
+        return maxValue;
+    }
+
+    public double getMinSpeed() {
+        return minSpeed;
+    }
+
+    public double getMotorSpeed() {
+        return motorSpeed;
+    }
+
+    public double getMotorUpSpeed() {
+        return motorUpSpeed;
+    }
+
+    public double getMotorDownSpeed() {
+        return motorDownSpeed;
+    }
+
+    public boolean isFree() {
+        return free;
+    }
+
+    public double getHoldSpeed() {
+        return holdSpeed;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public double getPG() {
+        return pG;
+    }
+
+    public int getAccelerationSteps() {
+        return accelerationSteps;
+    }
+
+    public int getSettingsVersion() {
+        return settingsVersion;
+    }
+
+    public double getTargetValue() {
+        return targetValue;
+    }
+
+    public boolean hasTarget() {
+        return hasTarget;
+    }
+
+    public boolean isGoTo() {
+        return isGoTo;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isHolding() {
+        return isHolding;
+    }
+
+    public double getCurrentSpeed() {
+        return currentSpeed;
+    }
+
+    private double calculateSpeedWithAcceleration(double currentValue) {
+        double distanceDifference = positionError(currentValue, targetValue);
+        double speed = pG * distanceDifference;
+
+        double maxSpeed = getMaxSpeed(distanceDifference);
+        speed = clamp(speed, -maxSpeed, maxSpeed);
+
+        if (speed != 0.0 && Math.abs(speed) < minSpeed) {
+            speed = Math.copySign(minSpeed, speed);
+        }
+
+        return speed;
+    }
+
+    private double ramp(double desiredSpeed) {
+        double speed = moveTowardsCurrentSpeed(desiredSpeed);
+        currentSpeed = speed;
+        return speed;
+    }
+
+    private double moveTowardsCurrentSpeed(double desiredSpeed) {
+        double maxDelta = getRampStepSize(desiredSpeed);
+        double delta = desiredSpeed - currentSpeed;
+
+        if (Math.abs(delta) <= maxDelta) {
+            return desiredSpeed;
+        }
+
+        return currentSpeed + Math.copySign(maxDelta, delta);
+    }
+
+    private double getRampStepSize(double desiredSpeed) {
+        double referenceSpeed = Math.max(
+            Math.max(motorSpeed, Double.isNaN(motorUpSpeed) ? 0.0 : motorUpSpeed),
+            Double.isNaN(motorDownSpeed) ? 0.0 : motorDownSpeed
+        );
+
+        referenceSpeed = Math.max(referenceSpeed, Math.abs(desiredSpeed));
+        return referenceSpeed / accelerationSteps;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
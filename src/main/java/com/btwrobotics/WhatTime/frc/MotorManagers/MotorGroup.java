@@ -1,8 +1,10 @@
 package com.btwrobotics.WhatTime.frc.MotorManagers;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.DoubleSupplier;
 
+import com.ctre.phoenix6.StatusCode;
 import com.ctre.phoenix6.signals.NeutralModeValue;
 
 import edu.wpi.first.wpilibj2.command.Command;
@@ -14,6 +16,7 @@ import edu.wpi.first.wpilibj2.command.SubsystemBase;
  */
 public class MotorGroup extends SubsystemBase {
     private final List<Motor> motors;
+    private final PositionAggregator positionAggregator;
 
     public MotorGroup(List<Motor> motors) {
         if (motors == null || motors.isEmpty()) {
@@ -21,6 +24,7 @@ public class MotorGroup extends SubsystemBase {
         }
 
         this.motors = motors;
+        this.positionAggregator = new PositionAggregator(motors);
     }
 
     public boolean toggleEnabled() {
@@ -51,6 +55,59 @@ public class MotorGroup extends SubsystemBase {
         return this;
     }
 
+    public MotorGroup setDeviceInverted(boolean deviceInverted) {
+        for (Motor motor : motors) {
+            motor.setDeviceInverted(deviceInverted);
+        }
+        return this;
+    }
+
+    public MotorGroup setStatorCurrentLimit(Double amps) {
+        for (Motor motor : motors) {
+            motor.setStatorCurrentLimit(amps);
+        }
+        return this;
+    }
+
+    public MotorGroup setSupplyCurrentLimit(Double amps) {
+        for (Motor motor : motors) {
+            motor.setSupplyCurrentLimit(amps);
+        }
+        return this;
+    }
+
+    public MotorGroup setSoftLimits(double reverseLimit, double forwardLimit) {
+        for (Motor motor : motors) {
+            motor.setSoftLimits(reverseLimit, forwardLimit);
+        }
+        return this;
+    }
+
+    /**
+     * Sends every motor's pending device settings, one blocking apply per motor.
+     *
+     * @return whether every motor was configured
+     * @see Motor#commit()
+     */
+    public boolean commit() {
+        boolean allConfigured = true;
+        for (Motor motor : motors) {
+            StatusCode status = motor.commit();
+            allConfigured &= status == null || status.isOK();
+        }
+        return allConfigured;
+    }
+
+    /**
+     * Sends every motor's pending device settings concurrently, without blocking.
+     *
+     * @return a future that completes with whether every motor was configured
+     * @see AsyncConfigurator#commitAll(List)
+     */
+    public CompletableFuture<Boolean> commitAsync() {
+        return AsyncConfigurator.commitAll(motors);
+    }
+
     public MotorGroup setMinValue(double minValue) {
         for (Motor motor : motors) {
             motor.setMinValue(minValue);
@@ -128,6 +185,33 @@ public class MotorGroup extends SubsystemBase {
         return this;
     }
 
+    public MotorGroup setTrajectoryGains(double kV, double kA) {
+        for (Motor motor : motors) {
+            motor.setTrajectoryGains(kV, kA);
+        }
+        return this;
+    }
+
+    /**
+     * Publishes the group's parameters to NetworkTables so they can be tuned live.
+     * 
+     * <p>Every change is applied to all motors in the group at the start of their next update.
+     * 
+     * @param tableName the NetworkTables table to publish the parameters under
+     * @return the tuning binding; close it to stop listening for changes
+     * @see MotorTuning
+     */
+    public MotorTuning enableTuning(String tableName) {
+        // Like Motor.enableTuning, replace any binding the motors already have
+        for (Motor motor : motors) {
+            MotorTuning tuning = motor.getTuning();
+            if (tuning != null) {
+                tuning.close();
+            }
+        }
+        return new MotorTuning(tableName, motors);
+    }
+
     public void drive() {
         for (Motor motor : motors) {
             motor.drive();
@@ -150,25 +234,140 @@ public class MotorGroup extends SubsystemBase {
         goTo(target);
     }
 
+    public void runAtVelocity(double rotationsPerSecond) {
+        for (Motor motor : motors) {
+            motor.runAtVelocity(rotationsPerSecond);
+        }
+    }
+
+    public MotorGroup setVelocityGains(double kP, double kS, double kV, double kA) {
+        for (Motor motor : motors) {
+            motor.setVelocityGains(kP, kS, kV, kA);
+        }
+        return this;
+    }
+
+    /**
+     * Indicates whether every motor in the group is at speed.
+     *
+     * @return {@code true} once all the motors are at speed
+     * @see Motor#isAtSpeed()
+     */
+    public boolean isAtSpeed() {
+        for (Motor motor : motors) {
+            if (!motor.isAtSpeed()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a command that ends once every motor is at speed, without requiring the group.
+     *
+     * @return the wait command
+     */
+    public Command waitUntilAtSpeed() {
+        return Commands.waitUntil(this::isAtSpeed);
+    }
+
+    /**
+     * Has every motor follow the same trajectory in step.
+     * 
+     * <p>The motors share one {@link TrajectoryFollower}, so they sample the same setpoint each
+     * loop and every stop waits for all of them.
+     * 
+     * @param trajectory the trajectory to follow
+     * @return the shared follower, for checking progress
+     * @see Motor#follow(MotorTrajectory)
+     */
+    public TrajectoryFollower follow(MotorTrajectory trajectory) {
+        TrajectoryFollower follower = new TrajectoryFollower(trajectory);
+        for (Motor motor : motors) {
+            motor.follow(follower);
+        }
+        return follower;
+    }
+
     public void setNeutralMode(NeutralModeValue neutralModeValue) {
         for (Motor motor : motors) {
             motor.setNeutralMode(neutralModeValue);
         }
     }
 
+    /**
+     * Sets the neutral mode of every motor concurrently, without blocking the caller.
+     *
+     * @param neutralModeValue the neutral mode to apply (BRAKE or COAST)
+     * @return a future that completes with whether every motor was configured
+     * @see AsyncConfigurator
+     */
+    public CompletableFuture<Boolean> setNeutralModeAsync(NeutralModeValue neutralModeValue) {
+        // Each motor records the mode and invalidates its cached configuration before sending it
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Boolean>[] futures = new CompletableFuture[motors.size()];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = motors.get(i).setNeutralModeAsync(neutralModeValue);
+        }
+        return AsyncConfigurator.allSucceeded(futures);
+    }
+
+    public void requestNeutralMode(NeutralModeValue neutralModeValue) {
+        for (Motor motor : motors) {
+            motor.requestNeutralMode(neutralModeValue);
+        }
+    }
+
+    public MotorGroup setCoasting(boolean coasting) {
+        for (Motor motor : motors) {
+            motor.setCoasting(coasting);
+        }
+        return this;
+    }
+
+    /**
+     * Lets every motor coast for a while, then returns them to brake mode without blocking.
+     *
+     * @param durationSeconds how long to coast for
+     * @return the reset command
+     * @see Motor#brakelessReset(double)
+     */
     public Command brakelessReset(double durationSeconds) {
         if (durationSeconds < 0.0) {
             throw new IllegalArgumentException("duration must be >= 0.");
         }
 
         return Commands.sequence(
-            Commands.runOnce(() -> setNeutralMode(NeutralModeValue.Coast), this),
-            Commands.waitSeconds(durationSeconds),
-            Commands.runOnce(() -> setNeutralMode(NeutralModeValue.Brake), this)
-        );
+            Commands.runOnce(() -> setCoasting(true), this),
+            Commands.waitSeconds(durationSeconds)
+        ).finallyDo(() -> {
+            setCoasting(false);
+            requestNeutralMode(NeutralModeValue.Brake);
+        });
     }
 
     public List<Motor> getMotors() {
         return motors;
     }
+
+    /**
+     * Reads every motor's position and combines them, leaving out motors that are stale or
+     * disagree with the rest.
+     *
+     * @return the group's position, or {@code NaN} if no motor has a fresh reading
+     * @see PositionAggregator
+     */
+    public double getPosition() {
+        return positionAggregator.update();
+    }
+
+    /**
+     * Gets the aggregator behind {@link #getPosition()}, for tuning its band and maximum age
+     * or checking which motors were rejected.
+     *
+     * @return the group's position aggregator
+     */
+    public PositionAggregator getPositionAggregator() {
+        return positionAggregator;
+    }
 }
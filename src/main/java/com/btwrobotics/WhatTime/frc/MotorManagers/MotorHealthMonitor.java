@@ -0,0 +1,346 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.hardware.TalonFX;
+
+import edu.wpi.first.units.measure.AngularVelocity;
+import edu.wpi.first.units.measure.Current;
+import edu.wpi.first.units.measure.Temperature;
+import edu.wpi.first.wpilibj.Alert;
+import edu.wpi.first.wpilibj.Alert.AlertType;
+
+/**
+ * Watches a {@link Motor} for stalls and overheating, and backs its output off before it is damaged.
+ *
+ * <p>Every few loops the motor's stator and supply current, velocity and temperature are sampled.
+ * Enabling the monitor adds its signals to the motor's {@link Motor#getStatusSignals() status
+ * signals}, so a {@link MotorManager} or {@link SignalAcquisition} refreshes them with the rest and
+ * the monitor reads the cached values; a motor that refreshes its own signals has them refreshed
+ * in one batched call when a sample is due. The motor is stalled while it is commanded to move, draws more than the
+ * stall current and barely turns. A stall that lasts longer than the stall time derates the
+ * motor's output; one that lasts longer than the disable time disables the motor until it is
+ * re-enabled. Temperature derates the output linearly between the derate and disable temperatures,
+ * and a rising temperature trend raises a warning before the motor gets there.
+ *
+ * <p>Each condition raises a WPILib {@link Alert}. Sampling keeps only primitive state, so
+ * monitoring allocates nothing after construction.
+ *
+ * <pre>
+ * elevator.enableHealthMonitor()
+ *     .setStallCurrent(60.0)
+ *     .setTemperatureLimits(70.0, 90.0);
+ * </pre>
+ */
+public class MotorHealthMonitor {
+    private static final int DEFAULT_SAMPLE_PERIOD_LOOPS = 10;
+    private static final double DEFAULT_STALL_CURRENT = 40.0;
+    private static final double DEFAULT_STALL_VELOCITY = 0.5;
+    private static final double DEFAULT_STALL_OUTPUT = 0.02;
+    private static final double DEFAULT_STALL_TIME = 0.5;
+    private static final double DEFAULT_STALL_DISABLE_TIME = 2.0;
+    private static final double DEFAULT_STALL_SCALE = 0.25;
+    private static final double DEFAULT_DERATE_TEMPERATURE = 70.0;
+    private static final double DEFAULT_DISABLE_TEMPERATURE = 90.0;
+    private static final double MIN_THERMAL_SCALE = 0.2;
+
+    /** How far ahead a rising temperature trend is projected, in seconds. */
+    private static final double TREND_HORIZON = 30.0;
+
+    /** Smoothing applied to the temperature slope, from 0 (none) to 1 (frozen). */
+    private static final double TREND_SMOOTHING = 0.8;
+
+    private final Motor motor;
+    private final StatusSignal<Current> statorCurrentSignal;
+    private final StatusSignal<Current> supplyCurrentSignal;
+    private final StatusSignal<AngularVelocity> velocitySignal;
+    private final StatusSignal<Temperature> temperatureSignal;
+    private final BaseStatusSignal[] signals;
+    /** The signals the motor does not already read, added to its status signals. */
+    private final BaseStatusSignal[] addedSignals;
+
+    private final Alert stallAlert;
+    private final Alert thermalAlert;
+    private final Alert disabledAlert;
+
+    private int samplePeriodLoops = DEFAULT_SAMPLE_PERIOD_LOOPS;
+    private double stallCurrent = DEFAULT_STALL_CURRENT;
+    private double stallVelocity = DEFAULT_STALL_VELOCITY;
+    private double stallTime = DEFAULT_STALL_TIME;
+    private double stallDisableTime = DEFAULT_STALL_DISABLE_TIME;
+    private double stallScale = DEFAULT_STALL_SCALE;
+    private double derateTemperature = DEFAULT_DERATE_TEMPERATURE;
+    private double disableTemperature = DEFAULT_DISABLE_TEMPERATURE;
+
+    private int loopsUntilSample = 0;
+
+    private double statorCurrent;
+    private double supplyCurrent;
+    private double velocity;
+    private double temperature = Double.NaN;
+    private double temperatureSlope = 0.0;
+    private double lastSampleTime = Double.NaN;
+
+    /** When the current stall began, or {@code NaN} if the motor is not stalled. */
+    private double stallStart = Double.NaN;
+    private boolean tripped = false;
+    private double outputScale = 1.0;
+
+    MotorHealthMonitor(Motor motor) {
+        this.motor = motor;
+
+        TalonFX talon = motor.getTalonFX();
+        this.statorCurrentSignal = talon.getStatorCurrent(false);
+        this.supplyCurrentSignal = talon.getSupplyCurrent(false);
+        this.velocitySignal = talon.getVelocity(false);
+        this.temperatureSignal = talon.getDeviceTemp(false);
+        this.signals = new BaseStatusSignal[] {
+            statorCurrentSignal, supplyCurrentSignal, velocitySignal, temperatureSignal
+        };
+        this.addedSignals = new BaseStatusSignal[] { statorCurrentSignal, supplyCurrentSignal, temperatureSignal };
+
+        String name = "Motor " + motor.getCanbus() + "." + talon.getDeviceID();
+        this.stallAlert = new Alert(name + " is stalled; output derated.", AlertType.kWarning);
+        this.thermalAlert = new Alert(name + " is running hot; output derated.", AlertType.kWarning);
+        this.disabledAlert = new Alert(name + " was disabled to protect it.", AlertType.kError);
+    }
+
+    /**
+     * Sets how many loops pass between samples.
+     *
+     * @param samplePeriodLoops the number of loops per sample, at least 1
+     * @return this monitor
+     */
+    public MotorHealthMonitor setSamplePeriodLoops(int samplePeriodLoops) {
+        if (samplePeriodLoops < 1) {
+            throw new IllegalArgumentException("samplePeriodLoops must be >= 1.");
+        }
+        this.samplePeriodLoops = samplePeriodLoops;
+        return this;
+    }
+
+    /**
+     * Sets the stator current above which a motor that is not turning counts as stalled.
+     *
+     * @param amps the stall current in amps
+     * @return this monitor
+     */
+    public MotorHealthMonitor setStallCurrent(double amps) {
+        validatePositive(amps, "stallCurrent");
+        this.stallCurrent = amps;
+        return this;
+    }
+
+    /**
+     * Sets the speed below which a motor drawing stall current counts as not turning.
+     *
+     * @param rotationsPerSecond the stall velocity
+     * @return this monitor
+     */
+    public MotorHealthMonitor setStallVelocity(double rotationsPerSecond) {
+        validatePositive(rotationsPerSecond, "stallVelocity");
+        this.stallVelocity = rotationsPerSecond;
+        return this;
+    }
+
+    /**
+     * Sets how long a stall lasts before the output is derated, and before the motor is disabled.
+     *
+     * @param derateSeconds the stall time before derating
+     * @param disableSeconds the stall time before disabling; must be longer
+     * @return this monitor
+     */
+    public MotorHealthMonitor setStallTimes(double derateSeconds, double disableSeconds) {
+        validatePositive(derateSeconds, "derateSeconds");
+        validatePositive(disableSeconds, "disableSeconds");
+        if (disableSeconds <= derateSeconds) {
+            throw new IllegalArgumentException("disableSeconds must be greater than derateSeconds.");
+        }
+        this.stallTime = derateSeconds;
+        this.stallDisableTime = disableSeconds;
+        return this;
+    }
+
+    /**
+     * Sets the fraction of output a stalled motor is allowed.
+     *
+     * @param stallScale the output scale while stalled, from 0.0 to 1.0
+     * @return this monitor
+     */
+    public MotorHealthMonitor setStallScale(double stallScale) {
+        if (!(stallScale >= 0.0 && stallScale <= 1.0)) {
+            throw new IllegalArgumentException("stallScale must be between 0.0 and 1.0.");
+        }
+        this.stallScale = stallScale;
+        return this;
+    }
+
+    /**
+     * Sets the temperatures at which output starts to derate and at which the motor is disabled.
+     *
+     * @param derateCelsius the temperature derating starts at
+     * @param disableCelsius the temperature the motor is disabled at; must be higher
+     * @return this monitor
+     */
+    public MotorHealthMonitor setTemperatureLimits(double derateCelsius, double disableCelsius) {
+        if (!Double.isFinite(derateCelsius) || !Double.isFinite(disableCelsius) || disableCelsius <= derateCelsius) {
+            throw new IllegalArgumentException("disableCelsius must be greater than derateCelsius.");
+        }
+        this.derateTemperature = derateCelsius;
+        this.disableTemperature = disableCelsius;
+        return this;
+    }
+
+    /**
+     * Samples the motor if a sample is due and updates the output scale.
+     *
+     * <p>Called by {@link Motor#update()} every loop.
+     *
+     * @param appliedOutput the output the motor is being driven at, from -1.0 to 1.0
+     */
+    void update(double appliedOutput) {
+        if (--loopsUntilSample > 0) {
+            return;
+        }
+        loopsUntilSample = samplePeriodLoops;
+
+        // Batched with the motor's other signals when they are refreshed together
+        if (!motor.isEverySignalRefreshedExternally()) {
+            BaseStatusSignal.refreshAll(signals);
+        }
+        double now = motor.now();
+
+        statorCurrent = Math.abs(statorCurrentSignal.getValueAsDouble());
+        supplyCurrent = Math.abs(supplyCurrentSignal.getValueAsDouble());
+        velocity = velocitySignal.getValueAsDouble();
+        updateTemperature(temperatureSignal.getValueAsDouble(), now);
+
+        boolean stalled = Math.abs(appliedOutput) > DEFAULT_STALL_OUTPUT
+            && statorCurrent > stallCurrent
+            && Math.abs(velocity) < stallVelocity;
+
+        if (!stalled) {
+            stallStart = Double.NaN;
+        } else if (Double.isNaN(stallStart)) {
+            stallStart = now;
+        }
+        double stallDuration = stalled ? now - stallStart : 0.0;
+
+        double scale = 1.0;
+        if (stallDuration >= stallTime) {
+            scale = stallScale;
+        }
+        double thermalScale = thermalScale();
+        scale = Math.min(scale, thermalScale);
+
+        if (stallDuration >= stallDisableTime || temperature >= disableTemperature) {
+            trip();
+        }
+
+        stallAlert.set(stallDuration >= stallTime);
+        thermalAlert.set(thermalScale < 1.0 || isHeating());
+
+        outputScale = tripped ? 0.0 : scale;
+        motor.setHealthScale(outputScale);
+    }
+
+    /**
+     * Clears a disable caused by the monitor. Enabling the motor again does this automatically.
+     */
+    public void reset() {
+        tripped = false;
+        stallStart = Double.NaN;
+        outputScale = 1.0;
+        disabledAlert.set(false);
+        motor.setHealthScale(outputScale);
+    }
+
+    public double getOutputScale() {
+        return outputScale;
+    }
+
+    /**
+     * Indicates whether the monitor has disabled the motor.
+     *
+     * @return {@code true} until {@link #reset()} is called
+     */
+    public boolean isTripped() {
+        return tripped;
+    }
+
+    public boolean isStalled() {
+        return !Double.isNaN(stallStart);
+    }
+
+    /**
+     * Indicates whether the temperature is rising fast enough to reach the disable temperature
+     * within the trend horizon.
+     *
+     * @return {@code true} while the motor is heating towards its limit
+     */
+    public boolean isHeating() {
+        return temperatureSlope > 0.0
+            && temperature + temperatureSlope * TREND_HORIZON >= disableTemperature;
+    }
+
+    public double getStatorCurrent() {
+        return statorCurrent;
+    }
+
+    public double getSupplyCurrent() {
+        return supplyCurrent;
+    }
+
+    public double getVelocity() {
+        return velocity;
+    }
+
+    public double getTemperature() {
+        return temperature;
+    }
+
+    /**
+     * Gets the smoothed rate of temperature change.
+     *
+     * @return the temperature slope in degrees Celsius per second
+     */
+    public double getTemperatureSlope() {
+        return temperatureSlope;
+    }
+
+    BaseStatusSignal[] getStatusSignals() {
+        return addedSignals;
+    }
+
+    private void updateTemperature(double sample, double now) {
+        if (!Double.isNaN(temperature) && now > lastSampleTime) {
+            double slope = (sample - temperature) / (now - lastSampleTime);
+            temperatureSlope = TREND_SMOOTHING * temperatureSlope + (1.0 - TREND_SMOOTHING) * slope;
+        }
+        temperature = sample;
+        lastSampleTime = now;
+    }
+
+    private double thermalScale() {
+        if (!(temperature > derateTemperature)) {
+            return 1.0;
+        }
+        double fraction = (temperature - derateTemperature) / (disableTemperature - derateTemperature);
+        return Math.max(MIN_THERMAL_SCALE, 1.0 - fraction * (1.0 - MIN_THERMAL_SCALE));
+    }
+
+    private void trip() {
+        if (tripped) {
+            return;
+        }
+        tripped = true;
+        disabledAlert.set(true);
+        motor.toggleEnabled(false);
+    }
+
+    private static void validatePositive(double value, String name) {
+        if (!(value > 0.0) || !Double.isFinite(value)) {
+            throw new IllegalArgumentException(name + " must be > 0.");
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+/**
+ * The device side of a {@link Motor}: the few calls its control loop makes every tick.
+ *
+ * <p>{@link Motor} only talks to its device through this interface on the hot path, so its
+ * logic can run against {@link FakeMotorIO} in unit tests, benchmarks and replays, with no HAL,
+ * native libraries or CAN bus. Device configuration, which only happens at startup or on rare
+ * changes, stays specific to {@link TalonFXIO}.
+ *
+ * <p>A robot program only ever loads {@link TalonFXIO}, so the JIT sees a single implementation
+ * and calls through this interface as cheaply as calling the TalonFX directly. Keep it that way
+ * by not loading other implementations in robot code.
+ */
+public interface MotorIO {
+    /**
+     * Sends a duty-cycle output.
+     *
+     * @param output the output, from -1.0 to 1.0, already inverted and scaled
+     */
+    void setOutput(double output);
+
+    /**
+     * Reads the position.
+     *
+     * @param refresh whether to fetch a new reading first, rather than use the latest one received
+     * @return the position in rotations
+     */
+    double getPosition(boolean refresh);
+
+    /**
+     * Lets the motor spin freely until the next output is sent.
+     */
+    void coast();
+
+    int getDeviceId();
+
+    /**
+     * Gets the name of the CAN bus the device is on.
+     *
+     * @return the bus name
+     */
+    String getCanbus();
+}
@@ -0,0 +1,323 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.btwrobotics.WhatTime.frc.DashboardManagers.Telemetry;
+import com.btwrobotics.WhatTime.frc.DriverStation.MatchState;
+
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+
+/**
+ * Updates many motors from one subsystem, instead of one subsystem and default command each.
+ *
+ * <p>A registered {@link Motor} is taken off the {@code CommandScheduler}: it no longer has a
+ * periodic or a default command of its own. A command that requires it still takes it over, as
+ * it would from the default command: while the command runs, such as a {@code SmartBrakeHelper}
+ * hold, the manager leaves that motor alone. Every loop the manager does the shared work once,
+ * then updates every motor in one pass over a packed array:
+ * <ol>
+ *   <li>refreshes the default {@link MatchState}, if asked to;
+ *   <li>refreshes every motor's signals together, in one batched call per CAN bus, through a
+ *       {@link SignalAcquisition};
+ *   <li>updates the {@link PowerBudget};
+ *   <li>updates each motor that no running command requires;
+ *   <li>every few loops, publishes each motor's output and position through {@link Telemetry};
+ *   <li>if enabled, times the motors' signals with a {@link CanBusMonitor}.
+ * </ol>
+ *
+ * <p>Registering resizes the arrays and retracks the signal refresh; the loop itself allocates nothing.
+ *
+ * <pre>
+ * MotorManager motors = new MotorManager().register(elevatorLeft, elevatorRight, intake, arm);
+ * </pre>
+ */
+public class MotorManager extends SubsystemBase {
+    /** The table motor telemetry is published to. */
+    public static final String TELEMETRY_TABLE = "Motors";
+
+    private static final int DEFAULT_TELEMETRY_PERIOD_LOOPS = 5;
+
+    private Motor[] motors = new Motor[0];
+    private String[] outputKeys = new String[0];
+    private String[] positionKeys = new String[0];
+    private int count = 0;
+
+    private SignalAcquisition signals;
+    private boolean signalsStale = false;
+    private boolean sharedSignalRefresh = true;
+
+    private CanBusMonitor canBusMonitor;
+
+    private boolean refreshMatchState = false;
+    private int telemetryPeriodLoops = DEFAULT_TELEMETRY_PERIOD_LOOPS;
+    private int loopsUntilTelemetry = 0;
+
+    /**
+     * Takes motors off the scheduler and updates them from this manager.
+     *
+     * @param motors the motors to manage
+     * @return this manager
+     */
+    public MotorManager register(Motor... motors) {
+        if (motors == null) {
+            throw new IllegalArgumentException("motors cannot be null.");
+        }
+        return register(Arrays.asList(motors));
+    }
+
+    /**
+     * Takes motors off the scheduler and updates them from this manager.
+     *
+     * @param motors the motors to manage
+     * @return this manager
+     */
+    public MotorManager register(List<Motor> motors) {
+        if (motors == null) {
+            throw new IllegalArgumentException("motors cannot be null.");
+        }
+
+        for (Motor motor : motors) {
+            if (motor == null) {
+                throw new IllegalArgumentException("motors cannot contain null.");
+            }
+            if (indexOf(motor) >= 0) {
+                continue;
+            }
+            if (motor.isManaged()) {
+                throw new IllegalArgumentException("Motor " + motor.getCanbus() + "." + motor.getIO().getDeviceId()
+                    + " is already managed.");
+            }
+
+            if (count == this.motors.length) {
+                int capacity = Math.max(8, count * 2);
+                this.motors = Arrays.copyOf(this.motors, capacity);
+                outputKeys = Arrays.copyOf(outputKeys, capacity);
+                positionKeys = Arrays.copyOf(positionKeys, capacity);
+            }
+
+            // Keys are built once here so publishing never concatenates strings
+            String name = motor.getCanbus() + "." + motor.getIO().getDeviceId();
+            this.motors[count] = motor;
+            outputKeys[count] = name + "/Output";
+            positionKeys[count] = name + "/Position";
+            count++;
+
+            motor.setManager(this);
+        }
+
+        signalsStale = true;
+        return this;
+    }
+
+    /**
+     * Returns a motor to updating itself from the scheduler.
+     *
+     * @param motor the motor to stop managing
+     * @return this manager
+     */
+    public MotorManager unregister(Motor motor) {
+        int index = indexOf(motor);
+        if (index < 0) {
+            return this;
+        }
+
+        count--;
+        motors[index] = motors[count];
+        outputKeys[index] = outputKeys[count];
+        positionKeys[index] = positionKeys[count];
+        motors[count] = null;
+        outputKeys[count] = null;
+        positionKeys[count] = null;
+
+        motor.setManager(null);
+        signalsStale = true;
+        return this;
+    }
+
+    /**
+     * Sets whether the manager refreshes every motor's signals together at the start of each loop.
+     *
+     * <p>On by default. Turn it off if the motors' signals are already refreshed by a
+     * {@link SignalAcquisition} of your own.
+     *
+     * @param sharedSignalRefresh whether to refresh signals together
+     * @return this manager
+     */
+    public MotorManager setSharedSignalRefresh(boolean sharedSignalRefresh) {
+        this.sharedSignalRefresh = sharedSignalRefresh;
+        signalsStale = true;
+        return this;
+    }
+
+    /**
+     * Sets whether the manager refreshes the default {@link MatchState} at the start of each loop.
+     *
+     * <p>Off by default, since a {@code MatchTimeManager} already does it. Turn it on for robots
+     * that do not have one; with both, the default {@code MatchSnapshot} is still read only once
+     * per loop.
+     *
+     * @param refreshMatchState whether to refresh the match state
+     * @return this manager
+     */
+    public MotorManager setRefreshMatchState(boolean refreshMatchState) {
+        this.refreshMatchState = refreshMatchState;
+        return this;
+    }
+
+    /**
+     * Sets how often motor telemetry is published.
+     *
+     * @param loops the number of loops between publishes, or 0 to publish nothing
+     * @return this manager
+     */
+    public MotorManager setTelemetryPeriod(int loops) {
+        if (loops < 0) {
+            throw new IllegalArgumentException("loops must be >= 0.");
+        }
+        this.telemetryPeriodLoops = loops;
+        return this;
+    }
+
+    /**
+     * Starts measuring the CAN buses the managed motors are on, and publishing what is measured.
+     *
+     * <p>The monitor follows registration, so motors registered later are measured too.
+     *
+     * @return the monitor, to adjust its sampling
+     */
+    public CanBusMonitor enableCanTelemetry() {
+        if (canBusMonitor == null) {
+            canBusMonitor = new CanBusMonitor();
+            signalsStale = true;
+        }
+        return canBusMonitor;
+    }
+
+    /**
+     * Gets the CAN bus monitor, if CAN telemetry is enabled.
+     *
+     * @return the monitor, or {@code null} if {@link #enableCanTelemetry()} was not called
+     */
+    public CanBusMonitor getCanBusMonitor() {
+        return canBusMonitor;
+    }
+
+    @Override
+    public void periodic() {
+        if (refreshMatchState) {
+            MatchState.refresh();
+        }
+
+        if (signalsStale) {
+            rebuildSignals();
+        }
+        if (signals != null) {
+            signals.refresh();
+        }
+
+        PowerBudget.update();
+
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        Motor[] motors = this.motors;
+        int count = this.count;
+        for (int i = 0; i < count; i++) {
+            // A command that requires the motor drives it, as it would in place of the default command
+            if (scheduler.requiring(motors[i]) == null) {
+                motors[i].update();
+            }
+        }
+
+        if (telemetryPeriodLoops > 0 && Telemetry.isEnabled() && --loopsUntilTelemetry <= 0) {
+            loopsUntilTelemetry = telemetryPeriodLoops;
+            publishTelemetry();
+        }
+
+        // Runs after the motors so timing its signals never delays their outputs
+        CanBusMonitor canBusMonitor = this.canBusMonitor;
+        if (canBusMonitor != null) {
+            canBusMonitor.update();
+        }
+    }
+
+    public int getMotorCount() {
+        return count;
+    }
+
+    public Motor getMotor(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("index " + index + " is out of range for " + count + " motors.");
+        }
+        return motors[index];
+    }
+
+    /**
+     * Gets the shared signal refresh, once the first loop has built it.
+     *
+     * @return the signal acquisition, or {@code null} if signals are not refreshed together
+     */
+    public SignalAcquisition getSignalAcquisition() {
+        return signals;
+    }
+
+    private void publishTelemetry() {
+        for (int i = 0; i < count; i++) {
+            Motor motor = motors[i];
+            Telemetry.put(TELEMETRY_TABLE, outputKeys[i], motor.getOutput());
+            // Signals were refreshed at the start of the loop, so this reads the cached value
+            if (motor.isSignalsRefreshedExternally()) {
+                Telemetry.put(TELEMETRY_TABLE, positionKeys[i], motor.getPosition());
+            }
+        }
+    }
+
+    private void rebuildSignals() {
+        signalsStale = false;
+        if (canBusMonitor != null) {
+            canBusMonitor.track(Arrays.asList(Arrays.copyOf(motors, count)));
+        }
+
+        Motor[] withSignals = new Motor[count];
+        int signalCount = 0;
+        if (sharedSignalRefresh) {
+            for (int i = 0; i < count; i++) {
+                Motor motor = motors[i];
+                // A motor refreshed by someone else's SignalAcquisition is left to it
+                boolean refreshedElsewhere = motor.isSignalsRefreshedExternally()
+                    && (signals == null || !signals.isTracking(motor));
+                if (motor.getStatusSignals().length > 0 && !refreshedElsewhere) {
+                    withSignals[signalCount++] = motor;
+                }
+            }
+        }
+
+        if (signalCount == 0) {
+            if (signals != null) {
+                signals.close();
+                signals = null;
+            }
+        } else if (signals == null) {
+            signals = new SignalAcquisition(Arrays.asList(Arrays.copyOf(withSignals, signalCount)));
+        } else {
+            // Retracking keeps any workers a wait timeout has started
+            signals.track(Arrays.asList(Arrays.copyOf(withSignals, signalCount)));
+        }
+    }
+
+    /**
+     * Rebuilds the shared signal refresh on the next loop, after a motor's signals change.
+     */
+    void invalidateSignals() {
+        signalsStale = true;
+    }
+
+    private int indexOf(Motor motor) {
+        for (int i = 0; i < count; i++) {
+            if (motors[i] == motor) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,212 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Logs every input to a {@link Motor}'s control loop, tick by tick, for {@link MotorReplay}.
+ *
+ * <p>Each tick records the position reading, the command, whether the motor is enabled, the
+ * state the loop started the tick in, and the output it produced. Whenever a setting changes,
+ * such as from live tuning, all the settings are logged again before the next tick. Ticks spent
+ * coasting, following a trajectory or under velocity control do not go through the loop and are
+ * not logged.
+ *
+ * <p>Rows are written into preallocated buffers on the robot loop and handed to a writer thread
+ * when full, so recording allocates nothing per tick and never waits on the disk. If the disk
+ * falls so far behind that no buffer is free, rows are dropped and counted rather than stalling
+ * the robot.
+ *
+ * @see Motor#enableRecording(Path)
+ */
+public class MotorRecorder implements AutoCloseable {
+    /** How many rows each buffer holds; about five seconds at 50 Hz. */
+    private static final int BUFFER_ROWS = 256;
+    private static final int BUFFER_COUNT = 4;
+
+    private final MotorControlLoop loop;
+    private final Path file;
+
+    private final BlockingQueue<Buffer> free = new ArrayBlockingQueue<>(BUFFER_COUNT);
+    private final BlockingQueue<Buffer> full = new ArrayBlockingQueue<>(BUFFER_COUNT + 1);
+    private final Thread writer;
+
+    /** Handed to the writer to tell it to finish. */
+    private final Buffer end = new Buffer(0);
+
+    private Buffer current;
+    private int recordedVersion = -1;
+    private long droppedRows = 0;
+    private volatile boolean failed = false;
+    private boolean closed = false;
+
+    MotorRecorder(MotorControlLoop loop, Path file, String name) throws IOException {
+        this.loop = loop;
+        this.file = file;
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        output.writeInt(MotorReplay.MAGIC);
+        output.writeInt(MotorReplay.VERSION);
+
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            free.add(new Buffer(BUFFER_ROWS));
+        }
+        this.current = free.poll();
+
+        this.writer = new Thread(() -> write(output), "WhatTime-Recorder-" + name);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Logs one tick of the control loop, preceded by the settings if they changed.
+     *
+     * @param timestamp the robot time in seconds
+     * @param position the position reading passed to the loop
+     * @param previousSpeed the loop's last output before this tick
+     * @param wasHolding whether the loop was holding before this tick
+     * @param output the output the loop produced
+     */
+    void record(double timestamp, double position, double previousSpeed, boolean wasHolding, double output) {
+        if (closed) {
+            return;
+        }
+
+        if (loop.getSettingsVersion() != recordedVersion) {
+            double[] row = nextRow();
+            if (row == null) {
+                return;
+            }
+            int offset = current.rows * MotorReplay.ROW_WIDTH;
+            row[offset] = MotorReplay.SETTINGS;
+            row[offset + MotorReplay.TIMESTAMP] = timestamp;
+            row[offset + MotorReplay.MIN_VALUE] = loop.getMinValue();
+            row[offset + MotorReplay.MAX_VALUE] = loop.getMaxValue();
+            row[offset + MotorReplay.MIN_SPEED] = loop.getMinSpeed();
+            row[offset + MotorReplay.MOTOR_SPEED] = loop.getMotorSpeed();
+            row[offset + MotorReplay.MOTOR_UP_SPEED] = loop.getMotorUpSpeed();
+            row[offset + MotorReplay.MOTOR_DOWN_SPEED] = loop.getMotorDownSpeed();
+            row[offset + MotorReplay.FREE] = loop.isFree() ? 1.0 : 0.0;
+            row[offset + MotorReplay.HOLD_SPEED] = loop.getHoldSpeed();
+            row[offset + MotorReplay.THRESHOLD] = loop.getThreshold();
+            row[offset + MotorReplay.PG] = loop.getPG();
+            row[offset + MotorReplay.ACCELERATION_STEPS] = loop.getAccelerationSteps();
+            current.rows++;
+            recordedVersion = loop.getSettingsVersion();
+        }
+
+        double[] row = nextRow();
+        if (row == null) {
+            return;
+        }
+        int offset = current.rows * MotorReplay.ROW_WIDTH;
+        row[offset] = MotorReplay.TICK;
+        row[offset + MotorReplay.TIMESTAMP] = timestamp;
+        row[offset + MotorReplay.POSITION] = position;
+        row[offset + MotorReplay.ENABLED] = loop.isEnabled() ? 1.0 : 0.0;
+        row[offset + MotorReplay.HAS_TARGET] = loop.hasTarget() ? 1.0 : 0.0;
+        row[offset + MotorReplay.IS_GO_TO] = loop.isGoTo() ? 1.0 : 0.0;
+        row[offset + MotorReplay.TARGET] = loop.getTargetValue();
+        row[offset + MotorReplay.PREVIOUS_SPEED] = previousSpeed;
+        row[offset + MotorReplay.WAS_HOLDING] = wasHolding ? 1.0 : 0.0;
+        row[offset + MotorReplay.OUTPUT] = output;
+        current.rows++;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Gets how many rows were dropped because the disk could not keep up.
+     *
+     * @return the number of dropped rows
+     */
+    public long getDroppedRows() {
+        return droppedRows;
+    }
+
+    /**
+     * Writes out everything recorded so far and stops recording.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (current != null && current.rows > 0) {
+            full.add(current);
+        }
+        current = null;
+        full.add(end);
+    }
+
+    /**
+     * Makes room for a row, handing the buffer to the writer if it is full.
+     *
+     * @return the buffer's data, or {@code null} if the row has to be dropped
+     */
+    private double[] nextRow() {
+        if (current != null && current.rows == BUFFER_ROWS) {
+            full.add(current);
+            current = null;
+        }
+        if (current == null) {
+            current = free.poll();
+        }
+        if (current == null || failed) {
+            droppedRows++;
+            // Settings are logged again once there is room, so the replay stays in step
+            recordedVersion = -1;
+            return null;
+        }
+        return current.data;
+    }
+
+    private void write(DataOutputStream output) {
+        try (output) {
+            while (true) {
+                Buffer buffer = full.take();
+                if (buffer == end) {
+                    return;
+                }
+                if (!failed) {
+                    int values = buffer.rows * MotorReplay.ROW_WIDTH;
+                    for (int i = 0; i < values; i++) {
+                        output.writeDouble(buffer.data[i]);
+                    }
+                    output.flush();
+                }
+                buffer.rows = 0;
+                free.add(buffer);
+            }
+        } catch (IOException e) {
+            failed = true;
+            DriverStation.reportWarning("Could not write motor log " + file + ": " + e, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Buffer {
+        private final double[] data;
+        private int rows = 0;
+
+        private Buffer(int rows) {
+            this.data = new double[rows * MotorReplay.ROW_WIDTH];
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.util.function.Consumer;
+
+/**
+ * Replays a log written by {@link MotorRecorder} through {@link MotorControlLoop} and compares
+ * the outputs with the ones recorded on the robot.
+ *
+ * <p>Replay needs nothing but the log: no HAL, no devices and no robot, so a whole event's worth
+ * of logs replays on a laptop in seconds. Each logged tick puts the loop back into the state it
+ * was in on the robot, feeds it the recorded position reading, and compares its output with the
+ * recorded one.
+ *
+ * <p>Passing an adjustment replays the same inputs through a changed controller, to see how its
+ * outputs differ. The loop then starts from the robot's state on the first tick and carries its
+ * own from there: each tick restores only the command (target and enabled), and the ramp and hold
+ * state come from the adjusted loop's previous tick. The positions still come from the log,
+ * though, so the mechanism never responds to the changed outputs. This is an open-loop
+ * comparison: the mismatches measure how far the adjusted controller's outputs drift from the
+ * recorded ones given the same readings, not how the robot would have moved with it.
+ *
+ * <pre>
+ * MotorReplay.Result baseline = MotorReplay.replay(log);
+ * MotorReplay.Result stiffer = MotorReplay.replay(log, loop -&gt; loop.setPG(0.2));
+ * </pre>
+ *
+ * <p>From the command line, {@code MotorReplay <log>...} prints a summary of each log.
+ */
+public final class MotorReplay {
+    /** Identifies a motor log; "WTML". */
+    static final int MAGIC = 0x57544D4C;
+    static final int VERSION = 1;
+
+    /** Every row is this many doubles, whatever its type. */
+    static final int ROW_WIDTH = 13;
+
+    static final double TICK = 0.0;
+    static final double SETTINGS = 1.0;
+
+    // Tick columns
+    static final int TIMESTAMP = 1;
+    static final int POSITION = 2;
+    static final int ENABLED = 3;
+    static final int HAS_TARGET = 4;
+    static final int IS_GO_TO = 5;
+    static final int TARGET = 6;
+    static final int PREVIOUS_SPEED = 7;
+    static final int WAS_HOLDING = 8;
+    static final int OUTPUT = 9;
+
+    // Settings columns
+    static final int MIN_VALUE = 2;
+    static final int MAX_VALUE = 3;
+    static final int MIN_SPEED = 4;
+    static final int MOTOR_SPEED = 5;
+    static final int MOTOR_UP_SPEED = 6;
+    static final int MOTOR_DOWN_SPEED = 7;
+    static final int FREE = 8;
+    static final int HOLD_SPEED = 9;
+    static final int THRESHOLD = 10;
+    static final int PG = 11;
+    static final int ACCELERATION_STEPS = 12;
+
+    /** Outputs further apart than this count as a mismatch. */
+    private static final double TOLERANCE = 1e-9;
+
+    private MotorReplay() {
+    }
+
+    /**
+     * Replays a log through the control loop as recorded.
+     *
+     * @param log the log file
+     * @return how the replayed outputs compare with the recorded ones
+     * @throws IOException if the log cannot be read
+     */
+    public static Result replay(Path log) throws IOException {
+        return replay(log, null);
+    }
+
+    /**
+     * Replays a log through an adjusted control loop.
+     *
+     * @param log the log file
+     * @param adjustment applied to the loop after every settings change in the log, or {@code null};
+     *     with one, the loop carries its own ramp and hold state after the first tick, but still reads
+     *     the logged positions
+     * @return how the replayed outputs compare with the recorded ones
+     * @throws IOException if the log cannot be read
+     */
+    public static Result replay(Path log, Consumer<MotorControlLoop> adjustment) throws IOException {
+        if (log == null) {
+            throw new IllegalArgumentException("log cannot be null.");
+        }
+
+        MotorControlLoop loop = new MotorControlLoop();
+        Result result = new Result();
+        double[] row = new double[ROW_WIDTH];
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(log)))) {
+            if (input.readInt() != MAGIC) {
+                throw new IOException(log + " is not a motor log.");
+            }
+            int version = input.readInt();
+            if (version != VERSION) {
+                throw new IOException(log + " is version " + version + "; only version " + VERSION + " can be replayed.");
+            }
+
+            while (readRow(input, row)) {
+                if (row[0] == SETTINGS) {
+                    applySettings(loop, row);
+                    if (adjustment != null) {
+                        adjustment.accept(loop);
+                    }
+                } else if (row[0] == TICK) {
+                    // An adjusted loop keeps its own ramp and hold state after the first tick
+                    boolean restoreCarried = adjustment == null || result.getTicks() == 0;
+                    loop.restoreState(row[TARGET], row[HAS_TARGET] != 0.0, row[IS_GO_TO] != 0.0, row[ENABLED] != 0.0,
+                        restoreCarried ? row[WAS_HOLDING] != 0.0 : loop.isHolding(),
+                        restoreCarried ? row[PREVIOUS_SPEED] : loop.getCurrentSpeed());
+                    result.add(row[TIMESTAMP], row[OUTPUT], loop.calculate(row[POSITION]));
+                } else {
+                    throw new IOException(log + " has a row of unknown type " + row[0] + ".");
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Prints a summary of each log given on the command line.
+     *
+     * @param args the log files
+     * @throws IOException if a log cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: MotorReplay <log>...");
+            return;
+        }
+        for (String arg : args) {
+            System.out.println(arg + ": " + replay(Path.of(arg)));
+        }
+    }
+
+    private static void applySettings(MotorControlLoop loop, double[] row) {
+        loop.setMinValue(row[MIN_VALUE]);
+        loop.setMaxValue(row[MAX_VALUE]);
+        loop.setMinSpeed(row[MIN_SPEED]);
+        loop.setMotorSpeed(row[MOTOR_SPEED]);
+        loop.setMotorUpSpeed(row[MOTOR_UP_SPEED]);
+        loop.setMotorDownSpeed(row[MOTOR_DOWN_SPEED]);
+        loop.setFree(row[FREE] != 0.0);
+        loop.setHoldSpeed(row[HOLD_SPEED]);
+        loop.setThreshold(row[THRESHOLD]);
+        loop.setPG(row[PG]);
+        loop.setAccelerationSteps((int) row[ACCELERATION_STEPS]);
+    }
+
+    private static boolean readRow(DataInputStream input, double[] row) throws IOException {
+        try {
+            row[0] = input.readDouble();
+        } catch (EOFException e) {
+            return false;
+        }
+        try {
+            for (int column = 1; column < ROW_WIDTH; column++) {
+                row[column] = input.readDouble();
+            }
+        } catch (EOFException e) {
+            // The robot lost power mid-write; everything before this row is still good
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * How a replay's outputs compare with the recorded ones.
+     */
+    public static final class Result {
+        private int ticks = 0;
+        private int mismatches = 0;
+        private double maxError = 0.0;
+        private double sumSquaredError = 0.0;
+        private double firstMismatchTime = Double.NaN;
+
+        private Result() {
+        }
+
+        private void add(double timestamp, double recorded, double replayed) {
+            double error = Math.abs(replayed - recorded);
+            ticks++;
+            sumSquaredError += error * error;
+            maxError = Math.max(maxError, error);
+            if (error > TOLERANCE) {
+                if (mismatches == 0) {
+                    firstMismatchTime = timestamp;
+                }
+                mismatches++;
+            }
+        }
+
+        public int getTicks() {
+            return ticks;
+        }
+
+        /**
+         * Gets how many ticks produced a different output than on the robot.
+         *
+         * @return the number of mismatched ticks
+         */
+        public int getMismatches() {
+            return mismatches;
+        }
+
+        public double getMaxError() {
+            return maxError;
+        }
+
+        public double getRmsError() {
+            return ticks == 0 ? 0.0 : Math.sqrt(sumSquaredError / ticks);
+        }
+
+        /**
+         * Gets the robot timestamp of the first mismatched tick.
+         *
+         * @return the timestamp in seconds, or {@code NaN} if every tick matched
+         */
+        public double getFirstMismatchTime() {
+            return firstMismatchTime;
+        }
+
+        @Override
+        public String toString() {
+            return ticks + " ticks, " + mismatches + " mismatched, max error " + maxError
+                + ", RMS error " + getRmsError();
+        }
+    }
+}
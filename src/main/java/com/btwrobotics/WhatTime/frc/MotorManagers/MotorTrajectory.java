@@ -0,0 +1,207 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+/**
+ * A precomputed motion for a {@link Motor} or {@link MotorGroup} to follow, as time-stamped
+ * position, velocity and acceleration setpoints.
+ *
+ * <p>The motion is followed continuously from one point to the next, with positions between
+ * points interpolated from the neighbouring positions and velocities. It only stops where asked:
+ * at a stop, the trajectory's clock waits until every motor following it has reached the stop's
+ * position before moving on. The last point is always a stop.
+ *
+ * <p>The arrays are copied once at construction and never change, so one trajectory can be
+ * followed any number of times.
+ *
+ * <pre>
+ * MotorTrajectory score = new MotorTrajectory(
+ *     new double[] {0.0, 0.4, 0.8, 1.2},    // seconds
+ *     new double[] {0.0, 0.3, 0.9, 1.2},    // positions
+ *     new double[] {0.0, 1.5, 1.5, 0.0},    // velocities
+ *     new double[] {0.0, 0.0, 0.0, 0.0},    // accelerations
+ *     1);                                   // wait at point 1 until the elevator is there
+ * elevator.follow(score);
+ * </pre>
+ */
+public final class MotorTrajectory {
+    private final double[] times;
+    private final double[] positions;
+    private final double[] velocities;
+    private final double[] accelerations;
+    private final boolean[] stops;
+
+    /**
+     * Creates a trajectory from its setpoints.
+     *
+     * @param times when each point is reached, in seconds from the start; strictly increasing
+     * @param positions the position at each point
+     * @param velocities the velocity at each point, in position units per second
+     * @param accelerations the acceleration at each point, in position units per second squared
+     * @param stops the indices of points to wait at, besides the last
+     */
+    public MotorTrajectory(double[] times, double[] positions, double[] velocities,
+            double[] accelerations, int... stops) {
+        if (times == null || positions == null || velocities == null || accelerations == null) {
+            throw new IllegalArgumentException("times, positions, velocities and accelerations cannot be null.");
+        }
+        if (times.length == 0) {
+            throw new IllegalArgumentException("times cannot be empty.");
+        }
+        if (positions.length != times.length || velocities.length != times.length
+                || accelerations.length != times.length) {
+            throw new IllegalArgumentException("times, positions, velocities and accelerations must be the same length.");
+        }
+
+        for (int i = 0; i < times.length; i++) {
+            if (!Double.isFinite(times[i]) || !Double.isFinite(positions[i])
+                    || !Double.isFinite(velocities[i]) || !Double.isFinite(accelerations[i])) {
+                throw new IllegalArgumentException("Point " + i + " must be finite.");
+            }
+            if (i > 0 && times[i] <= times[i - 1]) {
+                throw new IllegalArgumentException("times must be strictly increasing.");
+            }
+        }
+
+        this.times = times.clone();
+        this.positions = positions.clone();
+        this.velocities = velocities.clone();
+        this.accelerations = accelerations.clone();
+        this.stops = new boolean[times.length];
+        this.stops[times.length - 1] = true;
+
+        if (stops != null) {
+            for (int stop : stops) {
+                if (stop < 0 || stop >= times.length) {
+                    throw new IllegalArgumentException("Stop " + stop + " is not a point in the trajectory.");
+                }
+                this.stops[stop] = true;
+            }
+        }
+    }
+
+    public int getLength() {
+        return times.length;
+    }
+
+    /**
+     * Gets how long the trajectory takes, not counting time spent waiting at stops.
+     *
+     * @return the duration in seconds
+     */
+    public double getDuration() {
+        return times[times.length - 1] - times[0];
+    }
+
+    public double getTime(int index) {
+        return times[index];
+    }
+
+    public double getPosition(int index) {
+        return positions[index];
+    }
+
+    public double getVelocity(int index) {
+        return velocities[index];
+    }
+
+    public double getAcceleration(int index) {
+        return accelerations[index];
+    }
+
+    public boolean isStop(int index) {
+        return stops[index];
+    }
+
+    /**
+     * Finds the segment containing a time, searching forward from a previous result.
+     *
+     * <p>Followers only move forward in time, so passing the last index keeps each lookup to a
+     * step or two.
+     *
+     * @param time the time to find
+     * @param hint the index to start searching from
+     * @return the index of the last point at or before the time, or 0 if the time is before the start
+     */
+    public int indexAt(double time, int hint) {
+        int index = hint < 0 || hint >= times.length || times[hint] > time ? 0 : hint;
+        while (index + 1 < times.length && times[index + 1] <= time) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Interpolates the position within a segment, using the velocities at both ends.
+     *
+     * @param index the segment, as returned by {@link #indexAt(double, int)}
+     * @param time the time within the segment
+     * @return the position at that time
+     */
+    public double positionAt(int index, double time) {
+        if (index + 1 >= times.length || time <= times[index]) {
+            return positions[Math.min(index, times.length - 1)];
+        }
+
+        double h = times[index + 1] - times[index];
+        double s = (time - times[index]) / h;
+        double s2 = s * s;
+        double s3 = s2 * s;
+
+        // Cubic Hermite between the two points
+        return (2.0 * s3 - 3.0 * s2 + 1.0) * positions[index]
+            + (s3 - 2.0 * s2 + s) * h * velocities[index]
+            + (-2.0 * s3 + 3.0 * s2) * positions[index + 1]
+            + (s3 - s2) * h * velocities[index + 1];
+    }
+
+    /**
+     * Interpolates the velocity within a segment, consistent with {@link #positionAt(int, double)}.
+     *
+     * @param index the segment, as returned by {@link #indexAt(double, int)}
+     * @param time the time within the segment
+     * @return the velocity at that time
+     */
+    public double velocityAt(int index, double time) {
+        if (index + 1 >= times.length || time <= times[index]) {
+            return velocities[Math.min(index, times.length - 1)];
+        }
+
+        double h = times[index + 1] - times[index];
+        double s = (time - times[index]) / h;
+        double s2 = s * s;
+
+        return ((6.0 * s2 - 6.0 * s) * positions[index]
+            + (3.0 * s2 - 4.0 * s + 1.0) * h * velocities[index]
+            + (-6.0 * s2 + 6.0 * s) * positions[index + 1]
+            + (3.0 * s2 - 2.0 * s) * h * velocities[index + 1]) / h;
+    }
+
+    /**
+     * Interpolates the acceleration linearly within a segment.
+     *
+     * @param index the segment, as returned by {@link #indexAt(double, int)}
+     * @param time the time within the segment
+     * @return the acceleration at that time
+     */
+    public double accelerationAt(int index, double time) {
+        if (index + 1 >= times.length || time <= times[index]) {
+            return accelerations[Math.min(index, times.length - 1)];
+        }
+
+        double s = (time - times[index]) / (times[index + 1] - times[index]);
+        return accelerations[index] + s * (accelerations[index + 1] - accelerations[index]);
+    }
+
+    /**
+     * Finds the next stop at or after a point.
+     *
+     * @param index the point to search from
+     * @return the index of the next stop
+     */
+    public int nextStop(int index) {
+        int stop = Math.max(index, 0);
+        while (!stops[stop]) {
+            stop++;
+        }
+        return stop;
+    }
+}
@@ -0,0 +1,324 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import edu.wpi.first.networktables.BooleanEntry;
+import edu.wpi.first.networktables.DoubleEntry;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableValue;
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Binds the tunable parameters of one or more {@link Motor}s to NetworkTables entries.
+ *
+ * <p>Every parameter with a setter on {@link Motor} is published to the given table with the
+ * motor's current value. Edits made from a dashboard arrive through NetworkTables listeners and
+ * are staged here; they are applied through the regular {@link Motor} setters, including their
+ * validation, at the start of the next {@link Motor#update()}. Nothing is read from NetworkTables
+ * while the robot loop runs.
+ *
+ * <p>Listener callbacks run on the NetworkTables listener thread. Staged values are guarded by
+ * this object's lock and only handed to the motors from the thread that calls
+ * {@link Motor#update()}.
+ *
+ * <p>{@code motorUpSpeed} and {@code motorDownSpeed} are published as {@code -1} when unset;
+ * writing any negative value clears them back to {@code motorSpeed}.
+ *
+ * @see Motor#enableTuning(String)
+ * @see MotorGroup#enableTuning(String)
+ */
+public class MotorTuning implements AutoCloseable {
+    private static final int MIN_VALUE = 0;
+    private static final int MAX_VALUE = 1;
+    private static final int MIN_SPEED = 2;
+    private static final int MOTOR_SPEED = 3;
+    private static final int MOTOR_UP_SPEED = 4;
+    private static final int MOTOR_DOWN_SPEED = 5;
+    private static final int HOLD_SPEED = 6;
+    private static final int THRESHOLD = 7;
+    private static final int PG = 8;
+    private static final int ACCELERATION_STEPS = 9;
+    private static final int INVERTED = 10;
+    private static final int FREE = 11;
+    private static final int PARAMETER_COUNT = 12;
+
+    private static final String[] KEYS = {
+        "minValue",
+        "maxValue",
+        "minSpeed",
+        "motorSpeed",
+        "motorUpSpeed",
+        "motorDownSpeed",
+        "holdSpeed",
+        "threshold",
+        "pG",
+        "accelerationSteps",
+        "inverted",
+        "free"
+    };
+
+    /** Sentinel published for an unset up/down speed. */
+    private static final double UNSET_SPEED = -1.0;
+
+    private final Motor[] motors;
+    private final NetworkTableInstance inst;
+    private final DoubleEntry[] doubleEntries = new DoubleEntry[PARAMETER_COUNT];
+    private final BooleanEntry[] booleanEntries = new BooleanEntry[PARAMETER_COUNT];
+    private final int[] listenerHandles = new int[PARAMETER_COUNT];
+
+    /** Values written by the listener thread, guarded by {@code this}. */
+    private final double[] stagedValues = new double[PARAMETER_COUNT];
+    private int stagedMask;
+
+    /** Loop-thread copy of the staged values, reused every apply. */
+    private final double[] pendingValues = new double[PARAMETER_COUNT];
+
+    /** Set by the listener thread, cleared by the loop thread; the only per-tick read. */
+    private volatile boolean dirty;
+    private boolean closed;
+
+    /**
+     * Creates a tuning binding for a single motor.
+     *
+     * @param tableName the NetworkTables table to publish the parameters under
+     * @param motor the motor to tune
+     */
+    public MotorTuning(String tableName, Motor motor) {
+        this(tableName, new Motor[] { motor });
+    }
+
+    /**
+     * Creates a tuning binding that applies every change to all of the given motors.
+     *
+     * <p>The initial values are taken from the first motor.
+     *
+     * @param tableName the NetworkTables table to publish the parameters under
+     * @param motors the motors to tune together
+     */
+    public MotorTuning(String tableName, List<Motor> motors) {
+        this(tableName, motors.toArray(new Motor[0]));
+    }
+
+    private MotorTuning(String tableName, Motor[] motors) {
+        if (motors.length == 0) {
+            throw new IllegalArgumentException("motors cannot be empty.");
+        }
+
+        this.motors = motors;
+        this.inst = NetworkTableInstance.getDefault();
+
+        NetworkTable table = inst.getTable(tableName);
+        Motor reference = motors[0];
+
+        for (int parameter = 0; parameter < PARAMETER_COUNT; parameter++) {
+            final int index = parameter;
+
+            if (isBoolean(parameter)) {
+                BooleanEntry entry = table.getBooleanTopic(KEYS[parameter]).getEntry(false);
+                booleanEntries[parameter] = entry;
+                listenerHandles[parameter] = inst.addListener(
+                    entry,
+                    EnumSet.of(NetworkTableEvent.Kind.kValueRemote),
+                    event -> stage(index, event.valueData.value));
+            } else {
+                DoubleEntry entry = table.getDoubleTopic(KEYS[parameter]).getEntry(0.0);
+                doubleEntries[parameter] = entry;
+                listenerHandles[parameter] = inst.addListener(
+                    entry,
+                    EnumSet.of(NetworkTableEvent.Kind.kValueRemote),
+                    event -> stage(index, event.valueData.value));
+            }
+
+            publish(parameter, reference);
+        }
+
+        for (Motor motor : motors) {
+            motor.setTuning(this);
+        }
+    }
+
+    /**
+     * Applies any values received since the last call.
+     *
+     * <p>Called by {@link Motor#update()}; when nothing has changed this is a single volatile read.
+     */
+    void applyPending() {
+        if (!dirty) {
+            return;
+        }
+
+        int mask;
+        synchronized (this) {
+            mask = stagedMask;
+            stagedMask = 0;
+            dirty = false;
+            System.arraycopy(stagedValues, 0, pendingValues, 0, PARAMETER_COUNT);
+        }
+
+        for (Motor motor : motors) {
+            apply(motor, mask, pendingValues);
+        }
+
+        // Publish what the motors actually accepted so rejected edits snap back on the dashboard
+        for (int parameter = 0; parameter < PARAMETER_COUNT; parameter++) {
+            if ((mask & (1 << parameter)) != 0) {
+                publish(parameter, motors[0]);
+            }
+        }
+    }
+
+    /**
+     * Stops listening for changes and detaches this binding from its motors.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        for (int parameter = 0; parameter < PARAMETER_COUNT; parameter++) {
+            inst.removeListener(listenerHandles[parameter]);
+            if (booleanEntries[parameter] != null) {
+                booleanEntries[parameter].close();
+            }
+            if (doubleEntries[parameter] != null) {
+                doubleEntries[parameter].close();
+            }
+        }
+
+        for (Motor motor : motors) {
+            // A newer binding may have replaced this one; leave it attached
+            if (motor.getTuning() == this) {
+                motor.setTuning(null);
+            }
+        }
+    }
+
+    // Runs on the NetworkTables listener thread
+    private synchronized void stage(int parameter, NetworkTableValue value) {
+        if (isBoolean(parameter)) {
+            if (!value.isBoolean()) {
+                return;
+            }
+            stagedValues[parameter] = value.getBoolean() ? 1.0 : 0.0;
+        } else {
+            if (!value.isDouble()) {
+                return;
+            }
+            stagedValues[parameter] = value.getDouble();
+        }
+
+        stagedMask |= 1 << parameter;
+        dirty = true;
+    }
+
+    private static void apply(Motor motor, int mask, double[] values) {
+        // Range edits go through setRange so min and max can move past each other in one change
+        if ((mask & ((1 << MIN_VALUE) | (1 << MAX_VALUE))) != 0) {
+            double minValue = (mask & (1 << MIN_VALUE)) != 0 ? values[MIN_VALUE] : motor.getMinValue();
+            double maxValue = (mask & (1 << MAX_VALUE)) != 0 ? values[MAX_VALUE] : motor.getMaxValue();
+            tryApply(MIN_VALUE, () -> motor.setRange(minValue, maxValue));
+        }
+
+        // A lowered minSpeed has to land before the speed caps it bounds, a raised one after them
+        boolean minSpeedPending = (mask & (1 << MIN_SPEED)) != 0;
+        boolean minSpeedFirst = minSpeedPending && values[MIN_SPEED] < motor.getMinSpeed();
+        if (minSpeedFirst) {
+            tryApply(MIN_SPEED, () -> motor.setMinSpeed(values[MIN_SPEED]));
+        }
+
+        if ((mask & (1 << MOTOR_SPEED)) != 0) {
+            tryApply(MOTOR_SPEED, () -> motor.setMotorSpeed(values[MOTOR_SPEED]));
+        }
+        if ((mask & (1 << MOTOR_UP_SPEED)) != 0) {
+            Double motorUpSpeed = values[MOTOR_UP_SPEED] < 0.0 ? null : values[MOTOR_UP_SPEED];
+            tryApply(MOTOR_UP_SPEED, () -> motor.setMotorUpSpeed(motorUpSpeed));
+        }
+        if ((mask & (1 << MOTOR_DOWN_SPEED)) != 0) {
+            Double motorDownSpeed = values[MOTOR_DOWN_SPEED] < 0.0 ? null : values[MOTOR_DOWN_SPEED];
+            tryApply(MOTOR_DOWN_SPEED, () -> motor.setMotorDownSpeed(motorDownSpeed));
+        }
+
+        if (minSpeedPending && !minSpeedFirst) {
+            tryApply(MIN_SPEED, () -> motor.setMinSpeed(values[MIN_SPEED]));
+        }
+
+        if ((mask & (1 << HOLD_SPEED)) != 0) {
+            tryApply(HOLD_SPEED, () -> motor.setHoldSpeed(values[HOLD_SPEED]));
+        }
+        if ((mask & (1 << THRESHOLD)) != 0) {
+            tryApply(THRESHOLD, () -> motor.setThreshold(values[THRESHOLD]));
+        }
+        if ((mask & (1 << PG)) != 0) {
+            tryApply(PG, () -> motor.setPG(values[PG]));
+        }
+        if ((mask & (1 << ACCELERATION_STEPS)) != 0) {
+            tryApply(ACCELERATION_STEPS, () -> motor.setAccelerationSteps((int) Math.round(values[ACCELERATION_STEPS])));
+        }
+        if ((mask & (1 << INVERTED)) != 0) {
+            motor.setInverted(values[INVERTED] != 0.0);
+        }
+        if ((mask & (1 << FREE)) != 0) {
+            motor.setFree(values[FREE] != 0.0);
+        }
+    }
+
+    private static void tryApply(int parameter, Runnable setter) {
+        try {
+            setter.run();
+        } catch (IllegalArgumentException e) {
+            DriverStation.reportWarning("Rejected tuning value for " + KEYS[parameter] + ": " + e.getMessage(), false);
+        }
+    }
+
+    private void publish(int parameter, Motor motor) {
+        switch (parameter) {
+            case MIN_VALUE:
+                doubleEntries[parameter].set(motor.getMinValue());
+                break;
+            case MAX_VALUE:
+                doubleEntries[parameter].set(motor.getMaxValue());
+                break;
+            case MIN_SPEED:
+                doubleEntries[parameter].set(motor.getMinSpeed());
+                break;
+            case MOTOR_SPEED:
+                doubleEntries[parameter].set(motor.getMotorSpeed());
+                break;
+            case MOTOR_UP_SPEED:
+                doubleEntries[parameter].set(motor.getMotorUpSpeed() != null ? motor.getMotorUpSpeed() : UNSET_SPEED);
+                break;
+            case MOTOR_DOWN_SPEED:
+                doubleEntries[parameter].set(motor.getMotorDownSpeed() != null ? motor.getMotorDownSpeed() : UNSET_SPEED);
+                break;
+            case HOLD_SPEED:
+                doubleEntries[parameter].set(motor.getHoldSpeed());
+                break;
+            case THRESHOLD:
+                doubleEntries[parameter].set(motor.getThreshold());
+                break;
+            case PG:
+                doubleEntries[parameter].set(motor.getPG());
+                break;
+            case ACCELERATION_STEPS:
+                doubleEntries[parameter].set(motor.getAccelerationSteps());
+                break;
+            case INVERTED:
+                booleanEntries[parameter].set(motor.isInverted());
+                break;
+            case FREE:
+                booleanEntries[parameter].set(motor.isFree());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static boolean isBoolean(int parameter) {
+        return parameter == INVERTED || parameter == FREE;
+    }
+}
@@ -0,0 +1,330 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+import java.util.List;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
+
+import edu.wpi.first.units.measure.Angle;
+
+/**
+ * Combines the positions of several motors into one, ignoring motors that disagree.
+ *
+ * <p>Each {@link #update()} refreshes every motor's position signal in one batched call, then
+ * computes the median of the fresh readings. A motor is rejected if its signal reported an error,
+ * is older than the maximum age, or reads further than the band from the median. The mean and
+ * spread are taken over the motors that are left, so one slipping encoder or dropped signal does
+ * not drag the group's position with it.
+ *
+ * <p>Motors with a position supplier, or without a TalonFX position signal, are read through
+ * {@link Motor#getCurrentValue()} instead, and count as stale only when that reading is not a
+ * finite number.
+ *
+ * <p>All work is done in preallocated arrays, so updating allocates nothing. Motors should report
+ * position in the same units and direction, as {@link Motor#getPosition()} does for motors that
+ * are geared together.
+ */
+public class PositionAggregator {
+    /** The default distance from the median beyond which a motor is rejected, in rotations. */
+    public static final double DEFAULT_BAND = 0.5;
+
+    /** The default age beyond which a position reading is stale, in seconds. */
+    public static final double DEFAULT_MAX_AGE = 0.1;
+
+    /** The most motors an aggregator can track, so rejections fit in a {@code long} mask. */
+    public static final int MAX_MOTORS = Long.SIZE;
+
+    private final Motor[] motors;
+    /** Each motor's position signal, or {@code null} for motors without one. */
+    private final StatusSignal<Angle>[] signals;
+    /** The non-null signals, refreshed together. */
+    private final BaseStatusSignal[] refreshSignals;
+
+    private final double[] readings;
+    private final double[] sorted;
+
+    private double band = DEFAULT_BAND;
+    private double maxAge = DEFAULT_MAX_AGE;
+
+    private double mean = Double.NaN;
+    private double median = Double.NaN;
+    private double spread = Double.NaN;
+    private long rejectedMask = 0L;
+    private long staleMask = 0L;
+    private int acceptedCount = 0;
+
+    /**
+     * Creates an aggregator over a set of motors.
+     *
+     * @param motors the motors to combine
+     */
+    @SuppressWarnings("unchecked")
+    public PositionAggregator(List<Motor> motors) {
+        if (motors == null || motors.isEmpty()) {
+            throw new IllegalArgumentException("motors cannot be empty.");
+        }
+        if (motors.size() > MAX_MOTORS) {
+            throw new IllegalArgumentException("An aggregator can track at most " + MAX_MOTORS + " motors.");
+        }
+
+        this.motors = motors.toArray(new Motor[0]);
+        this.signals = new StatusSignal[this.motors.length];
+        int signalCount = 0;
+        for (int i = 0; i < this.motors.length; i++) {
+            signals[i] = this.motors[i].getPositionSignal();
+            if (signals[i] != null) {
+                signalCount++;
+            }
+        }
+
+        this.refreshSignals = new BaseStatusSignal[signalCount];
+        signalCount = 0;
+        for (StatusSignal<Angle> signal : signals) {
+            if (signal != null) {
+                refreshSignals[signalCount++] = signal;
+            }
+        }
+
+        this.readings = new double[this.motors.length];
+        this.sorted = new double[this.motors.length];
+    }
+
+    /**
+     * Sets how far from the median a motor can read before it is rejected.
+     *
+     * @param band the allowed distance from the median, in rotations
+     * @return this aggregator
+     */
+    public PositionAggregator setBand(double band) {
+        if (!(band > 0.0)) {
+            throw new IllegalArgumentException("band must be > 0.");
+        }
+        this.band = band;
+        return this;
+    }
+
+    /**
+     * Sets how old a position reading can be before it is rejected as stale.
+     *
+     * @param seconds the maximum age of a reading
+     * @return this aggregator
+     */
+    public PositionAggregator setMaxAge(double seconds) {
+        if (!(seconds > 0.0)) {
+            throw new IllegalArgumentException("maxAge must be > 0.");
+        }
+        this.maxAge = seconds;
+        return this;
+    }
+
+    public double getBand() {
+        return band;
+    }
+
+    public double getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Refreshes every motor's position and recomputes the combined position.
+     *
+     * <p>Motors registered with a {@link SignalAcquisition} are not refreshed again; their values
+     * from this loop's refresh are used.
+     *
+     * @return the mean position of the accepted motors, or {@code NaN} if every reading is stale
+     */
+    public double update() {
+        if (refreshSignals.length > 0 && !allRefreshedExternally()) {
+            BaseStatusSignal.refreshAll(refreshSignals);
+        }
+        return updateFromCache();
+    }
+
+    /**
+     * Recomputes the combined position from readings taken elsewhere.
+     *
+     * <p>Used when the signals have already been refreshed this loop, for example by a shared
+     * refresh of every motor on the bus.
+     *
+     * @return the mean position of the accepted motors, or {@code NaN} if every reading is stale
+     */
+    public double updateFromCache() {
+        long stale = 0L;
+        int freshCount = 0;
+        for (int i = 0; i < motors.length; i++) {
+            StatusSignal<Angle> signal = signals[i];
+            boolean fresh;
+            if (signal == null || motors[i].hasPositionSupplier()) {
+                readings[i] = motors[i].getCurrentValue();
+                fresh = Double.isFinite(readings[i]);
+            } else {
+                readings[i] = signal.getValueAsDouble();
+                fresh = signal.getStatus().isOK() && signal.getTimestamp().getLatency() <= maxAge;
+            }
+
+            if (fresh) {
+                sorted[freshCount++] = readings[i];
+            } else {
+                stale |= 1L << i;
+            }
+        }
+
+        return aggregate(stale, freshCount);
+    }
+
+    private boolean allRefreshedExternally() {
+        for (Motor motor : motors) {
+            if (!motor.isSignalsRefreshedExternally()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double aggregate(long stale, int freshCount) {
+        staleMask = stale;
+
+        if (freshCount == 0) {
+            rejectedMask = stale;
+            acceptedCount = 0;
+            mean = Double.NaN;
+            median = Double.NaN;
+            spread = Double.NaN;
+            return mean;
+        }
+
+        // Insertion sort; groups are a handful of motors
+        for (int i = 1; i < freshCount; i++) {
+            double value = sorted[i];
+            int j = i - 1;
+            while (j >= 0 && sorted[j] > value) {
+                sorted[j + 1] = sorted[j];
+                j--;
+            }
+            sorted[j + 1] = value;
+        }
+
+        int middle = freshCount / 2;
+        median = freshCount % 2 == 1
+            ? sorted[middle]
+            : (sorted[middle - 1] + sorted[middle]) / 2.0;
+
+        long rejected = stale;
+        double sum = 0.0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        int accepted = 0;
+
+        for (int i = 0; i < motors.length; i++) {
+            if ((stale & (1L << i)) != 0L) {
+                continue;
+            }
+
+            double reading = readings[i];
+            if (Math.abs(reading - median) > band) {
+                rejected |= 1L << i;
+                continue;
+            }
+
+            sum += reading;
+            min = Math.min(min, reading);
+            max = Math.max(max, reading);
+            accepted++;
+        }
+
+        rejectedMask = rejected;
+        acceptedCount = accepted;
+
+        if (accepted == 0) {
+            // Two motors that disagree cannot be told apart; the median is the best guess
+            mean = median;
+            spread = sorted[freshCount - 1] - sorted[0];
+        } else {
+            mean = sum / accepted;
+            spread = max - min;
+        }
+        return mean;
+    }
+
+    /**
+     * Gets the mean position of the accepted motors as of the last update.
+     *
+     * @return the combined position, or {@code NaN} if every reading was stale
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Gets the median position of the fresh readings as of the last update.
+     *
+     * @return the median position, or {@code NaN} if every reading was stale
+     */
+    public double getMedian() {
+        return median;
+    }
+
+    /**
+     * Gets the distance between the highest and lowest accepted readings as of the last update.
+     *
+     * @return the spread, or {@code NaN} if every reading was stale
+     */
+    public double getSpread() {
+        return spread;
+    }
+
+    /**
+     * Indicates whether the last update produced a position.
+     *
+     * @return {@code true} if at least one reading was fresh
+     */
+    public boolean hasValue() {
+        return !Double.isNaN(mean);
+    }
+
+    /**
+     * Gets which motors were left out of the last update, stale or out of band.
+     *
+     * @return a mask with bit {@code i} set if motor {@code i} was rejected
+     */
+    public long getRejectedMask() {
+        return rejectedMask;
+    }
+
+    /**
+     * Gets which motors had stale or failed readings in the last update.
+     *
+     * @return a mask with bit {@code i} set if motor {@code i} was stale
+     */
+    public long getStaleMask() {
+        return staleMask;
+    }
+
+    /**
+     * Indicates whether a motor was left out of the last update.
+     *
+     * @param index the motor's index in the list the aggregator was created with
+     * @return {@code true} if the motor was stale or out of band
+     */
+    public boolean isRejected(int index) {
+        return (rejectedMask & (1L << index)) != 0L;
+    }
+
+    public int getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    public int getMotorCount() {
+        return motors.length;
+    }
+
+    /**
+     * Gets a motor's reading from the last update, whether or not it was accepted.
+     *
+     * @param index the motor's index in the list the aggregator was created with
+     * @return the motor's position
+     */
+    public double getReading(int index) {
+        return readings[index];
+    }
+}
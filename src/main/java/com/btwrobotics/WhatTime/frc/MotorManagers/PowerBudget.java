@@ -0,0 +1,298 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+import java.util.Arrays;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
+
+import edu.wpi.first.units.measure.Current;
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * Shares the battery between every {@link Motor} so that mechanisms accelerating together do not
+ * brown the robot out.
+ *
+ * <p>Each loop the budget reads the battery voltage and every registered motor's supply current,
+ * and works out how much current the battery can deliver before its voltage sags to the minimum
+ * voltage, using the battery's internal resistance. That allowance is handed out by
+ * {@link Priority}: high-priority motors, such as the drivetrain, are served first and always have
+ * the reserved share of the allowance kept for them; normal motors share what is left, and low
+ * motors get whatever normal motors do not use. A bucket that wants more than it is given has
+ * every motor in it scaled down by the same factor through {@link Motor#getOutputScale()}.
+ * Scales drop at once when the battery sags and recover gradually once it does not.
+ *
+ * <p>Registering a motor sizes the budget's arrays; {@link #update()} itself runs in one pass over
+ * the motors and allocates nothing.
+ *
+ * <pre>
+ * frontLeft.setPowerPriority(PowerBudget.Priority.HIGH);
+ * elevator.setPowerPriority(PowerBudget.Priority.NORMAL);
+ * intake.setPowerPriority(PowerBudget.Priority.LOW);
+ * // Once per loop, at the start of robotPeriodic:
+ * PowerBudget.update();
+ * </pre>
+ */
+public final class PowerBudget {
+    /** How a motor's share of the budget is decided, from first served to last. */
+    public enum Priority {
+        /** Served first, with the reserved share kept for it. Drivetrains belong here. */
+        HIGH,
+        /** Shares what the high-priority motors leave. */
+        NORMAL,
+        /** Gets whatever the normal-priority motors do not use. */
+        LOW
+    }
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private static final double DEFAULT_CURRENT_LIMIT = 250.0;
+    private static final double DEFAULT_MIN_VOLTAGE = 8.0;
+    private static final double DEFAULT_RESISTANCE = 0.02;
+    private static final double DEFAULT_RESERVED_FRACTION = 0.4;
+    private static final double DEFAULT_RECOVERY_PER_LOOP = 0.05;
+
+    /** Scales below this are treated as this when inferring demand, so a stopped bucket can recover. */
+    private static final double MIN_INFERENCE_SCALE = 0.05;
+
+    private static Motor[] motors = new Motor[0];
+    private static int[] priorities = new int[0];
+    private static StatusSignal<Current>[] supplyCurrentSignals = newSignalArray(0);
+    private static BaseStatusSignal[] signals = new BaseStatusSignal[0];
+    private static int count = 0;
+
+    private static final double[] demand = new double[PRIORITIES.length];
+    private static final double[] scales = new double[PRIORITIES.length];
+
+    private static double currentLimit = DEFAULT_CURRENT_LIMIT;
+    private static double minVoltage = DEFAULT_MIN_VOLTAGE;
+    private static double resistance = DEFAULT_RESISTANCE;
+    private static double reservedFraction = DEFAULT_RESERVED_FRACTION;
+    private static double recoveryPerLoop = DEFAULT_RECOVERY_PER_LOOP;
+
+    private static double batteryVoltage = Double.NaN;
+    private static double totalCurrent;
+    private static double allowedCurrent = Double.NaN;
+
+    static {
+        Arrays.fill(scales, 1.0);
+    }
+
+    private PowerBudget() {
+    }
+
+    /**
+     * Sets the most current the budget will ever hand out, however healthy the battery is.
+     *
+     * @param amps the total current limit in amps
+     */
+    public static void setCurrentLimit(double amps) {
+        validatePositive(amps, "amps");
+        currentLimit = amps;
+    }
+
+    /**
+     * Sets the battery voltage the budget tries to stay above, and the battery's internal resistance
+     * used to predict how far the voltage will sag for more current.
+     *
+     * @param volts the minimum battery voltage
+     * @param ohms the battery and wiring resistance in ohms
+     */
+    public static void setBatteryModel(double volts, double ohms) {
+        validatePositive(volts, "volts");
+        validatePositive(ohms, "ohms");
+        minVoltage = volts;
+        resistance = ohms;
+    }
+
+    /**
+     * Sets the share of the allowance that lower-priority motors may never use.
+     *
+     * @param fraction the reserved share for high-priority motors, from 0.0 to 1.0
+     */
+    public static void setReservedFraction(double fraction) {
+        if (!(fraction >= 0.0 && fraction <= 1.0)) {
+            throw new IllegalArgumentException("fraction must be between 0.0 and 1.0.");
+        }
+        reservedFraction = fraction;
+    }
+
+    /**
+     * Sets how quickly scaled-down motors are given their output back.
+     *
+     * @param scalePerLoop the most a scale may rise each loop, from 0.0 to 1.0
+     */
+    public static void setRecoveryRate(double scalePerLoop) {
+        if (!(scalePerLoop > 0.0 && scalePerLoop <= 1.0)) {
+            throw new IllegalArgumentException("scalePerLoop must be > 0 and <= 1.0.");
+        }
+        recoveryPerLoop = scalePerLoop;
+    }
+
+    /**
+     * Adds a motor to the budget, or changes the priority of one already in it.
+     *
+     * @param motor the motor to budget
+     * @param priority the motor's priority, or {@code null} to remove it from the budget
+     * @see Motor#setPowerPriority(Priority)
+     */
+    static void register(Motor motor, Priority priority) {
+        int index = indexOf(motor);
+
+        if (priority == null) {
+            if (index >= 0) {
+                remove(index);
+                motor.setBudgetScale(1.0);
+            }
+            return;
+        }
+
+        if (index >= 0) {
+            priorities[index] = priority.ordinal();
+            return;
+        }
+
+        if (count == motors.length) {
+            int capacity = Math.max(4, count * 2);
+            motors = Arrays.copyOf(motors, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+            supplyCurrentSignals = Arrays.copyOf(supplyCurrentSignals, capacity);
+        }
+        motors[count] = motor;
+        priorities[count] = priority.ordinal();
+        supplyCurrentSignals[count] = motor.getTalonFX().getSupplyCurrent(false);
+        count++;
+        rebuildSignals();
+    }
+
+    /**
+     * Measures the battery and every budgeted motor, and rescales each priority's motors.
+     *
+     * <p>Call once per loop, before the motors update.
+     */
+    public static void update() {
+        if (count == 0) {
+            return;
+        }
+
+        BaseStatusSignal.refreshAll(signals);
+        batteryVoltage = RobotController.getBatteryVoltage();
+
+        Arrays.fill(demand, 0.0);
+        totalCurrent = 0.0;
+        for (int i = 0; i < count; i++) {
+            double current = Math.abs(supplyCurrentSignals[i].getValueAsDouble());
+            int priority = priorities[i];
+            totalCurrent += current;
+            // Measured current is already scaled down, so undo that to see what the motors want
+            demand[priority] += current / Math.max(scales[priority], MIN_INFERENCE_SCALE);
+        }
+
+        // How much more current the battery can give before sagging to the minimum voltage
+        double headroom = (batteryVoltage - minVoltage) / resistance;
+        allowedCurrent = Math.max(0.0, Math.min(currentLimit, totalCurrent + headroom));
+
+        double highDemand = demand[Priority.HIGH.ordinal()];
+        double remaining = allowedCurrent;
+        remaining -= allocate(Priority.HIGH.ordinal(), highDemand, remaining);
+        // Lower priorities never dip into the reserve, whether or not high priority is using it
+        remaining = Math.min(remaining, allowedCurrent * (1.0 - reservedFraction));
+        for (int priority = Priority.HIGH.ordinal() + 1; priority < PRIORITIES.length; priority++) {
+            remaining -= allocate(priority, demand[priority], Math.max(0.0, remaining));
+        }
+
+        for (int i = 0; i < count; i++) {
+            motors[i].setBudgetScale(scales[priorities[i]]);
+        }
+    }
+
+    /**
+     * Gets the output scale currently applied to a priority.
+     *
+     * @param priority the priority to check
+     * @return the scale, from 0.0 to 1.0
+     */
+    public static double getScale(Priority priority) {
+        return scales[priority.ordinal()];
+    }
+
+    /**
+     * Gets the current a priority's motors would draw if they were not scaled.
+     *
+     * @param priority the priority to check
+     * @return the estimated demand in amps
+     */
+    public static double getDemand(Priority priority) {
+        return demand[priority.ordinal()];
+    }
+
+    public static double getBatteryVoltage() {
+        return batteryVoltage;
+    }
+
+    public static double getTotalCurrent() {
+        return totalCurrent;
+    }
+
+    /**
+     * Gets the current the battery could deliver last loop while staying above the minimum voltage.
+     *
+     * @return the allowance in amps, or {@code NaN} before the first update
+     */
+    public static double getAllowedCurrent() {
+        return allowedCurrent;
+    }
+
+    public static int getMotorCount() {
+        return count;
+    }
+
+    /**
+     * Grants a priority up to the available current and updates its scale.
+     *
+     * @return the current granted
+     */
+    private static double allocate(int priority, double wanted, double available) {
+        double granted = Math.min(wanted, available);
+        double target = wanted > 0.0 ? granted / wanted : 1.0;
+
+        // Cut at once, recover gradually, so a bucket does not flicker at the edge of the budget
+        scales[priority] = target < scales[priority]
+            ? target
+            : Math.min(target, scales[priority] + recoveryPerLoop);
+        return granted;
+    }
+
+    private static int indexOf(Motor motor) {
+        for (int i = 0; i < count; i++) {
+            if (motors[i] == motor) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void remove(int index) {
+        count--;
+        motors[index] = motors[count];
+        priorities[index] = priorities[count];
+        supplyCurrentSignals[index] = supplyCurrentSignals[count];
+        motors[count] = null;
+        supplyCurrentSignals[count] = null;
+        rebuildSignals();
+    }
+
+    private static void rebuildSignals() {
+        signals = Arrays.copyOf(supplyCurrentSignals, count, BaseStatusSignal[].class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static StatusSignal<Current>[] newSignalArray(int length) {
+        return new StatusSignal[length];
+    }
+
+    private static void validatePositive(double value, String name) {
+        if (!(value > 0.0) || !Double.isFinite(value)) {
+            throw new IllegalArgumentException(name + " must be > 0.");
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+
+/**
+ * Refreshes the status signals of many motors once per loop, in one batched call per CAN bus.
+ *
+ * <p>Motors are grouped by the CAN bus they were created on. By default {@link #refresh()} takes
+ * the latest received values of every bus on the calling thread, which never blocks, so there is
+ * nothing to gain from doing it in parallel. Only with a {@linkplain #setWaitTimeout(double) wait
+ * timeout}, where each bus blocks until its signals update, does every bus after the first get a
+ * worker thread: the buses then wait together, so a loop spends as long as the slowest bus rather
+ * than the sum of all of them. Workers are started on the first refresh that needs them and kept
+ * when the motors are {@linkplain #track(List) retracked}.
+ *
+ * <p>While registered, motors read their signals from the values cached by the last refresh
+ * instead of refreshing on every read, so everything in a loop sees the same snapshot. Control
+ * requests are still sent from the robot loop.
+ *
+ * <pre>
+ * SignalAcquisition signals = new SignalAcquisition(List.of(elevatorLeft, elevatorRight, intake));
+ * // At the start of robotPeriodic:
+ * signals.refresh();
+ * </pre>
+ */
+public class SignalAcquisition implements AutoCloseable {
+    private Motor[] motors = new Motor[0];
+    private String[] busNames = new String[0];
+    private BaseStatusSignal[][] busSignals = new BaseStatusSignal[0][];
+
+    /** The worker of each bus after the first, once a wait timeout has needed it. */
+    private Worker[] workers = new Worker[0];
+    /** Every worker started, by bus, so retracking keeps them. */
+    private final Map<String, Worker> workersByBus = new LinkedHashMap<>();
+
+    /** Workers release one permit each when they finish a refresh. */
+    private final Semaphore done = new Semaphore(0);
+
+    private volatile double waitTimeoutSeconds = 0.0;
+    private boolean closed = false;
+
+    /**
+     * Groups motors by CAN bus.
+     *
+     * @param motors the motors to refresh
+     */
+    public SignalAcquisition(List<Motor> motors) {
+        track(motors);
+    }
+
+    /**
+     * Replaces the motors refreshed, keeping the workers of buses that are still used.
+     *
+     * <p>Motors no longer in the list go back to refreshing their own signals.
+     *
+     * @param motors the motors to refresh
+     * @return this acquisition
+     */
+    public SignalAcquisition track(List<Motor> motors) {
+        if (closed) {
+            throw new IllegalStateException("SignalAcquisition is closed.");
+        }
+        if (motors == null || motors.isEmpty()) {
+            throw new IllegalArgumentException("motors cannot be empty.");
+        }
+
+        Map<String, List<BaseStatusSignal>> signalsByBus = new LinkedHashMap<>();
+        for (Motor motor : motors) {
+            if (motor == null) {
+                throw new IllegalArgumentException("motors cannot contain null.");
+            }
+            List<BaseStatusSignal> signals = signalsByBus.computeIfAbsent(motor.getCanbus(), bus -> new ArrayList<>());
+            for (BaseStatusSignal signal : motor.getStatusSignals()) {
+                signals.add(signal);
+            }
+        }
+
+        for (Motor motor : this.motors) {
+            motor.setSignalsRefreshedExternally(false);
+        }
+        this.motors = motors.toArray(new Motor[0]);
+        this.busNames = signalsByBus.keySet().toArray(new String[0]);
+        this.busSignals = new BaseStatusSignal[busNames.length][];
+        for (int bus = 0; bus < busNames.length; bus++) {
+            busSignals[bus] = signalsByBus.get(busNames[bus]).toArray(new BaseStatusSignal[0]);
+        }
+
+        // Workers of buses that are gone stop; the rest are pointed at their bus's new signals
+        Iterator<Map.Entry<String, Worker>> entries = workersByBus.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, Worker> entry = entries.next();
+            if (!signalsByBus.containsKey(entry.getKey())) {
+                entry.getValue().interrupt();
+                entries.remove();
+            }
+        }
+        this.workers = new Worker[Math.max(0, busNames.length - 1)];
+        for (int bus = 1; bus < busNames.length; bus++) {
+            Worker worker = workersByBus.get(busNames[bus]);
+            if (worker != null) {
+                worker.signals = busSignals[bus];
+                workers[bus - 1] = worker;
+            }
+        }
+
+        for (Motor motor : this.motors) {
+            motor.setSignalsRefreshedExternally(true);
+        }
+        return this;
+    }
+
+    /**
+     * Waits for fresh data on each bus instead of taking the latest received values.
+     *
+     * <p>With a timeout, each bus blocks until every signal on it has updated or the timeout
+     * passes, which lines the snapshot up with the bus but costs up to the timeout per loop; a
+     * robot with more than one bus waits on them in parallel. With 0, the default, refreshing
+     * never waits for the bus and stays on the calling thread.
+     *
+     * @param timeoutSeconds how long each bus may wait for new data, or 0 to not wait
+     * @return this acquisition
+     */
+    public SignalAcquisition setWaitTimeout(double timeoutSeconds) {
+        if (!Double.isFinite(timeoutSeconds) || timeoutSeconds < 0.0) {
+            throw new IllegalArgumentException("timeoutSeconds must be >= 0.");
+        }
+        this.waitTimeoutSeconds = timeoutSeconds;
+        return this;
+    }
+
+    /**
+     * Refreshes every motor's signals and returns once all are done.
+     */
+    public void refresh() {
+        if (closed) {
+            throw new IllegalStateException("SignalAcquisition is closed.");
+        }
+
+        double timeoutSeconds = waitTimeoutSeconds;
+        BaseStatusSignal[][] busSignals = this.busSignals;
+        if (timeoutSeconds <= 0.0 || busSignals.length == 1) {
+            // Nothing blocks, so a handoff would only add latency
+            for (BaseStatusSignal[] signals : busSignals) {
+                refreshBus(signals, timeoutSeconds);
+            }
+            return;
+        }
+
+        Worker[] workers = this.workers;
+        for (int i = 0; i < workers.length; i++) {
+            if (workers[i] == null) {
+                workers[i] = startWorker(i + 1);
+            }
+            workers[i].start.release();
+        }
+        // The first bus waits on this thread while the workers wait on theirs
+        refreshBus(busSignals[0], timeoutSeconds);
+        done.acquireUninterruptibly(workers.length);
+    }
+
+    public int getBusCount() {
+        return busNames.length;
+    }
+
+    public String getBusName(int bus) {
+        return busNames[bus];
+    }
+
+    /**
+     * Checks whether a motor's signals are refreshed here.
+     *
+     * @param motor the motor to check
+     * @return whether the motor is tracked
+     */
+    public boolean isTracking(Motor motor) {
+        for (Motor tracked : motors) {
+            if (tracked == motor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stops the workers and returns the motors to refreshing their own signals.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        for (Worker worker : workersByBus.values()) {
+            worker.interrupt();
+        }
+        workersByBus.clear();
+        for (Motor motor : motors) {
+            motor.setSignalsRefreshedExternally(false);
+        }
+    }
+
+    private Worker startWorker(int bus) {
+        Worker worker = workersByBus.get(busNames[bus]);
+        if (worker == null) {
+            worker = new Worker(busNames[bus]);
+            workersByBus.put(busNames[bus], worker);
+            worker.start();
+        }
+        worker.signals = busSignals[bus];
+        return worker;
+    }
+
+    private static void refreshBus(BaseStatusSignal[] signals, double timeoutSeconds) {
+        if (timeoutSeconds > 0.0) {
+            BaseStatusSignal.waitForAll(timeoutSeconds, signals);
+        } else {
+            BaseStatusSignal.refreshAll(signals);
+        }
+    }
+
+    private final class Worker extends Thread {
+        /** Set by the robot loop before each start permit, which publishes it to this thread. */
+        private BaseStatusSignal[] signals;
+        private final Semaphore start = new Semaphore(0);
+
+        private Worker(String busName) {
+            super("WhatTime-Signals-" + busName);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    start.acquire();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                try {
+                    refreshBus(signals, waitTimeoutSeconds);
+                } finally {
+                    done.release();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.controls.CoastOut;
+import com.ctre.phoenix6.hardware.TalonFX;
+
+import edu.wpi.first.units.measure.Angle;
+
+/**
+ * {@link MotorIO} for a CTRE TalonFX.
+ *
+ * <p>The position signal and control requests are created once, so each tick only sends and
+ * reads what it must.
+ */
+public final class TalonFXIO implements MotorIO {
+    private final TalonFX talon;
+    private final String canbus;
+    private final StatusSignal<Angle> positionSignal;
+    private final CoastOut coastRequest = new CoastOut();
+
+    /**
+     * Wraps a TalonFX.
+     *
+     * @param talon the TalonFX
+     * @param canbus the name of the bus the TalonFX is on
+     */
+    public TalonFXIO(TalonFX talon, String canbus) {
+        if (talon == null) {
+            throw new IllegalArgumentException("talon cannot be null.");
+        }
+        this.talon = talon;
+        this.canbus = canbus;
+        this.positionSignal = talon.getPosition();
+    }
+
+    @Override
+    public void setOutput(double output) {
+        talon.set(output);
+    }
+
+    @Override
+    public double getPosition(boolean refresh) {
+        if (refresh) {
+            return positionSignal.refresh().getValueAsDouble();
+        }
+        return positionSignal.getValueAsDouble();
+    }
+
+    @Override
+    public void coast() {
+        talon.setControl(coastRequest);
+    }
+
+    @Override
+    public int getDeviceId() {
+        return talon.getDeviceID();
+    }
+
+    @Override
+    public String getCanbus() {
+        return canbus;
+    }
+
+    public TalonFX getTalonFX() {
+        return talon;
+    }
+
+    public StatusSignal<Angle> getPositionSignal() {
+        return positionSignal;
+    }
+}
@@ -0,0 +1,221 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+/**
+ * Tracks progress through a {@link MotorTrajectory} for the motors following it.
+ *
+ * <p>Every motor following the same trajectory shares one follower, so they all sample the same
+ * setpoint. The follower's clock advances by the time elapsed since it was last updated, so
+ * however many motors update it in a loop, it moves forward by the length of that loop. At a
+ * stop the clock waits until every motor has reported being within its threshold of the stop.
+ * A motor that stops following, because it was disabled or given another command, detaches and
+ * is no longer waited for.
+ *
+ * <p>Sampling only writes primitive fields, so following allocates nothing per loop.
+ *
+ * @see Motor#follow(MotorTrajectory)
+ * @see MotorGroup#follow(MotorTrajectory)
+ */
+public class TrajectoryFollower {
+    /** The most motors one follower tracks; attached and settled motors are kept in {@code long} masks. */
+    public static final int MAX_MOTORS = 64;
+
+    private final MotorTrajectory trajectory;
+
+    private long attachedMask = 0L;
+    private long settledMask = 0L;
+
+    private double time;
+    private double lastTimestamp = Double.NaN;
+    private int index = 0;
+    private int nextStop;
+    private boolean waiting = false;
+    private boolean finished = false;
+    private boolean cancelled = false;
+    private boolean paused = false;
+
+    private double position;
+    private double velocity;
+    private double acceleration;
+
+    /**
+     * Creates a follower positioned at the start of a trajectory.
+     *
+     * @param trajectory the trajectory to follow
+     */
+    public TrajectoryFollower(MotorTrajectory trajectory) {
+        if (trajectory == null) {
+            throw new IllegalArgumentException("trajectory cannot be null.");
+        }
+        this.trajectory = trajectory;
+        this.time = trajectory.getTime(0);
+        // A stop on the first point waits for the motors to reach the start
+        this.nextStop = trajectory.nextStop(0);
+        sample();
+    }
+
+    /**
+     * Adds a motor to the set that must settle at each stop.
+     *
+     * @return the motor's slot, for {@link #reportSettled(int, boolean)} and {@link #detach(int)}
+     */
+    int attach() {
+        if (attachedMask == -1L) {
+            throw new IllegalStateException("A trajectory can be followed by at most " + MAX_MOTORS + " motors.");
+        }
+        int slot = Long.numberOfTrailingZeros(~attachedMask);
+        attachedMask |= 1L << slot;
+        settledMask &= ~(1L << slot);
+        return slot;
+    }
+
+    /**
+     * Removes a motor from the set that must settle at each stop, freeing its slot.
+     *
+     * @param slot the slot returned by {@link #attach()}
+     */
+    void detach(int slot) {
+        attachedMask &= ~(1L << slot);
+        settledMask &= ~(1L << slot);
+    }
+
+    /**
+     * Advances the clock to a timestamp and samples the trajectory there.
+     *
+     * @param timestamp the current time in seconds
+     */
+    void update(double timestamp) {
+        double dt = Double.isNaN(lastTimestamp) ? 0.0 : Math.max(0.0, timestamp - lastTimestamp);
+        lastTimestamp = timestamp;
+
+        if (finished) {
+            return;
+        }
+
+        if (paused) {
+            // Hold the current setpoint; the paused time is not made up
+            velocity = 0.0;
+            acceleration = 0.0;
+            return;
+        }
+
+        if (waiting) {
+            if (!allSettled()) {
+                return;
+            }
+            waiting = false;
+            if (nextStop == trajectory.getLength() - 1) {
+                finished = true;
+                return;
+            }
+            nextStop = trajectory.nextStop(nextStop + 1);
+            // Time spent waiting is not made up; the motion resumes from the stop
+            dt = 0.0;
+        }
+
+        time += dt;
+        double stopTime = trajectory.getTime(nextStop);
+        if (time >= stopTime) {
+            time = stopTime;
+            waiting = true;
+            settledMask = 0L;
+        }
+
+        index = trajectory.indexAt(time, index);
+        sample();
+    }
+
+    /**
+     * Records whether a motor is close enough to the current setpoint to leave a stop.
+     *
+     * @param slot the motor's slot
+     * @param settled whether the motor is within its threshold
+     */
+    void reportSettled(int slot, boolean settled) {
+        if ((attachedMask & 1L << slot) == 0L) {
+            return;
+        }
+        if (settled) {
+            settledMask |= 1L << slot;
+        } else {
+            settledMask &= ~(1L << slot);
+        }
+    }
+
+    /**
+     * Freezes the trajectory's clock, so the motors hold their current setpoint until resumed.
+     *
+     * @param paused whether the clock should stop
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Stops the follower; motors following it fall back to holding their last setpoint.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public MotorTrajectory getTrajectory() {
+        return trajectory;
+    }
+
+    /**
+     * Gets how far through the trajectory the follower is.
+     *
+     * @return the trajectory time in seconds
+     */
+    public double getTime() {
+        return time;
+    }
+
+    public double getPosition() {
+        return position;
+    }
+
+    public double getVelocity() {
+        return velocity;
+    }
+
+    public double getAcceleration() {
+        return acceleration;
+    }
+
+    /**
+     * Indicates whether the follower is waiting at a stop for the motors to catch up.
+     *
+     * @return {@code true} while the clock is paused at a stop
+     */
+    public boolean isWaiting() {
+        return waiting;
+    }
+
+    /**
+     * Indicates whether every motor has reached the end of the trajectory.
+     *
+     * @return {@code true} once the final stop is settled
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private boolean allSettled() {
+        return (settledMask & attachedMask) == attachedMask;
+    }
+
+    private void sample() {
+        position = trajectory.positionAt(index, time);
+        // Motors hold still while waiting at a stop
+        velocity = waiting ? 0.0 : trajectory.velocityAt(index, time);
+        acceleration = waiting ? 0.0 : trajectory.accelerationAt(index, time);
+    }
+}
@@ -4,19 +4,19 @@ import java.util.List;
 import java.util.OptionalDouble;
 
 import com.btwrobotics.WhatTime.frc.MotorManagers.Motor;
-import com.btwrobotics.WhatTime.frc.MotorManagers.MotorWrapper;
+import com.btwrobotics.WhatTime.frc.MotorManagers.PositionAggregator;
 import com.ctre.phoenix6.signals.NeutralModeValue;
 
 import edu.wpi.first.wpilibj2.command.Command;
 
 /**
  * Manager for intelligent brake control on motor-driven mechanisms.
- * 
+ *
  * <p>SmartBrake provides automated position holding by actively controlling motors
  * to maintain a target position. Unlike simple brake mode which relies on motor
  * resistance, SmartBrake actively applies corrective power to counteract external
  * forces and hold position more precisely.
- * 
+ *
  * <p>This is particularly useful for mechanisms like elevators or arms that need
  * to hold position against gravity or other continuous forces. The system:
  * <ul>
@@ -25,36 +25,74 @@ import edu.wpi.first.wpilibj2.command.Command;
  *   <li>Respects upper and lower position bounds
  *   <li>Uses a threshold to avoid oscillation
  * </ul>
- * 
+ *
+ * <p>The target position can be changed at any time, from any thread, with
+ * {@link #updateBrakePosition(double)}; a running {@link SmartBrakeHelper} picks it up
+ * on its next tick.
+ *
+ * <p>By default every correction is computed on the roboRIO each loop. With
+ * {@link #setHoldMode(HoldMode)} the holding itself can be handed to the TalonFX once the
+ * mechanism is within the threshold, either as a static brake or as an onboard position hold
+ * with gravity feedforward. The roboRIO then only watches for the mechanism slipping out of
+ * the hold and sends nothing until it does.
+ *
  * <p>The class also provides methods to enable/disable physical brake mode on
  * the motor controllers.
- * 
+ *
  * @see SmartBrakeHelper
- * @see MotorWrapper
+ * @see Motor
  */
 public class SmartBrake {
+    /** How the mechanism is held once it is within the threshold of the target. */
+    public enum HoldMode {
+        /** The roboRIO keeps sending corrections every loop. */
+        RIO,
+        /** The TalonFX shorts its windings with the {@code StaticBrake} control. */
+        STATIC_BRAKE,
+        /** The TalonFX runs a {@code PositionVoltage} hold at the position it entered the hold at. */
+        POSITION
+    }
+
+    /** The default output added to every correction to hold against gravity and friction. */
+    public static final double DEFAULT_FEEDFORWARD = 0.05;
+
     /** The list of motors controlled by this SmartBrake instance. */
-    private final List<MotorWrapper> motors;
-    
+    private final List<Motor> motors;
+
+    /** Combines the motors' positions, leaving out stale or slipping encoders. */
+    private final PositionAggregator positionAggregator;
+
     /** The target position to maintain when SmartBrake is active. */
-    private double targetPosition;
-    
+    private volatile double targetPosition;
+
     /** The maximum speed allowed for corrective movements. */
     private final double maxSpeed;
-    
+
     /** The tolerance for considering position maintained (deadband). */
     private final double threshold;
-    
+
     /** The maximum allowed position value (upper limit). */
     private final double maxValue;
-    
+
     /** The minimum allowed position value (lower limit). */
     private final double minValue;
 
+    /** The constant output added to every correction. */
+    private volatile double feedforward = DEFAULT_FEEDFORWARD;
+
+    /** How the mechanism is held within the threshold. */
+    private volatile HoldMode holdMode = HoldMode.RIO;
+
+    /** The voltage added to a {@link HoldMode#POSITION} hold to cancel gravity. */
+    private volatile double gravityFeedforwardVolts = 0.0;
+
+    /** The TalonFX gain slot used by a {@link HoldMode#POSITION} hold. */
+    private volatile int holdSlot = 0;
+
 
     /**
      * Creates a new SmartBrake controller.
-     * 
+     *
      * @param motors the list of motors to control together
      * @param maxSpeed optional maximum speed for corrections; defaults to 0.3 if empty
      * @param targetPosition the initial target position to maintain
@@ -62,77 +100,247 @@ public class SmartBrake {
      * @param maxValue the maximum allowed position (upper limit)
      * @param minValue the minimum allowed position (lower limit)
      */
-    public SmartBrake(List<MotorWrapper> motors, OptionalDouble maxSpeed, double targetPosition, double threshold, double maxValue, double minValue) {
+    public SmartBrake(List<Motor> motors, OptionalDouble maxSpeed, double targetPosition, double threshold, double maxValue, double minValue) {
+        if (motors == null || motors.isEmpty()) {
+            throw new IllegalArgumentException("motors cannot be empty.");
+        }
+        if (maxValue <= minValue) {
+            throw new IllegalArgumentException("maxValue must be greater than minValue.");
+        }
+        if (threshold < 0.0) {
+            throw new IllegalArgumentException("threshold must be >= 0.");
+        }
+
         this.motors = motors;
+        this.positionAggregator = new PositionAggregator(motors);
 
         // Sets the custom max speed with a fallback of 0.3.
         this.maxSpeed = maxSpeed.orElse(0.3);
 
-        this.targetPosition = targetPosition;
         this.threshold = threshold;
         this.maxValue = maxValue;
         this.minValue = minValue;
+        this.targetPosition = clampTarget(targetPosition);
     }
 
     /**
      * Creates and returns a command that actively maintains the target position.
-     * 
+     *
      * <p>The returned command will continuously monitor position and apply
      * corrective motor power to hold the mechanism at the target position.
      * This command should be run as a default command for subsystems requiring
      * active position holding.
-     * 
+     *
      * @return a command that implements the SmartBrake position holding behavior
      * @see SmartBrakeHelper
      */
     public Command enableSmartBrakes() {
-        return new SmartBrakeHelper(motors, maxSpeed, targetPosition, threshold, maxValue, minValue);
+        return new SmartBrakeHelper(this);
     }
 
     /**
      * Updates the target position that SmartBrake will maintain.
-     * 
+     *
      * <p>Call this method to change where the mechanism should hold position.
      * The active SmartBrake command will automatically adjust to the new target.
-     * 
+     * Targets outside the position limits are clamped to them. Safe to call from any thread.
+     *
      * @param targetPosition the new target position to maintain
      */
     public void updateBrakePosition(double targetPosition) {
-        this.targetPosition = targetPosition;
+        this.targetPosition = clampTarget(targetPosition);
     }
 
     /**
      * Gets the current target position.
-     * 
+     *
      * @return the target position value
      */
     public double getBrakePositionAsDouble() {
         return targetPosition;
     }
 
+    /**
+     * Sets the constant output added to every correction.
+     *
+     * <p>Use it to cancel gravity on elevators and arms, or set it to 0 for mechanisms
+     * with nothing to hold against. Defaults to {@value #DEFAULT_FEEDFORWARD}.
+     *
+     * @param feedforward the output added to every correction, from -1.0 to 1.0
+     * @return this SmartBrake
+     */
+    public SmartBrake setFeedforward(double feedforward) {
+        if (!Double.isFinite(feedforward) || Math.abs(feedforward) > 1.0) {
+            throw new IllegalArgumentException("feedforward must be between -1.0 and 1.0.");
+        }
+        this.feedforward = feedforward;
+        return this;
+    }
+
+    public double getFeedforward() {
+        return feedforward;
+    }
+
+    /**
+     * Sets how the mechanism is held once it is within the threshold of the target.
+     *
+     * <p>With {@link HoldMode#STATIC_BRAKE} or {@link HoldMode#POSITION}, one control request is
+     * sent to each TalonFX when the hold starts and the device holds from then on. If the
+     * mechanism slips more than twice the threshold from the target, or the target changes,
+     * the roboRIO takes over again until the mechanism is back within the threshold.
+     *
+     * <p>Device-side holds need every motor to be on a TalonFX.
+     *
+     * @param holdMode how to hold
+     * @return this SmartBrake
+     */
+    public SmartBrake setHoldMode(HoldMode holdMode) {
+        if (holdMode == null) {
+            throw new IllegalArgumentException("holdMode cannot be null.");
+        }
+        if (holdMode != HoldMode.RIO) {
+            for (Motor motor : motors) {
+                if (motor.getTalonFX() == null) {
+                    throw new IllegalStateException(holdMode + " hold needs a TalonFX; motor "
+                        + motor.getCanbus() + "." + motor.getIO().getDeviceId() + " is not one.");
+                }
+            }
+        }
+        this.holdMode = holdMode;
+        return this;
+    }
+
+    public HoldMode getHoldMode() {
+        return holdMode;
+    }
+
+    /**
+     * Sets the voltage a {@link HoldMode#POSITION} hold adds to cancel gravity.
+     *
+     * <p>Given in the direction that raises the mechanism when the motor is not inverted;
+     * inverted motors get the opposite sign.
+     *
+     * @param volts the gravity feedforward in volts
+     * @return this SmartBrake
+     */
+    public SmartBrake setGravityFeedforwardVolts(double volts) {
+        if (!Double.isFinite(volts)) {
+            throw new IllegalArgumentException("gravityFeedforwardVolts must be finite.");
+        }
+        this.gravityFeedforwardVolts = volts;
+        return this;
+    }
+
+    public double getGravityFeedforwardVolts() {
+        return gravityFeedforwardVolts;
+    }
+
+    /**
+     * Sets the TalonFX gain slot a {@link HoldMode#POSITION} hold uses.
+     *
+     * <p>The slot's gains must be configured on the device, for example with
+     * {@link #configureHoldGains(double, double)}, which writes them to this slot. Motors that also
+     * {@linkplain Motor#runAtVelocity(double) run at a velocity} keep their velocity gains in slot
+     * {@value Motor#VELOCITY_SLOT}, so give the hold slot 1 or 2.
+     *
+     * @param holdSlot the slot, from 0 to 2
+     * @return this SmartBrake
+     */
+    public SmartBrake setHoldSlot(int holdSlot) {
+        if (holdSlot < 0 || holdSlot > 2) {
+            throw new IllegalArgumentException("holdSlot must be between 0 and 2.");
+        }
+        this.holdSlot = holdSlot;
+        return this;
+    }
+
+    public int getHoldSlot() {
+        return holdSlot;
+    }
+
+    /**
+     * Applies position hold gains to the {@linkplain #setHoldSlot(int) hold slot} of every motor.
+     *
+     * <p>Only kP and kD are changed on each device, and they are committed right away, blocking
+     * while they are sent, so call it during robot initialization, after setting the hold slot.
+     * A hold slot of {@value Motor#VELOCITY_SLOT} is rejected on motors that already have
+     * velocity gains there.
+     *
+     * @param kP the proportional gain, in volts per rotation of error
+     * @param kD the derivative gain, in volts per rotation per second of error
+     * @return this SmartBrake
+     */
+    public SmartBrake configureHoldGains(double kP, double kD) {
+        if (!Double.isFinite(kP) || kP < 0.0 || !Double.isFinite(kD) || kD < 0.0) {
+            throw new IllegalArgumentException("kP and kD must be finite and >= 0.");
+        }
+
+        for (Motor motor : motors) {
+            motor.setPositionGains(holdSlot, kP, kD).commit();
+        }
+        return this;
+    }
+
+    public List<Motor> getMotors() {
+        return motors;
+    }
+
+    /**
+     * Gets the aggregator the mechanism's position is sampled with, for tuning its band and
+     * maximum age or checking which motors were rejected.
+     *
+     * @return the position aggregator
+     */
+    public PositionAggregator getPositionAggregator() {
+        return positionAggregator;
+    }
+
+    public double getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public double getMaxValue() {
+        return maxValue;
+    }
+
+    public double getMinValue() {
+        return minValue;
+    }
+
     /**
      * Enables physical brake mode on all motors.
-     * 
+     *
      * <p>Sets the neutral mode to BRAKE, causing motors to resist movement
      * when no power is applied. This is the traditional brake mode provided
      * by the motor controller hardware.
      */
     public void enableBrakes() {
-        for (MotorWrapper motor : motors) {
-            motor.getMotor().setNeutralMode(NeutralModeValue.Brake);
+        for (Motor motor : motors) {
+            motor.setNeutralMode(NeutralModeValue.Brake);
         }
     }
 
     /**
      * Disables physical brake mode on all motors.
-     * 
+     *
      * <p>Sets the neutral mode to COAST, allowing motors to spin freely
      * when no power is applied. Useful for manual positioning or allowing
      * mechanisms to settle naturally.
      */
     public void disableBrakes() {
-        for (MotorWrapper motor : motors) {
-            motor.getMotor().setNeutralMode(NeutralModeValue.Coast);
+        for (Motor motor : motors) {
+            motor.setNeutralMode(NeutralModeValue.Coast);
+        }
+    }
+
+    private double clampTarget(double targetPosition) {
+        if (!Double.isFinite(targetPosition)) {
+            throw new IllegalArgumentException("targetPosition must be finite.");
         }
+        return Math.max(minValue, Math.min(maxValue, targetPosition));
     }
 }
@@ -1,144 +1,243 @@
 package com.btwrobotics.WhatTime.frc.SmartBrake;
 
-import java.util.List;
-
-import com.btwrobotics.WhatTime.frc.MotorManagers.MotorPositionHandler;
-import com.btwrobotics.WhatTime.frc.MotorManagers.MotorWrapper;
+import com.btwrobotics.WhatTime.frc.MotorManagers.Motor;
+import com.btwrobotics.WhatTime.frc.SmartBrake.SmartBrake.HoldMode;
+import com.ctre.phoenix6.controls.PositionVoltage;
+import com.ctre.phoenix6.controls.StaticBrake;
 
 import edu.wpi.first.wpilibj2.command.Command;
 
 /**
  * Command implementation for SmartBrake position holding with proportional control.
- * 
+ *
  * <p>This command implements the active position holding logic for SmartBrake.
- * It continuously monitors the average position of controlled motors and applies
- * proportional corrective power to maintain the target position.
- * 
+ * Each tick it samples the position of the controlled motors exactly once through the
+ * SmartBrake's {@link com.btwrobotics.WhatTime.frc.MotorManagers.PositionAggregator},
+ * reads the live target from its {@link SmartBrake}, and applies proportional
+ * corrective power to maintain the target position.
+ *
  * <p>The control algorithm uses distance-based proportional control:
  * <ul>
- *   <li>Within threshold: No corrective action needed
- *   <li>Below target: Apply upward force proportional to distance from minimum
- *   <li>Above target: Apply downward force proportional to distance from maximum
+ *   <li>Within threshold: Only the feedforward is applied
+ *   <li>Below target: The correction is the error as a fraction of the distance
+ *       from the target down to the minimum, times the maximum speed
+ *   <li>Above target: The correction is the error as a fraction of the distance
+ *       from the target up to the maximum, times the maximum speed
  * </ul>
- * 
- * <p>A small constant (0.05) is added to overcome static friction and ensure movement.
- * 
+ *
+ * <p>A small constant feedforward (0.05 by default) is added to overcome gravity and static
+ * friction, and the total output is limited to the maximum speed. The command requires every
+ * motor it drives, so their default commands do not fight it.
+ *
+ * <p>With a device-side {@link HoldMode}, reaching the threshold sends one {@code StaticBrake} or
+ * {@code PositionVoltage} request to each motor instead of the feedforward, and nothing more is
+ * sent until the mechanism drifts past twice the threshold or the target changes. The control
+ * requests are allocated once, when the command is created.
+ *
  * @see SmartBrake
- * @see MotorPositionHandler
  */
 public class SmartBrakeHelper extends Command {
-    /** The list of motors to control for position holding. */
-    private final List<MotorWrapper> motors;
-    
-    /** The maximum speed allowed for corrective movements. */
-    private final double maxSpeed;
-    
-    /** The target position to maintain. */
-    private final double targetPosition;
-    
-    /** The tolerance for considering position maintained (deadband). */
-    private final double threshold;
-    
-    /** The maximum allowed position value (upper limit). */
-    private final double maxValue;
-    
-    /** The minimum allowed position value (lower limit). */
-    private final double minValue;
+    /** The SmartBrake this command holds for; its target is read every tick. */
+    private final SmartBrake smartBrake;
+
+    /** The motors to control for position holding. */
+    private final Motor[] motors;
+
+    /** The static brake request shared by every motor. */
+    private final StaticBrake staticBrakeRequest = new StaticBrake();
+
+    /** One position hold request per motor, since each holds its own device position. */
+    private final PositionVoltage[] positionRequests;
+
+    /** The hold mode the devices are currently holding with, or {@link HoldMode#RIO} if they are not. */
+    private HoldMode deviceHold = HoldMode.RIO;
+
+    /** The target the devices entered their hold at. */
+    private double deviceHoldTarget;
 
     /**
      * Creates a new SmartBrakeHelper command.
-     * 
-     * @param motors the list of motors to control together
-     * @param maxSpeed the maximum speed for corrective movements
-     * @param targetPosition the position to maintain
-     * @param threshold the tolerance for position holding
-     * @param maxValue the maximum allowed position (upper limit)
-     * @param minValue the minimum allowed position (lower limit)
+     *
+     * @param smartBrake the SmartBrake whose motors, limits and target to use
      */
-    public SmartBrakeHelper(List<MotorWrapper> motors, double maxSpeed, double targetPosition, double threshold, double maxValue, double minValue) {
-        this.motors = motors;
-        this.maxSpeed = maxSpeed;
-        this.targetPosition = targetPosition;
-        this.threshold = threshold;
-        this.maxValue = maxValue;
-        this.minValue = minValue;
-    }
+    public SmartBrakeHelper(SmartBrake smartBrake) {
+        this.smartBrake = smartBrake;
+        this.motors = smartBrake.getMotors().toArray(new Motor[0]);
 
-    /** Internal flag for command completion status. */
-    private boolean isFinishedToggle = false;
+        positionRequests = new PositionVoltage[motors.length];
+        for (int i = 0; i < motors.length; i++) {
+            positionRequests[i] = new PositionVoltage(0.0);
+        }
 
-    /** Handler for calculating average motor positions. */
-    private MotorPositionHandler motorPositionHandler = new MotorPositionHandler();
+        addRequirements(motors);
+    }
 
     /**
-     * Initializes the command by resetting the finished flag.
-     * 
+     * Starts with the roboRIO in control.
+     *
      * <p>Called when the command is first scheduled.
      */
     @Override
     public void initialize() {
-        isFinishedToggle = false;
+        deviceHold = HoldMode.RIO;
     }
 
     /**
      * Executes the position holding control logic.
-     * 
+     *
      * <p>Called repeatedly while the command is scheduled. This method:
      * <ol>
-     *   <li>Calculates the average position of all motors
-     *   <li>If within threshold, applies no correction
-     *   <li>If below target, applies upward force proportional to distance from minimum
-     *   <li>If above target, applies downward force proportional to distance from maximum
+     *   <li>Samples the combined position of all motors once, leaving out stale or slipping ones
+     *   <li>If the devices are holding and the mechanism has not slipped, sends nothing
+     *   <li>If within threshold, starts a device-side hold or applies only the feedforward
+     *   <li>Otherwise applies a correction proportional to the error, scaled by the
+     *       distance between the target and the limit on that side
      * </ol>
-     * 
-     * <p>The proportional calculation scales motor speed based on how far the
-     * mechanism is from its limit, with a small constant offset to overcome friction.
      */
     @Override
     public void execute() {
-        // If the position is correct, do nothing
-        if (Math.abs(targetPosition - motorPositionHandler.averagePositions(motors)) <= threshold) {
+        double position = samplePosition();
+        double target = smartBrake.getBrakePositionAsDouble();
+
+        // Without a trustworthy position, stop and let the neutral mode hold
+        if (Double.isNaN(position)) {
+            deviceHold = HoldMode.RIO;
+            setAllMotors(0.0);
+            return;
         }
 
-        // Calculate percentage of movement
-        else {
-            // Below target
-            if (motorPositionHandler.averagePositions(motors) < targetPosition) {
-                double percentageMoved = Math.abs(motorPositionHandler.averagePositions(motors) / (minValue - targetPosition));
+        double error = Math.abs(target - position);
+        double threshold = smartBrake.getThreshold();
+        HoldMode holdMode = smartBrake.getHoldMode();
 
-                setAllMotors(percentageMoved * maxSpeed + 0.05);
+        if (deviceHold != HoldMode.RIO) {
+            // The devices keep holding on their own until the mechanism slips or the hold changes
+            if (deviceHold == holdMode && target == deviceHoldTarget && error <= threshold * 2.0) {
+                return;
             }
-            // Above target
-            else {
-                double percentageMoved = Math.abs(motorPositionHandler.averagePositions(motors) / (maxValue - targetPosition));
+            deviceHold = HoldMode.RIO;
+        }
 
-                setAllMotors(-percentageMoved * maxSpeed + 0.05);
-            }
+        if (holdMode != HoldMode.RIO && error <= threshold) {
+            startDeviceHold(holdMode, target);
+            return;
         }
+
+        setAllMotors(calculateSpeed(position, target));
+    }
+
+    /**
+     * Stops all motors when the command ends.
+     *
+     * @param interrupted whether the command was interrupted
+     */
+    @Override
+    public void end(boolean interrupted) {
+        deviceHold = HoldMode.RIO;
+        setAllMotors(0.0);
     }
 
     /**
-     * Determines whether the command has finished executing.
-     * 
-     * <p>This command is designed to run indefinitely as a default command,
-     * so it typically returns false. The finished toggle can be used to
-     * terminate the command if needed.
-     * 
-     * @return true if the command should finish, false otherwise
+     * Indicates whether the motors are holding on their own.
+     *
+     * @return {@code true} while a device-side hold is active
+     */
+    public boolean isDeviceHolding() {
+        return deviceHold != HoldMode.RIO;
+    }
+
+    /**
+     * This command is designed to run indefinitely as a default command.
+     *
+     * @return false
      */
     @Override
     public boolean isFinished() {
-        return isFinishedToggle;
+        return false;
+    }
+
+    /**
+     * Calculates the output for one tick.
+     *
+     * @param position the sampled position of the mechanism
+     * @param target the position to hold
+     * @return the speed to apply to every motor
+     */
+    private double calculateSpeed(double position, double target) {
+        double maxSpeed = smartBrake.getMaxSpeed();
+        double feedforward = smartBrake.getFeedforward();
+        double error = target - position;
+
+        if (Math.abs(error) <= smartBrake.getThreshold()) {
+            return feedforward;
+        }
+
+        // Full speed once the error reaches the distance between the target and the limit
+        double span = error > 0.0
+            ? target - smartBrake.getMinValue()
+            : smartBrake.getMaxValue() - target;
+        double fraction = span > 0.0 ? Math.min(Math.abs(error) / span, 1.0) : 1.0;
+        double speed = Math.copySign(fraction * maxSpeed, error) + feedforward;
+
+        // Never push further past a limit
+        if (position >= smartBrake.getMaxValue() && speed > 0.0) {
+            return 0.0;
+        }
+        if (position <= smartBrake.getMinValue() && speed < 0.0) {
+            return 0.0;
+        }
+
+        return Math.max(-maxSpeed, Math.min(maxSpeed, speed));
+    }
+
+    /**
+     * Hands holding to the motors with one control request each.
+     *
+     * @param holdMode the device-side hold to start
+     * @param target the target being held
+     */
+    private void startDeviceHold(HoldMode holdMode, double target) {
+        if (holdMode == HoldMode.STATIC_BRAKE) {
+            for (Motor motor : motors) {
+                motor.getTalonFX().setControl(staticBrakeRequest);
+            }
+        } else {
+            double gravityVolts = smartBrake.getGravityFeedforwardVolts();
+            int slot = smartBrake.getHoldSlot();
+
+            for (int i = 0; i < motors.length; i++) {
+                Motor motor = motors[i];
+
+                // Hold each device where it is now, in its own units, so no conversion is needed
+                PositionVoltage request = positionRequests[i]
+                    .withPosition(motor.getPosition())
+                    .withFeedForward(motor.isInverted() ? -gravityVolts : gravityVolts)
+                    .withSlot(slot);
+                motor.getTalonFX().setControl(request);
+            }
+        }
+
+        deviceHold = holdMode;
+        deviceHoldTarget = target;
+    }
+
+    /**
+     * Reads every motor's position once and combines them.
+     *
+     * @return the mechanism's position, or {@code NaN} if no motor has a fresh reading
+     */
+    private double samplePosition() {
+        return smartBrake.getPositionAggregator().update();
     }
 
     /**
      * Sets all controlled motors to the specified speed.
-     * 
+     *
      * @param speed the speed to apply to all motors
      */
     private void setAllMotors(double speed) {
         // Loops through all motors and sets the hold speed
-        for (MotorWrapper motor : motors) {
+        for (Motor motor : motors) {
             motor.set(speed);
         }
     }
@@ -0,0 +1,308 @@
+package com.btwrobotics.WhatTime.frc.YearlyMethods;
+
+import java.util.Optional;
+
+import com.btwrobotics.WhatTime.frc.DriverStation.MatchClock;
+import com.btwrobotics.WhatTime.frc.DriverStation.MatchStateSource;
+import com.btwrobotics.WhatTime.frc.YearlyMethods.GamePhaseSchedule.Period;
+import com.btwrobotics.WhatTime.frc.YearlyMethods.GamePhaseSchedule.Rule;
+
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+
+/**
+ * Tells whether the robot's alliance is active at the current point of a {@link GamePhaseSchedule}.
+ *
+ * <p>As soon as the game specific message and the robot's alliance are known, the schedule is
+ * compiled into tables indexed by whole seconds of match time remaining. From then on
+ * {@link #isActive()}, {@link #secondsUntilActive()} and {@link #secondsUntilInactive()} are
+ * array lookups against a {@link MatchClock}, with no parsing, allocation or driver station calls.
+ * The tables are rebuilt once per match period.
+ *
+ * <p>The game specific message names an alliance by its first character, {@code R} or {@code B}.
+ * Until it arrives, phases with the {@link Rule#ALL ALL} rule are active and every other phase
+ * is inactive. A period without any phases is active throughout.
+ */
+public class GamePhaseEngine {
+    private static final Optional<Alliance> RED = Optional.of(Alliance.Red);
+    private static final Optional<Alliance> BLUE = Optional.of(Alliance.Blue);
+
+    private final GamePhaseSchedule schedule;
+    private final MatchClock matchClock;
+    private final MatchStateSource source;
+
+    // Per period, indexed by whole seconds remaining, rounded up, so index n covers (n - 1, n] seconds
+    private final boolean[][] activeTables;
+    private final double[][] activationTables;
+    private final double[][] deactivationTables;
+
+    private Optional<Alliance> messageAlliance = Optional.empty();
+    private boolean tableBuilt = false;
+    private int tablePeriod = -1;
+
+    /**
+     * Creates an engine for a schedule.
+     *
+     * @param schedule the phases of the game
+     * @param matchClock the clock the time remaining is read from; updated elsewhere once per loop
+     * @param source the source of the alliance and game specific message
+     */
+    public GamePhaseEngine(GamePhaseSchedule schedule, MatchClock matchClock, MatchStateSource source) {
+        if (schedule == null || matchClock == null || source == null) {
+            throw new IllegalArgumentException("schedule, matchClock and source cannot be null.");
+        }
+        this.schedule = schedule;
+        this.matchClock = matchClock;
+        this.source = source;
+
+        int periodCount = Period.values().length;
+        activeTables = new boolean[periodCount][];
+        activationTables = new double[periodCount][];
+        deactivationTables = new double[periodCount][];
+
+        for (Period period : Period.values()) {
+            int size = schedule.getLength(period) + 1;
+            activeTables[period.ordinal()] = new boolean[size];
+            activationTables[period.ordinal()] = new double[size];
+            deactivationTables[period.ordinal()] = new double[size];
+        }
+    }
+
+    public GamePhaseSchedule getSchedule() {
+        return schedule;
+    }
+
+    /**
+     * Gets the period the match clock is in.
+     *
+     * @return the running period, or {@code null} when no period is running
+     */
+    public Period getPeriod() {
+        if (!matchClock.isRunning()) {
+            return null;
+        }
+        return matchClock.isAutonomous() ? Period.AUTO : Period.TELEOP;
+    }
+
+    /**
+     * Gets the phase the match clock is in.
+     *
+     * @return the phase index within {@link #getPeriod()}, or -1 when no phase is running
+     */
+    public int getPhase() {
+        Period period = getPeriod();
+        if (period == null) {
+            return -1;
+        }
+        return schedule.phaseAt(period, tableIndex(period, matchClock.getRemaining()));
+    }
+
+    /**
+     * Gets the rule of the phase the match clock is in.
+     *
+     * @return the rule, or {@link Rule#ALL} when no phase is running
+     */
+    public Rule getRule() {
+        int phase = getPhase();
+        return phase < 0 ? Rule.ALL : schedule.getPhaseRule(getPeriod(), phase);
+    }
+
+    /**
+     * Indicates whether the robot's alliance is active.
+     *
+     * @return {@code true} when active or when no phase is running; {@code false} when inactive,
+     *         or in a phase that depends on the alliance or game specific message before they are known
+     */
+    public boolean isActive() {
+        Period period = getPeriod();
+        if (period == null || schedule.getPhaseCount(period) == 0) {
+            return true;
+        }
+
+        int index = tableIndex(period, matchClock.getRemaining());
+        if (!ensureTable()) {
+            int phase = schedule.phaseAt(period, index);
+            return phase < 0 || schedule.getPhaseRule(period, phase) == Rule.ALL;
+        }
+        return activeTables[period.ordinal()][index];
+    }
+
+    /**
+     * Gets how long until the robot's alliance becomes active.
+     *
+     * @return 0 while active, the seconds until it becomes active, or {@code NaN} if the
+     *         schedule depends on data that is not known yet
+     */
+    public double secondsUntilActive() {
+        Period period = getPeriod();
+        if (period == null || schedule.getPhaseCount(period) == 0) {
+            return 0.0;
+        }
+        if (!ensureTable()) {
+            return Double.NaN;
+        }
+
+        double remaining = matchClock.getRemaining();
+        int index = tableIndex(period, remaining);
+        int p = period.ordinal();
+        return activeTables[p][index] ? 0.0 : remaining - activationTables[p][index];
+    }
+
+    /**
+     * Gets how long until the robot's alliance next becomes inactive.
+     *
+     * @return 0 while inactive, the seconds until it becomes inactive,
+     *         {@code Double.POSITIVE_INFINITY} if it stays active for the rest of the period or no
+     *         period is running, or {@code NaN} if the schedule depends on data that is not known yet
+     */
+    public double secondsUntilInactive() {
+        Period period = getPeriod();
+        if (period == null || schedule.getPhaseCount(period) == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (!ensureTable()) {
+            return Double.NaN;
+        }
+
+        double remaining = matchClock.getRemaining();
+        int index = tableIndex(period, remaining);
+        int p = period.ordinal();
+        return activeTables[p][index] ? remaining - deactivationTables[p][index] : 0.0;
+    }
+
+    /**
+     * Gets the alliance named by the game specific message, as of the last table build.
+     *
+     * @return the alliance, or empty if the message has not arrived
+     */
+    public Optional<Alliance> getMessageAlliance() {
+        return messageAlliance;
+    }
+
+    /**
+     * Gets the alliance that is inactive under the rule of the current phase.
+     *
+     * @return the inactive alliance, or empty when both or neither are active or it is not known yet
+     */
+    public Optional<Alliance> getInactiveAlliance() {
+        Rule rule = getRule();
+        if (!ensureTable() || rule == Rule.ALL || rule == Rule.NONE) {
+            return Optional.empty();
+        }
+        return rule == Rule.OTHER ? messageAlliance : opposing(messageAlliance.get());
+    }
+
+    /**
+     * Reads the game specific message again, without building the tables.
+     */
+    public void updateMessageAlliance() {
+        messageAlliance = parseMessage(source.getGameSpecificMessage());
+    }
+
+    /**
+     * Builds the tables if they are missing or belong to an earlier match period.
+     *
+     * @return whether the tables are ready
+     */
+    private boolean ensureTable() {
+        if (tableBuilt && tablePeriod == matchClock.getPeriodCount()) {
+            return true;
+        }
+
+        // Data from a previous period may be stale, so read it again
+        updateMessageAlliance();
+        Optional<Alliance> alliance = source.getAlliance();
+
+        if (!messageAlliance.isPresent() || !alliance.isPresent()) {
+            tableBuilt = false;
+            return false;
+        }
+
+        boolean isMessageAlliance = alliance.get() == messageAlliance.get();
+        for (Period period : Period.values()) {
+            buildTable(period, isMessageAlliance);
+        }
+        tableBuilt = true;
+        tablePeriod = matchClock.getPeriodCount();
+        return true;
+    }
+
+    private void buildTable(Period period, boolean isMessageAlliance) {
+        int p = period.ordinal();
+        boolean[] activeTable = activeTables[p];
+        double[] activationTable = activationTables[p];
+        double[] deactivationTable = deactivationTables[p];
+
+        // Index 0 is after the period ends, when every alliance is active
+        activeTable[0] = true;
+        activationTable[0] = 0.0;
+
+        double lastDeactivation = Double.NEGATIVE_INFINITY;
+        deactivationTable[0] = lastDeactivation;
+
+        // Sweep from the end of the period backwards so the next deactivation is always known
+        for (int index = 1; index < activeTable.length; index++) {
+            int phase = schedule.phaseAt(period, index);
+            boolean active = isActive(schedule.getPhaseRule(period, phase), isMessageAlliance);
+            activeTable[index] = active;
+
+            if (active) {
+                activationTable[index] = index;
+                deactivationTable[index] = lastDeactivation;
+            } else {
+                activationTable[index] = findActivation(period, phase, isMessageAlliance);
+                lastDeactivation = schedule.getPhaseStart(period, phase);
+                deactivationTable[index] = lastDeactivation;
+            }
+        }
+    }
+
+    /** Gets when the first active phase after an inactive one starts, or 0 if none does. */
+    private double findActivation(Period period, int phase, boolean isMessageAlliance) {
+        int next = phase + 1;
+        while (next < schedule.getPhaseCount(period)
+                && !isActive(schedule.getPhaseRule(period, next), isMessageAlliance)) {
+            next++;
+        }
+        return schedule.getPhaseEnd(period, next - 1);
+    }
+
+    private static boolean isActive(Rule rule, boolean isMessageAlliance) {
+        switch (rule) {
+            case ALL:
+                return true;
+            case MESSAGE:
+                return isMessageAlliance;
+            case OTHER:
+                return !isMessageAlliance;
+            default:
+                return false;
+        }
+    }
+
+    private int tableIndex(Period period, double remaining) {
+        int index = (int) Math.ceil(remaining);
+        if (index < 0) {
+            return 0;
+        }
+        return Math.min(index, schedule.getLength(period));
+    }
+
+    private static Optional<Alliance> parseMessage(String message) {
+        if (message == null || message.isEmpty()) {
+            return Optional.empty();
+        }
+
+        switch (message.charAt(0)) {
+            case 'R':
+                return RED;
+            case 'B':
+                return BLUE;
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private static Optional<Alliance> opposing(Alliance alliance) {
+        return alliance == Alliance.Red ? BLUE : RED;
+    }
+}
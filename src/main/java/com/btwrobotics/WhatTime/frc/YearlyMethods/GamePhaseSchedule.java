@@ -0,0 +1,318 @@
+package com.btwrobotics.WhatTime.frc.YearlyMethods;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import edu.wpi.first.wpilibj.Filesystem;
+
+/**
+ * The phases of a game and which alliances are active in each, for use with {@link GamePhaseEngine}.
+ *
+ * <p>A schedule lists the phases of the autonomous and teleop periods by the match time remaining
+ * at which they start. Each phase has a {@link Rule} saying which alliance is active during it,
+ * either outright or relative to the alliance named in the game specific message. A phase lasts
+ * from its start time down to the start of the next phase; the last phase of a period lasts until
+ * the period ends. Once built, the schedule keeps a table from each whole second remaining to its
+ * phase so lookups never search.
+ *
+ * <p>Schedules are usually written as text and loaded from the deploy directory at startup with
+ * {@link #loadFromDeploy(String)}. Each non-blank line not starting with {@code #} is
+ * <pre>
+ * period, start, name, rule
+ * </pre>
+ * where {@code period} is {@code auto} or {@code teleop}, {@code start} is the whole number of
+ * seconds remaining when the phase begins and {@code rule} is one of {@code all}, {@code none},
+ * {@code message} or {@code other}. For example, the 2026 Rebuilt teleop hub schedule:
+ * <pre>
+ * teleop, 140, Transition Shift, all
+ * teleop, 130, Teleop Phase 1, other
+ * teleop, 105, Teleop Phase 2, message
+ * teleop,  80, Teleop Phase 3, other
+ * teleop,  55, Teleop Phase 4, message
+ * teleop,  30, Endgame, all
+ * </pre>
+ */
+public final class GamePhaseSchedule {
+    /** The match periods a schedule covers. */
+    public enum Period {
+        AUTO,
+        TELEOP
+    }
+
+    /** Which alliance is active during a phase. */
+    public enum Rule {
+        /** Both alliances are active. */
+        ALL,
+        /** Neither alliance is active. */
+        NONE,
+        /** Only the alliance named by the game specific message is active. */
+        MESSAGE,
+        /** Only the alliance not named by the game specific message is active. */
+        OTHER
+    }
+
+    /** The longest period a schedule can describe, in seconds. */
+    public static final int MAX_PERIOD_LENGTH = 300;
+
+    /** The most phases a single period can have. */
+    public static final int MAX_PHASES = Byte.MAX_VALUE;
+
+    private final String[][] names;
+    private final int[][] starts;
+    private final Rule[][] rules;
+
+    /** For each period, the phase index for each whole second remaining, or -1 outside every phase. */
+    private final byte[][] phaseTables;
+
+    private GamePhaseSchedule(Builder builder) {
+        int periodCount = Period.values().length;
+        names = new String[periodCount][];
+        starts = new int[periodCount][];
+        rules = new Rule[periodCount][];
+        phaseTables = new byte[periodCount][];
+
+        for (Period period : Period.values()) {
+            int p = period.ordinal();
+            List<Integer> order = builder.sortedPhases(period);
+
+            names[p] = new String[order.size()];
+            starts[p] = new int[order.size()];
+            rules[p] = new Rule[order.size()];
+
+            for (int i = 0; i < order.size(); i++) {
+                int phase = order.get(i);
+                names[p][i] = builder.names.get(phase);
+                starts[p][i] = builder.starts.get(phase);
+                rules[p][i] = builder.rules.get(phase);
+            }
+
+            int length = starts[p].length > 0 ? starts[p][0] : 0;
+            byte[] table = new byte[length + 1];
+
+            // Index n covers (n - 1, n] seconds remaining; index 0 is after the period ends
+            table[0] = -1;
+            int phase = starts[p].length - 1;
+            for (int index = 1; index <= length; index++) {
+                while (index > starts[p][phase]) {
+                    phase--;
+                }
+                table[index] = (byte) phase;
+            }
+            phaseTables[p] = table;
+        }
+    }
+
+    /**
+     * Creates a builder for a schedule defined in code.
+     *
+     * @return an empty builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Parses a schedule from text.
+     *
+     * @param text the schedule, one phase per line
+     * @return the parsed schedule
+     * @throws IllegalArgumentException if a line cannot be parsed
+     */
+    public static GamePhaseSchedule parse(String text) {
+        Builder builder = builder();
+        String[] lines = text.split("\\R");
+
+        for (int lineNumber = 1; lineNumber <= lines.length; lineNumber++) {
+            String line = lines[lineNumber - 1].trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] fields = line.split(",");
+            if (fields.length != 4) {
+                throw new IllegalArgumentException(
+                    "Line " + lineNumber + ": expected 'period, start, name, rule' but got '" + line + "'.");
+            }
+
+            try {
+                Period period = Period.valueOf(fields[0].trim().toUpperCase(Locale.ROOT));
+                int start = Integer.parseInt(fields[1].trim());
+                Rule rule = parseRule(fields[3].trim());
+                builder.phase(period, start, fields[2].trim(), rule);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Loads a schedule from a file.
+     *
+     * @param path the file to read
+     * @return the parsed schedule
+     * @throws IllegalStateException if the file cannot be read
+     * @throws IllegalArgumentException if a line cannot be parsed
+     */
+    public static GamePhaseSchedule load(Path path) {
+        try {
+            return parse(Files.readString(path, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read phase schedule " + path + ".", e);
+        }
+    }
+
+    /**
+     * Loads a schedule from a file in the robot's deploy directory.
+     *
+     * @param fileName the file name relative to the deploy directory
+     * @return the parsed schedule
+     * @throws IllegalStateException if the file cannot be read
+     * @throws IllegalArgumentException if a line cannot be parsed
+     */
+    public static GamePhaseSchedule loadFromDeploy(String fileName) {
+        return load(Filesystem.getDeployDirectory().toPath().resolve(fileName));
+    }
+
+    /**
+     * Gets the length of a period, which is the start time of its first phase.
+     *
+     * @param period the match period
+     * @return the period length in seconds, or 0 if the period has no phases
+     */
+    public int getLength(Period period) {
+        return phaseTables[period.ordinal()].length - 1;
+    }
+
+    public int getPhaseCount(Period period) {
+        return starts[period.ordinal()].length;
+    }
+
+    public String getPhaseName(Period period, int phase) {
+        return names[period.ordinal()][phase];
+    }
+
+    public int getPhaseStart(Period period, int phase) {
+        return starts[period.ordinal()][phase];
+    }
+
+    /**
+     * Gets the time remaining at which a phase ends.
+     *
+     * @param period the match period
+     * @param phase the phase index
+     * @return the start of the next phase, or 0 for the last phase
+     */
+    public int getPhaseEnd(Period period, int phase) {
+        int[] periodStarts = starts[period.ordinal()];
+        return phase + 1 < periodStarts.length ? periodStarts[phase + 1] : 0;
+    }
+
+    public Rule getPhaseRule(Period period, int phase) {
+        return rules[period.ordinal()][phase];
+    }
+
+    /**
+     * Gets the phase running at a given whole second remaining.
+     *
+     * @param period the match period
+     * @param index the time remaining rounded up to a whole second
+     * @return the phase index, or -1 if no phase is running
+     */
+    public int phaseAt(Period period, int index) {
+        byte[] table = phaseTables[period.ordinal()];
+        if (index <= 0 || index >= table.length) {
+            return -1;
+        }
+        return table[index];
+    }
+
+    private static Rule parseRule(String rule) {
+        switch (rule.toLowerCase(Locale.ROOT)) {
+            case "all":
+                return Rule.ALL;
+            case "none":
+                return Rule.NONE;
+            case "message":
+                return Rule.MESSAGE;
+            case "other":
+                return Rule.OTHER;
+            default:
+                throw new IllegalArgumentException("Unknown rule '" + rule + "'; expected all, none, message or other.");
+        }
+    }
+
+    /**
+     * Collects phases for a {@link GamePhaseSchedule}. Phases may be added in any order.
+     */
+    public static final class Builder {
+        private final List<Period> periods = new ArrayList<>();
+        private final List<Integer> starts = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<Rule> rules = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a phase.
+         *
+         * @param period the match period the phase belongs to
+         * @param start the whole number of seconds remaining when the phase begins
+         * @param name a description of the phase
+         * @param rule which alliance is active during the phase
+         * @return this builder
+         */
+        public Builder phase(Period period, int start, String name, Rule rule) {
+            if (period == null || rule == null) {
+                throw new IllegalArgumentException("period and rule cannot be null.");
+            }
+            if (start <= 0 || start > MAX_PERIOD_LENGTH) {
+                throw new IllegalArgumentException("start must be between 1 and " + MAX_PERIOD_LENGTH + ".");
+            }
+            for (int i = 0; i < periods.size(); i++) {
+                if (periods.get(i) == period && starts.get(i) == start) {
+                    throw new IllegalArgumentException("Two " + period + " phases start at " + start + "s.");
+                }
+            }
+
+            periods.add(period);
+            starts.add(start);
+            names.add(name != null ? name : "");
+            rules.add(rule);
+            return this;
+        }
+
+        /**
+         * Builds the schedule and its lookup tables.
+         *
+         * @return the schedule
+         */
+        public GamePhaseSchedule build() {
+            for (Period period : Period.values()) {
+                if (sortedPhases(period).size() > MAX_PHASES) {
+                    throw new IllegalArgumentException(
+                        "A period can have at most " + MAX_PHASES + " phases, but " + period + " has more.");
+                }
+            }
+            return new GamePhaseSchedule(this);
+        }
+
+        private List<Integer> sortedPhases(Period period) {
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < periods.size(); i++) {
+                if (periods.get(i) == period) {
+                    order.add(i);
+                }
+            }
+            order.sort((a, b) -> Integer.compare(starts.get(b), starts.get(a)));
+            return order;
+        }
+    }
+}
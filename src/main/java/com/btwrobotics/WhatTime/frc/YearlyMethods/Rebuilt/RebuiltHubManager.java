@@ -5,171 +5,169 @@ import java.util.List;
 import java.util.Optional;
 
 import com.btwrobotics.WhatTime.frc.DashboardManagers.NetworkTablesUtil;
-import com.btwrobotics.WhatTime.frc.DriverStation.AllianceManager;
+import com.btwrobotics.WhatTime.frc.DriverStation.MatchClock;
+import com.btwrobotics.WhatTime.frc.DriverStation.MatchState;
+import com.btwrobotics.WhatTime.frc.DriverStation.MatchStateSource;
 import com.btwrobotics.WhatTime.frc.DriverStation.MatchTimeManager;
+import com.btwrobotics.WhatTime.frc.YearlyMethods.GamePhaseEngine;
+import com.btwrobotics.WhatTime.frc.YearlyMethods.GamePhaseSchedule;
+import com.btwrobotics.WhatTime.frc.YearlyMethods.GamePhaseSchedule.Period;
 
-import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.DriverStation.Alliance;
-import edu.wpi.first.wpilibj2.command.Command;
-import edu.wpi.first.wpilibj2.command.Commands;
 
+/**
+ * Tracks which hub is active during a 2026 Rebuilt match.
+ *
+ * <p>This is the Rebuilt configuration of a {@link GamePhaseEngine}: the teleop schedule in
+ * {@link #SCHEDULE} is compiled into tables as soon as the game specific message and the robot's
+ * alliance are known, and {@link #hubIsActive()}, {@link #secondsUntilActive()} and
+ * {@link #secondsUntilInactive()} are array lookups against the interpolated {@link MatchClock}
+ * of the {@link MatchTimeManager}. A schedule loaded from the deploy directory with
+ * {@link GamePhaseSchedule#loadFromDeploy(String)} can be passed in instead, for example if the
+ * shift times change during the season.
+ */
 public class RebuiltHubManager {
     public MatchTimeManager matchTimeManager;
 
-    public RebuiltHubManager(MatchTimeManager matchTimeManager) {
-        this.matchTimeManager = matchTimeManager;
-    }
-
-    private Optional<Alliance> inactiveFirstAlliance = Optional.empty();
-
     /*
      * Times
-     * 0 - Auto: Idk if it has a separate timer for auto
-     * 1 - Transition Shift: 2:20-210 or 140s-130s
+     * 0 - Auto: Both hubs are active
+     * 1 - Transition Shift: 2:20-2:10 or 140s-130s
      * 2 - Phase 1: 2:10-1:45 or 130s-105s
      * 3 - Phase 2: 1:45-1:20 or 105s-80s
      * 4 - Phase 3: 1:20-0:55 or 80s-55s
      * 5 - Phase 4: 0:55-0:30 or 55s-30s
      * 6 - Endgame: 0:30-0:00 or 30s-0s
+     *
+     * The game specific message names the alliance whose hub is inactive first.
      */
-    public List<Double> sectionStartTimes = new ArrayList<>();
+    /** The 2026 Rebuilt hub schedule, in the format read by {@link GamePhaseSchedule#parse(String)}. */
+    public static final String SCHEDULE_TEXT = String.join("\n",
+        "teleop, 140, Transition Shift, all",
+        "teleop, 130, Teleop Phase 1, other",
+        "teleop, 105, Teleop Phase 2, message",
+        "teleop,  80, Teleop Phase 3, other",
+        "teleop,  55, Teleop Phase 4, message",
+        "teleop,  30, Endgame, all");
 
-    public Optional<Alliance> currentInactiveAlliance = Optional.empty();
+    /** The 2026 Rebuilt hub schedule. */
+    public static final GamePhaseSchedule SCHEDULE = GamePhaseSchedule.parse(SCHEDULE_TEXT);
+
+    private final GamePhaseEngine engine;
+
+    public RebuiltHubManager(MatchTimeManager matchTimeManager) {
+        this(matchTimeManager, MatchState.getSource());
+    }
 
     /**
-     * Updates the alliance that is inactive first after autonomous.
+     * Creates a hub manager that reads match state from the given source.
+     *
+     * @param matchTimeManager the timeline the phase changes are scheduled on
+     * @param source the source of the alliance and game specific message
      */
-    public void updateInitialInactiveAlliance() {
-        // Gets R or B from DriverStation for which hub is inactive first
-        String allianceString = DriverStation.getGameSpecificMessage();
+    public RebuiltHubManager(MatchTimeManager matchTimeManager, MatchStateSource source) {
+        this(matchTimeManager, source, SCHEDULE);
+    }
 
-        // Data not available yet
-        if (allianceString == null || allianceString.isEmpty()) {
-            return;
-        }
+    /**
+     * Creates a hub manager that follows a custom schedule.
+     *
+     * @param matchTimeManager the timeline the phase changes are scheduled on
+     * @param source the source of the alliance and game specific message
+     * @param schedule the hub schedule, where the game specific message names the alliance inactive first
+     */
+    public RebuiltHubManager(MatchTimeManager matchTimeManager, MatchStateSource source, GamePhaseSchedule schedule) {
+        this.matchTimeManager = matchTimeManager;
+        this.engine = new GamePhaseEngine(schedule, matchTimeManager.getMatchClock(), source);
 
-        if (allianceString.equals("R")) {
-            inactiveFirstAlliance = Optional.of(Alliance.Red);
-        } else if (allianceString.equals("B")) {
-            inactiveFirstAlliance = Optional.of(Alliance.Blue);
+        for (int phase = 0; phase < schedule.getPhaseCount(Period.TELEOP); phase++) {
+            sectionStartTimes.add((double) schedule.getPhaseStart(Period.TELEOP, phase));
         }
     }
 
+    /** The start time of each teleop phase in seconds remaining, latest first. */
+    public List<Double> sectionStartTimes = new ArrayList<>();
+
     /**
-     * Adds triggers for commands at each phase of the match.
+     * The alliance whose hub is inactive in the current phase, or empty when both hubs are active.
+     * Updated at each phase change; {@link #hubIsActive()} does not depend on it.
      */
-    public void scheduleAllInactiveHubChanges() {
-        // Transition Shift: 140s-130s
-        matchTimeManager.scheduleEventAtTime(
-                140,
-                enableAllianceCommand(),
-                "Transition Shift");
-
-        // Phase 1: 130s-105s
-        matchTimeManager.scheduleEventAtTime(
-                130,
-                startInactiveManager(),
-                "Teleop Phase 1");
-
-        // Phase 2: 105s-80s
-        matchTimeManager.scheduleEventAtTime(
-                105,
-                toggleAllianceCommand(),
-                "Teleop Phase 2");
-
-        // Phase 3: 80s-55s
-        matchTimeManager.scheduleEventAtTime(
-                80,
-                toggleAllianceCommand(),
-                "Teleop Phase 3");
-
-        // Phase 4: 55s-30s
-        matchTimeManager.scheduleEventAtTime(
-                55,
-                toggleAllianceCommand(),
-                "Teleop Phase 4");
-
-        // Endgame: 30s-0s
-        matchTimeManager.scheduleEventAtTime(
-                30,
-                enableAllianceCommand(),
-                "Endgame");
-    }
-
-    // Runs at the start of phase 1 to set the first inactive alliance
-    private Command startInactiveManager() {
-        return Commands.runOnce(
-                () -> {
-                    // Try to get data again if it is missing
-                    if (!inactiveFirstAlliance.isPresent()) {
-                        updateInitialInactiveAlliance();
-                    }
-
-                    currentInactiveAlliance = inactiveFirstAlliance;
-                });
-    }
+    public Optional<Alliance> currentInactiveAlliance = Optional.empty();
 
-    // Switches between inactive alliances
-    private Command toggleAllianceCommand() {
-        return Commands.runOnce(
-                () -> {
-                    if (currentInactiveAlliance.isPresent()) {
-                        currentInactiveAlliance = AllianceManager.toggleAlliance(currentInactiveAlliance);
-                    } else {
-                        // Fallback: try to initialize from current alliance
-                        currentInactiveAlliance = AllianceManager.getOpposingAlliance();
-                    }
-                });
+    /**
+     * Updates the alliance that is inactive first after autonomous.
+     */
+    public void updateInitialInactiveAlliance() {
+        engine.updateMessageAlliance();
     }
 
-    // Sets the current alliance to active
-    private Command enableAllianceCommand() {
-        return Commands.runOnce(
-                () -> {
-                    Optional<Alliance> opposingAlliance = AllianceManager.getOpposingAlliance();
-                    if (opposingAlliance.isPresent()) {
-                        currentInactiveAlliance = opposingAlliance;
-                    }
-                });
+    /**
+     * Adds events at each phase of the match that update {@link #currentInactiveAlliance}
+     * and the phase lists published by {@link #putPhasesToNetworkTables()}.
+     */
+    public void scheduleAllInactiveHubChanges() {
+        GamePhaseSchedule schedule = engine.getSchedule();
+        for (int phase = 0; phase < schedule.getPhaseCount(Period.TELEOP); phase++) {
+            matchTimeManager.scheduleEventAtTime(
+                    schedule.getPhaseStart(Period.TELEOP, phase),
+                    this::updateCurrentInactiveAlliance,
+                    schedule.getPhaseName(Period.TELEOP, phase));
+        }
     }
 
-    // Sets the current alliance to inactive
-    private Command disableAllianceCommand() {
-        return Commands.runOnce(
-                () -> {
-                    Optional<Alliance> currentAlliance = AllianceManager.getCurrentAlliance();
-                    if (currentAlliance.isPresent()) {
-                        currentInactiveAlliance = currentAlliance;
-                    }
-                });
+    private void updateCurrentInactiveAlliance() {
+        currentInactiveAlliance = engine.getInactiveAlliance();
     }
 
     /**
      * Indicates whether the current alliance's hub is active
-     * 
-     * @return {@code true} when hub is active
+     *
+     * <p>Both hubs are active outside of teleop and during the transition shift and endgame.
+     *
+     * @return {@code true} when hub is active; {@code false} when it is inactive, or during
+     *         teleop when the alliance or game specific message needed to tell are not known yet
      */
     public boolean hubIsActive() {
-        // Return false (inactive) if no current inactive alliance data
-        if (!currentInactiveAlliance.isPresent()) {
-            return false;
-        }
+        return engine.isActive();
+    }
 
-        Optional<Alliance> currentAlliance = AllianceManager.getCurrentAlliance();
-        if (!currentAlliance.isPresent()) {
-            return false;
-        }
+    /**
+     * Gets how long until the current alliance's hub becomes active.
+     *
+     * @return 0 while the hub is active, the seconds until it becomes active during teleop,
+     *         or {@code NaN} if the schedule is not known yet
+     */
+    public double secondsUntilActive() {
+        return engine.secondsUntilActive();
+    }
 
-        return !currentInactiveAlliance.get().equals(currentAlliance.get());
+    /**
+     * Gets how long until the current alliance's hub next becomes inactive.
+     *
+     * @return 0 while the hub is inactive, the seconds until it becomes inactive during teleop,
+     *         {@code Double.POSITIVE_INFINITY} if it stays active for the rest of teleop or
+     *         teleop has not started, or {@code NaN} if the schedule is not known yet
+     */
+    public double secondsUntilInactive() {
+        return engine.secondsUntilInactive();
     }
 
     /**
      * Tells which alliance is inactive first
-     * 
+     *
      * @return an {@code Optional<Alliance>} object of .Red or .Blue
      */
     public Optional<Alliance> getInactiveFirstAlliance() {
-        return inactiveFirstAlliance;
+        return engine.getMessageAlliance();
+    }
+
+    /**
+     * Gets the phase engine behind this manager.
+     *
+     * @return the engine following the hub schedule
+     */
+    public GamePhaseEngine getEngine() {
+        return engine;
     }
 
     public void putPhasesToNetworkTables() {
@@ -0,0 +1,127 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.btwrobotics.WhatTime.frc.MotorManagers.MotionCoordinator.Bound;
+
+/**
+ * Runs the interlocked stow from {@link MotionCoordinator}'s documentation on fake motors.
+ */
+class MotionCoordinatorTest {
+    private static final double LOOP_PERIOD = 0.02;
+    private static final double FREE_SPEED = 5.0;
+    private static final double TIMEOUT = 10.0;
+
+    private final FakeMotorIO elevatorIO = new FakeMotorIO(1).setFreeSpeed(FREE_SPEED);
+    private final FakeMotorIO armIO = new FakeMotorIO(2).setFreeSpeed(FREE_SPEED);
+    private double time = 0.0;
+
+    private final Motor elevator = motor(elevatorIO);
+    private final Motor arm = motor(armIO);
+
+    private final MotionCoordinator coordinator = new MotionCoordinator(LOOP_PERIOD)
+        .addAxis(elevator, 2.0, 6.0)
+        .addAxis(arm, 1.5, 4.0)
+        .addInterlock(arm, Bound.ABOVE, 0.4, elevator, Bound.BELOW, 0.2);
+
+    @Test
+    void stowRunsToCompletionWithoutBreakingTheInterlock() {
+        elevatorIO.setPosition(1.0);
+        armIO.setPosition(0.0);
+
+        coordinator.start(0.0, 0.5);
+        int blockedLoops = 0;
+        while (!coordinator.isFinished()) {
+            assertTrue(time < TIMEOUT, "The move did not finish; blocked for " + blockedLoops + " loops.");
+
+            time += LOOP_PERIOD;
+            coordinator.checkInterlocks();
+            if (coordinator.isBlocked()) {
+                blockedLoops++;
+            }
+            elevator.update();
+            arm.update();
+            elevatorIO.step(LOOP_PERIOD);
+            armIO.step(LOOP_PERIOD);
+
+            double elevatorPosition = elevatorIO.getPosition(false);
+            double armPosition = armIO.getPosition(false);
+            assertFalse(elevatorPosition <= 0.2 && armPosition < 0.4,
+                "The elevator reached " + elevatorPosition + " with the arm at " + armPosition + ".");
+        }
+
+        assertEquals(0.0, elevatorIO.getPosition(false), elevator.getThreshold());
+        assertEquals(0.5, armIO.getPosition(false), arm.getThreshold());
+        // A move that tracks its plan has enough margin never to be held
+        assertEquals(0, blockedLoops);
+    }
+
+    @Test
+    void heldAxisWaitsWhileItsGuardKeepsMoving() {
+        elevatorIO.setPosition(1.0);
+        armIO.setPosition(0.0);
+        // The arm is slower than planned, so the elevator must wait for it
+        armIO.setFreeSpeed(1.0);
+
+        coordinator.start(0.0, 0.5);
+        boolean wasBlocked = false;
+        while (!coordinator.isFinished()) {
+            assertTrue(time < TIMEOUT, "The move did not finish.");
+
+            time += LOOP_PERIOD;
+            coordinator.checkInterlocks();
+            if (coordinator.isBlocked()) {
+                wasBlocked = true;
+                assertFalse(arm.getFollower().isPaused(), "The guard was paused with the axis it guards.");
+            }
+            elevator.update();
+            arm.update();
+            elevatorIO.step(LOOP_PERIOD);
+            armIO.step(LOOP_PERIOD);
+
+            double elevatorPosition = elevatorIO.getPosition(false);
+            double armPosition = armIO.getPosition(false);
+            assertFalse(elevatorPosition <= 0.2 && armPosition < 0.4,
+                "The elevator reached " + elevatorPosition + " with the arm at " + armPosition + ".");
+        }
+
+        assertTrue(wasBlocked, "The interlock never held the elevator.");
+        assertEquals(0.0, elevatorIO.getPosition(false), elevator.getThreshold());
+        assertEquals(0.5, armIO.getPosition(false), arm.getThreshold());
+    }
+
+    @Test
+    void moveEndingOnAStepIsSampledOnce() {
+        // Ends at 1.14 s, which rounds to just past the 57th step
+        MotionCoordinator single = new MotionCoordinator(LOOP_PERIOD).addAxis(elevator, 2.5, 5.0);
+
+        single.start(1.6);
+        assertEquals(1.14, single.getDuration(), 1e-9);
+        while (!single.isFinished()) {
+            assertTrue(time < TIMEOUT, "The move did not finish.");
+
+            time += LOOP_PERIOD;
+            single.checkInterlocks();
+            elevator.update();
+            elevatorIO.step(LOOP_PERIOD);
+        }
+
+        assertEquals(1.6, elevatorIO.getPosition(false), elevator.getThreshold());
+    }
+
+    private Motor motor(FakeMotorIO io) {
+        Motor motor = new Motor(io, false, false)
+            .setClock(() -> time)
+            .setWarningSink(message -> { })
+            .setFree(false)
+            .setRange(-2.0, 2.0)
+            .setPG(4.0)
+            .setTrajectoryGains(1.0 / FREE_SPEED, 0.0);
+        motor.toggleEnabled(true);
+        return motor;
+    }
+}
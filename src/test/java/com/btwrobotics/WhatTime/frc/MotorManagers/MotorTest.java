@@ -0,0 +1,77 @@
+package com.btwrobotics.WhatTime.frc.MotorManagers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs {@link Motor} on a {@link FakeMotorIO}, off the scheduler and on a simulated clock, so
+ * nothing here needs the HAL.
+ */
+class MotorTest {
+    private static final double LOOP_PERIOD = 0.02;
+
+    private final FakeMotorIO io = new FakeMotorIO(1).setFreeSpeed(5.0);
+    private final List<String> warnings = new ArrayList<>();
+    private double time = 0.0;
+
+    private final Motor motor = new Motor(io, false, false)
+        .setClock(() -> time)
+        .setWarningSink(warnings::add)
+        .setFree(false)
+        .setRange(-1.0, 1.0)
+        .setPG(4.0);
+
+    @Test
+    void goToSettlesOnTheTarget() {
+        motor.toggleEnabled(true);
+        motor.goTo(0.5);
+        run(3.0);
+
+        assertEquals(0.5, io.getPosition(false), motor.getThreshold());
+        assertTrue(warnings.isEmpty(), "Unexpected warnings: " + warnings);
+    }
+
+    @Test
+    void disabledMotorWarnsOnceAndSendsNothing() {
+        motor.goTo(0.5);
+        motor.goTo(0.5);
+        run(1.0);
+
+        assertEquals(List.of("Motor is disabled."), warnings);
+        assertEquals(0.0, io.getOutput());
+        assertEquals(0.0, io.getPosition(false));
+    }
+
+    @Test
+    void followsATrajectoryOnTheInjectedClock() {
+        MotorTrajectory trajectory = new MotorTrajectory(
+            new double[] {0.0, 1.0},
+            new double[] {0.0, 0.5},
+            new double[] {0.5, 0.5},
+            new double[] {0.0, 0.0});
+
+        motor.toggleEnabled(true);
+        TrajectoryFollower follower = motor.follow(trajectory);
+        run(0.5);
+        // The first update only starts the follower's clock
+        assertEquals(0.5 - LOOP_PERIOD, follower.getTime(), 1e-9);
+
+        run(2.0);
+        assertTrue(follower.isFinished(), "The trajectory did not finish.");
+        assertEquals(0.5, io.getPosition(false), motor.getThreshold());
+    }
+
+    private void run(double seconds) {
+        int ticks = (int) Math.round(seconds / LOOP_PERIOD);
+        for (int i = 0; i < ticks; i++) {
+            time += LOOP_PERIOD;
+            motor.update();
+            io.step(LOOP_PERIOD);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.btwrobotics.WhatTime.frc.YearlyMethods.Rebuilt;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.btwrobotics.WhatTime.frc.DriverStation.MatchSimulation;
+import com.btwrobotics.WhatTime.frc.DriverStation.SimulatedMatchSource;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+
+class RebuiltHubManagerTest {
+    @BeforeAll
+    static void initializeHal() {
+        assertTrue(HAL.initialize(500, 0), "HAL simulation failed to initialize.");
+    }
+
+    @Test
+    void hubScheduleMatchesGameManual() {
+        RebuiltHubSimulation.verifyAllMatches();
+    }
+
+    @Test
+    void hubScheduleHoldsAtAnUnevenLoopPeriod() {
+        // Shift boundaries then fall between loops instead of on them
+        MatchSimulation simulation = new MatchSimulation(new SimulatedMatchSource())
+            .setLoopPeriod(0.023);
+        int ticks = RebuiltHubSimulation.verifyMatch(simulation, "R", Alliance.Blue);
+        assertTrue(ticks > 0, "The simulation ran no ticks.");
+    }
+}
@@ -0,0 +1,110 @@
+package com.btwrobotics.WhatTime.frc.YearlyMethods.Rebuilt;
+
+import com.btwrobotics.WhatTime.frc.DriverStation.MatchSimulation;
+import com.btwrobotics.WhatTime.frc.DriverStation.MatchTimeManager;
+import com.btwrobotics.WhatTime.frc.DriverStation.SimulatedMatchSource;
+
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+
+/**
+ * Replays full 2026 Rebuilt matches and checks {@link RebuiltHubManager#hubIsActive()} on every loop.
+ * 
+ * <p>Each run builds a fresh {@link MatchTimeManager} and {@link RebuiltHubManager} on a
+ * {@link SimulatedMatchSource}, plays autonomous, the transition shift, phases 1 to 4 and
+ * endgame, and compares the hub state after every tick with the schedule from the game manual.
+ * A mismatch throws an {@link AssertionError} naming the tick, so a schedule change is
+ * regression tested in milliseconds by {@link RebuiltHubManagerTest}.
+ * 
+ * <p>{@link MatchTimeManager} is a subsystem, so the HAL has to be initialized first.
+ */
+final class RebuiltHubSimulation {
+    private RebuiltHubSimulation() {
+    }
+
+    /**
+     * Verifies the hub schedule for both alliances with both game specific messages.
+     * 
+     * @throws AssertionError if the hub state differs from the expected schedule on any tick
+     */
+    static void verifyAllMatches() {
+        for (Alliance alliance : Alliance.values()) {
+            verifyMatch("R", alliance);
+            verifyMatch("B", alliance);
+        }
+    }
+
+    /**
+     * Verifies the hub schedule for one match at the default loop period.
+     * 
+     * @param gameSpecificMessage the alliance whose hub goes inactive first, {@code "R"} or {@code "B"}
+     * @param alliance the alliance the robot is on
+     * @return the number of ticks checked
+     * @throws AssertionError if the hub state differs from the expected schedule on any tick
+     */
+    static int verifyMatch(String gameSpecificMessage, Alliance alliance) {
+        return verifyMatch(new MatchSimulation(new SimulatedMatchSource()), gameSpecificMessage, alliance);
+    }
+
+    /**
+     * Verifies the hub schedule for one match using a configured simulation.
+     * 
+     * @param simulation the simulation to run; its loop period and timing are used as-is
+     * @param gameSpecificMessage the alliance whose hub goes inactive first, {@code "R"} or {@code "B"}
+     * @param alliance the alliance the robot is on
+     * @return the number of ticks checked
+     * @throws AssertionError if the hub state differs from the expected schedule on any tick
+     */
+    static int verifyMatch(MatchSimulation simulation, String gameSpecificMessage, Alliance alliance) {
+        SimulatedMatchSource source = simulation.getSource();
+        source.setAlliance(alliance);
+
+        MatchTimeManager matchTimeManager = new MatchTimeManager(source);
+        RebuiltHubManager hubManager = new RebuiltHubManager(matchTimeManager, source);
+        hubManager.scheduleAllInactiveHubChanges();
+
+        Alliance inactiveFirst = gameSpecificMessage.equals("R") ? Alliance.Red : Alliance.Blue;
+
+        simulation.setGameSpecificMessage(gameSpecificMessage);
+        simulation.run(sim -> {
+            matchTimeManager.update();
+
+            boolean expected = expectedHubActive(sim, alliance, inactiveFirst);
+            boolean actual = hubManager.hubIsActive();
+            if (actual != expected) {
+                throw new AssertionError(
+                    "Hub for " + alliance + " (message " + gameSpecificMessage + ") was "
+                    + (actual ? "active" : "inactive") + " at tick " + sim.getTick()
+                    + " (" + sim.getPhase() + ", " + sim.getTrueRemaining() + "s remaining), expected "
+                    + (expected ? "active" : "inactive"));
+            }
+        });
+
+        return simulation.getTick();
+    }
+
+    /**
+     * The hub schedule from the game manual, written independently of {@link RebuiltHubManager}.
+     */
+    private static boolean expectedHubActive(MatchSimulation simulation, Alliance alliance, Alliance inactiveFirst) {
+        if (simulation.getPhase() != MatchSimulation.Phase.TELEOP) {
+            return true;
+        }
+
+        double remaining = simulation.getTrueRemaining();
+        boolean firstIsInactive;
+        if (remaining > 130.0 || remaining <= 30.0) {
+            // Transition shift and endgame: both hubs active
+            return true;
+        } else if (remaining > 105.0) {
+            firstIsInactive = true;
+        } else if (remaining > 80.0) {
+            firstIsInactive = false;
+        } else if (remaining > 55.0) {
+            firstIsInactive = true;
+        } else {
+            firstIsInactive = false;
+        }
+
+        return firstIsInactive != (alliance == inactiveFirst);
+    }
+}